@@ -0,0 +1,41 @@
+package org.flanVim.bench;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+import org.openjdk.jmh.Main;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * BenchmarkMain: benchmarks.jar 的入口
+ *
+ * 接受 JMH 的全部命令行参数；没有用 -rf/-rff 指定结果文件时，
+ * 结果以 JSON 写到 results/jmh-<时间>.json，每次运行一个文件，便于前后比较。
+ */
+public class BenchmarkMain {
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions options = new CommandLineOptions(args);
+        if (options.shouldHelp() || options.shouldList() || options.shouldListWithParams()
+                || options.shouldListProfilers() || options.shouldListResultFormats()) {
+            Main.main(args);
+            return;
+        }
+
+        ChainedOptionsBuilder builder = new OptionsBuilder().parent(options);
+        if (!options.getResultFormat().hasValue() && !options.getResult().hasValue()) {
+            Path dir = Paths.get("results");
+            Files.createDirectories(dir);
+            String name = "jmh-" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")) + ".json";
+            builder.resultFormat(ResultFormatType.JSON).result(dir.resolve(name).toString());
+            System.out.println("Results will be written to " + dir.resolve(name));
+        }
+        new Runner(builder.build()).run();
+    }
+}
@@ -0,0 +1,89 @@
+package org.flanVim.bench;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Documents: 基准测试用的测试文档
+ *
+ * 每行长度固定（LINE_BYTES），行数可以直接由大小算出，HEAD/MIDDLE/TAIL 对应的行号不需要扫描文件。
+ * 文件生成在临时目录中并按大小复用，500MB 的文档不必每个 fork 重新生成；
+ * Editor 从文件加载时直接读入 UTF-8 字节，不会在堆上先拼出一个巨大的 String。
+ */
+final class Documents {
+    static final int LINE_BYTES = 64;
+
+    private Documents() {}
+
+    /**
+     * 解析 "1KB"、"64MB" 这样的大小
+     */
+    static long parseSize(String size) {
+        String value = size.trim().toUpperCase();
+        if (value.endsWith("GB")) {
+            return Long.parseLong(value.substring(0, value.length() - 2)) << 30;
+        }
+        if (value.endsWith("MB")) {
+            return Long.parseLong(value.substring(0, value.length() - 2)) << 20;
+        }
+        if (value.endsWith("KB")) {
+            return Long.parseLong(value.substring(0, value.length() - 2)) << 10;
+        }
+        return Long.parseLong(value);
+    }
+
+    /**
+     * @return 不超过 bytes 的整行数（至少 1 行）
+     */
+    static int lineCount(long bytes) {
+        return (int) Math.max(1, bytes / LINE_BYTES);
+    }
+
+    /**
+     * HEAD/MIDDLE/TAIL 对应的行号
+     */
+    static int lineAt(String position, int lineCount) {
+        switch (position) {
+            case "HEAD":
+                return 1;
+            case "MIDDLE":
+                return Math.max(1, lineCount / 2);
+            case "TAIL":
+                return lineCount;
+            default:
+                throw new IllegalArgumentException("Unknown position: " + position);
+        }
+    }
+
+    /**
+     * 获取（必要时生成）指定大小的测试文档
+     */
+    static Path get(long bytes) throws IOException {
+        int lines = lineCount(bytes);
+        Path file = Paths.get(System.getProperty("java.io.tmpdir"), "flanvim-bench-" + bytes + ".txt");
+        if (Files.isRegularFile(file) && Files.size(file) == (long) lines * LINE_BYTES) {
+            return file;
+        }
+        Path partial = Paths.get(file + ".tmp");
+        byte[] line = new byte[LINE_BYTES];
+        byte[] filler = "The quick brown fox jumps over the lazy dog. Lorem ipsum dolor sit amet."
+                .getBytes(StandardCharsets.US_ASCII);
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(partial), 1 << 20)) {
+            for (int i = 1; i <= lines; i++) {
+                byte[] number = String.format("%09d ", i).getBytes(StandardCharsets.US_ASCII);
+                System.arraycopy(number, 0, line, 0, number.length);
+                System.arraycopy(filler, 0, line, number.length, LINE_BYTES - 1 - number.length);
+                line[LINE_BYTES - 1] = '\n';
+                out.write(line);
+            }
+        }
+        Files.move(partial, file, StandardCopyOption.REPLACE_EXISTING);
+        return file;
+    }
+}
@@ -0,0 +1,69 @@
+package org.flanVim.bench;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.flanVim.editor.Editor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * EditorBenchmark: Editor 的基本编辑和读取操作
+ *
+ * 文档大小从 1KB 到 500MB，编辑位置分别在开头、中间和末尾。
+ * insertDelete 在同一位置插入一个字符再删掉，文档大小在整个测量过程中保持不变，
+ * 结果是一次 insert 加一次 delete 的耗时（两者都要经过 getPositionFromLineColumn 的行列换算）。
+ * getOffset 是行列换算本身（Editor.getOffset），getLines 读取目标位置开始的 50 行。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx2g", "-Dflanvim.watchFiles=false"})
+@State(Scope.Thread)
+public class EditorBenchmark {
+    private static final int COLUMN = 5;
+
+    @Param({"1KB", "1MB", "64MB", "500MB"})
+    public String size;
+
+    @Param({"HEAD", "MIDDLE", "TAIL"})
+    public String position;
+
+    private Editor editor;
+    private int line;
+
+    @Setup(Level.Trial)
+    public void load() throws IOException {
+        long bytes = Documents.parseSize(size);
+        editor = new Editor(Documents.get(bytes).toString());
+        line = Documents.lineAt(position, Documents.lineCount(bytes));
+    }
+
+    @Benchmark
+    public void insertDelete() {
+        editor.insert(line, COLUMN, "x");
+        editor.delete(line, COLUMN, 1);
+    }
+
+    @Benchmark
+    public int getOffset() {
+        return editor.getOffset(line, COLUMN);
+    }
+
+    @Benchmark
+    public List<String> getLines() {
+        return editor.getLines(line, line + 49);
+    }
+}
@@ -0,0 +1,86 @@
+package org.flanVim.bench;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+import org.flanVim.command.editorspace.InsertCommand;
+import org.flanVim.editor.Editor;
+import org.flanVim.util.Quiet;
+import org.flanVim.workspace.WorkSpace;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * HistoryBenchmark: 撤销/重做
+ *
+ * 每个 Editor 的历史是 UndoTree（CommandHistory 只保存 WorkSpace 层的命令），
+ * 这里通过 WorkSpace.executeCommand 执行 depth 条插入命令建立历史（与 CLI 的路径相同，带修改日志和检查点），
+ * 插入位置均匀分布在整个文档中。
+ * undoRedo 撤销一步再重做；undoAllRedoAll 用 undo N 撤销全部历史再 goto-rev 回到最新修订，
+ * 两者结束时都回到测量开始时的状态。
+ * 命令的逐条提示在测量期间被屏蔽。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx2g", "-Dflanvim.watchFiles=false"})
+@State(Scope.Thread)
+public class HistoryBenchmark {
+    @Param({"1KB", "1MB", "64MB"})
+    public String size;
+
+    @Param({"10", "100", "1000"})
+    public int depth;
+
+    private PrintStream out;
+    private WorkSpace workSpace;
+    private int latest;  // 最新修订号
+
+    @Setup(Level.Trial)
+    public void build() throws IOException {
+        out = System.out;
+        System.setOut(Quiet.SILENT);
+
+        long bytes = Documents.parseSize(size);
+        int lines = Documents.lineCount(bytes);
+        String path = Documents.get(bytes).toString();
+        workSpace = new WorkSpace();
+        Editor editor = new Editor(path);
+        workSpace.addEditor(path, editor);
+        for (int i = 0; i < depth; i++) {
+            int line = 1 + (int) ((long) i * lines / depth);
+            workSpace.executeCommand(new InsertCommand(editor, line, 1, "edit " + i + " "));
+        }
+        latest = editor.getHistory().getCurrent().getId();
+    }
+
+    @TearDown(Level.Trial)
+    public void restoreOutput() {
+        System.setOut(out);
+    }
+
+    @Benchmark
+    public void undoRedo() {
+        workSpace.undo();
+        workSpace.redo();
+    }
+
+    @Benchmark
+    public boolean undoAllRedoAll() {
+        workSpace.undo(depth);
+        return workSpace.gotoRevision(latest);
+    }
+}
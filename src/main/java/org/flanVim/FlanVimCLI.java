@@ -1,8 +1,11 @@
 package org.flanVim;
 
+import org.flanVim.command.Macro;
 import org.flanVim.command.editorspace.*;
 import org.flanVim.command.workspace.*;
+import org.flanVim.editor.BatchEdit;
 import org.flanVim.editor.Editor;
+import org.flanVim.workspace.RecentFiles;
 import org.flanVim.workspace.WorkSpace;
 import org.flanVim.util.ArgumentParser;
 import picocli.CommandLine;
@@ -10,8 +13,13 @@ import picocli.CommandLine.Command;
 import picocli.CommandLine.Option;
 import picocli.CommandLine.Parameters;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.Scanner;
 import java.util.Arrays;
+import java.util.List;
+import java.util.regex.PatternSyntaxException;
 
 @Command(name = "FlanVimCLI", version = "FlanVimCLI 1.0", mixinStandardHelpOptions = true,
          subcommands = {
@@ -30,7 +38,26 @@ import java.util.Arrays;
              FlanVimCLI.SaveCmd.class,
              FlanVimCLI.EditCmd.class,
              FlanVimCLI.CloseCmd.class,
-             FlanVimCLI.ExitCmd.class
+             FlanVimCLI.ExitCmd.class,
+             FlanVimCLI.FindCmd.class,
+             FlanVimCLI.GrepCmd.class,
+             FlanVimCLI.ReindexCmd.class,
+             FlanVimCLI.SubstituteCmd.class,
+             FlanVimCLI.ReplaceAllCmd.class,
+             FlanVimCLI.RecentCmd.class,
+             FlanVimCLI.BatchEditCmd.class,
+             FlanVimCLI.BeginCmd.class,
+             FlanVimCLI.CommitCmd.class,
+             FlanVimCLI.RollbackCmd.class,
+             FlanVimCLI.RecordCmd.class,
+             FlanVimCLI.StopCmd.class,
+             FlanVimCLI.PlayCmd.class,
+             FlanVimCLI.HistoryCmd.class,
+             FlanVimCLI.GotoRevCmd.class,
+             FlanVimCLI.RevertCmd.class,
+             FlanVimCLI.DiffCmd.class,
+             FlanVimCLI.ReloadCmd.class,
+             FlanVimCLI.StatsCmd.class
          })
 public class FlanVimCLI implements Runnable {
 
@@ -65,6 +92,7 @@ public class FlanVimCLI implements Runnable {
                     return;
                 }
                 workSpace.setWorkSpacePath(workSpacePath);
+                workSpace.startDirTreeCache();
                 System.out.println("Initialized a new workspace: " + workSpacePath);
             } else {
                 System.out.println("Workspace is already initialized.");
@@ -77,18 +105,32 @@ public class FlanVimCLI implements Runnable {
         @Parameters(index = "0", description = "Directory path", arity = "0..1")
         private String directoryPath;
 
+        @Option(names = {"--depth", "-d"}, description = "Maximum depth to display")
+        private int depth = 0;
+
+        @Option(names = {"--exclude", "-e"}, description = "Glob pattern to exclude (repeatable)")
+        private String[] excludes;
+
+        @Option(names = {"--refresh", "-r"}, description = "Rescan the workspace instead of using the cached tree")
+        private boolean refresh;
+
         @Override
         public void run() {
+            boolean useCache = false;
             if (directoryPath == null) {
                 if (workSpace.getWorkSpacePath() == null) {
                     System.out.println("Error: Workspace is not initialized.");
                     return;
                 }
                 directoryPath = workSpace.getWorkSpacePath();
+                useCache = workSpace.getDirTreeCache() != null;
             }
             // Implement directory tree display logic here
             System.out.println("Displaying directory tree for workspace: " + workSpace.getWorkSpacePath());
-            DirTreeCommand cmd = new DirTreeCommand(directoryPath);
+            List<String> excludeList = excludes != null ? Arrays.asList(excludes) : null;
+            DirTreeCommand cmd = useCache
+                    ? new DirTreeCommand(workSpace.getDirTreeCache(), depth, excludeList, refresh)
+                    : new DirTreeCommand(directoryPath, depth, excludeList);
             workSpace.executeCommand(cmd);
         }
     }
@@ -228,6 +270,93 @@ public class FlanVimCLI implements Runnable {
         }
     }
 
+    @Command(name = "batch-edit", description = "Apply many insert/delete/replace edits to the active file in one pass")
+    static class BatchEditCmd implements Runnable {
+        @Option(names = {"--file", "-f"}, description = "File with one edit per line")
+        private String file;
+
+        @Parameters(description = "Edits, e.g. \"insert 3:5 text\" \"delete 4:1 2\" \"replace 7:2 3 text\"", arity = "0..*")
+        private List<String> edits;
+
+        @Override
+        public void run() {
+            if (!workSpace.hasActiveEditor()) {
+                System.out.println("Error: No active editor. Use 'init/load <file>' first.");
+                return;
+            }
+
+            BatchEdit batch = new BatchEdit();
+            try {
+                if (file != null) {
+                    String path = workSpace.getWorkSpacePath() != null ? workSpace.getAbsolutePath(file) : file;
+                    for (String line : Files.readAllLines(Paths.get(path))) {
+                        batch.parse(line);
+                    }
+                }
+                if (edits != null) {
+                    for (String edit : edits) {
+                        batch.parse(edit);
+                    }
+                }
+            } catch (IOException e) {
+                System.out.println("Error reading edits file: " + e.getMessage());
+                return;
+            } catch (IllegalArgumentException e) {
+                System.out.println("Invalid edit: " + e.getMessage());
+                return;
+            }
+
+            BatchEditCommand cmd = new BatchEditCommand(workSpace.getActiveEditor(), batch);
+            workSpace.executeCommand(cmd);
+        }
+    }
+
+    @Command(name = "substitute", description = "Regex search and replace in the active file")
+    static class SubstituteCmd implements Runnable {
+        @Parameters(index = "0", description = "/regex/replacement/[flags], flags: g (all per line), i (ignore case)")
+        private String expression;
+
+        @Parameters(index = "1", description = "[startLine:endLine]", arity = "0..1")
+        private String range;
+
+        @Override
+        public void run() {
+            if (!workSpace.hasActiveEditor()) {
+                System.out.println("Error: No active editor. Use 'init/load <file>' first.");
+                return;
+            }
+
+            String[] parts;
+            try {
+                parts = SubstituteCommand.parseExpression(expression);
+            } catch (IllegalArgumentException e) {
+                System.out.println("Invalid expression: " + e.getMessage());
+                return;
+            }
+
+            int startLine = 1;
+            int endLine = Integer.MAX_VALUE;
+            if (range != null) {
+                String[] lines = range.split(":");
+                if(lines.length != 2) {
+                    System.out.println("Invalid range format. Use [int:int].");
+                    return;
+                }
+                try{
+                    startLine = Integer.parseInt(lines[0]);
+                    endLine = Integer.parseInt(lines[1]);
+                } catch (NumberFormatException e) {
+                    System.out.println("Invalid range format. Use [int:int].");
+                    return;
+                }
+            }
+
+            SubstituteCommand cmd = new SubstituteCommand(workSpace.getActiveEditor(), parts[0], parts[1],
+                    parts[2].indexOf('g') >= 0, parts[2].indexOf('i') >= 0, startLine, endLine);
+            workSpace.executeCommand(cmd);
+        }
+    }
+
     // init <file> [with-log]命令
     @Command(name = "init", description = "Create a new buffer")
     static class InitCmd implements Runnable {
@@ -269,6 +398,9 @@ public class FlanVimCLI implements Runnable {
         @Parameters(index = "0..*", description = "File name(s)", arity = "0..*")
         private String[] fileNames;
 
+        @Option(names = {"--force", "-f"}, description = "Overwrite files that were changed on disk")
+        private boolean force;
+
         @Override
         public void run() {
             SaveCommand cmd;
@@ -287,6 +419,7 @@ public class FlanVimCLI implements Runnable {
                 }
                 cmd = new SaveCommand(workSpace);
             }
+            cmd.setForce(force);
             
             workSpace.executeCommand(cmd); 
         }
@@ -297,6 +430,12 @@ public class FlanVimCLI implements Runnable {
         @Parameters(index = "0", description = "[startLine:endLine]", arity = "0..1")
         private String range;
 
+        @Option(names = {"--page", "-p"}, description = "Page through the file N lines at a time")
+        private Integer pageSize;
+
+        @Option(names = {"--rev", "-r"}, description = "Show a revision from the undo history (see history)")
+        private Integer revision;
+
         @Override
         public void run() {
             if (!workSpace.hasActiveEditor()) {
@@ -305,8 +444,23 @@ public class FlanVimCLI implements Runnable {
             }
             Editor editor = workSpace.getActiveEditor();
             ShowCommand cmd;
-            if (range == null) {
-                cmd = new ShowCommand(editor);
+            if (pageSize != null) {
+                if (revision != null) {
+                    System.out.println("Error: --page cannot be combined with --rev.");
+                    return;
+                }
+                if (range != null) {
+                    System.out.println("Error: --page cannot be combined with a line range.");
+                    return;
+                }
+                if (pageSize <= 0) {
+                    System.out.println("Error: Page size must be > 0.");
+                    return;
+                }
+                cmd = new ShowCommand(editor, pageSize);
+            } else if (range == null) {
+                cmd = revision != null ? new ShowCommand(editor, revision, 1, Integer.MAX_VALUE)
+                                       : new ShowCommand(editor);
             } else {
                 // 解析范围
                 String[] parts = range.split(":");
@@ -317,7 +471,8 @@ public class FlanVimCLI implements Runnable {
                 try{
                     int startLine = Integer.parseInt(parts[0]);
                     int endLine = Integer.parseInt(parts[1]);
-                    cmd = new ShowCommand(editor, startLine, endLine);
+                    cmd = revision != null ? new ShowCommand(editor, revision, startLine, endLine)
+                                           : new ShowCommand(editor, startLine, endLine);
                 } catch (NumberFormatException e) {
                     System.out.println("Invalid range format. Use [int:int].");
                     return;
@@ -332,9 +487,19 @@ public class FlanVimCLI implements Runnable {
         @Option(names = {"--workspace", "-w"}, description = "Force undo workspace-level command instead of editor command")
         private boolean workspace = false;
 
+        @Option(names = {"--branch", "-b"}, description = "Go to the previous revision in time, across undo branches")
+        private boolean branch = false;
+
+        @Parameters(index = "0", description = "Number of commands to undo (default: 1)", arity = "0..1")
+        private Integer steps;
+
         @Override
         public void run() {
-            if (workspace) {
+            if (steps != null && !branch && !workspace) {
+                workSpace.undo(steps);
+            } else if (branch) {
+                workSpace.undoBranch();
+            } else if (workspace) {
                 // 强制撤销 WorkSpace 层的命令
                 workSpace.undoWorkspace();
             } else {
@@ -349,9 +514,14 @@ public class FlanVimCLI implements Runnable {
         @Option(names = {"--workspace", "-w"}, description = "Force redo workspace-level command instead of editor command")
         private boolean workspace = false;
 
+        @Option(names = {"--branch", "-b"}, description = "Go to the next revision in time, across undo branches")
+        private boolean branch = false;
+
         @Override
         public void run() {
-            if (workspace) {
+            if (branch) {
+                workSpace.redoBranch();
+            } else if (workspace) {
                 // 强制重做 WorkSpace 层的命令
                 workSpace.redoWorkspace();
             } else {
@@ -361,6 +531,117 @@ public class FlanVimCLI implements Runnable {
         }
     }
 
+    @Command(name = "history", description = "List the undo tree revisions of the active file")
+    static class HistoryCmd implements Runnable {
+        @Override
+        public void run() {
+            HistoryCommand cmd = new HistoryCommand(workSpace.getActiveEditor());
+            workSpace.executeCommand(cmd);
+        }
+    }
+
+    @Command(name = "goto-rev", description = "Move the active file to a revision of its undo tree")
+    static class GotoRevCmd implements Runnable {
+        @Parameters(index = "0", description = "Revision id (see history)")
+        private int revision;
+
+        @Override
+        public void run() {
+            workSpace.gotoRevision(revision);
+        }
+    }
+
+    @Command(name = "revert", description = "Restore the content of an earlier revision as a new edit")
+    static class RevertCmd implements Runnable {
+        @Option(names = "--to", required = true, description = "Revision id (see history)")
+        private int revision;
+
+        @Override
+        public void run() {
+            Editor editor = workSpace.getActiveEditor();
+            if (editor == null) {
+                System.out.println("Error: No active editor.");
+                return;
+            }
+            RevertCommand cmd = new RevertCommand(editor, revision);
+            workSpace.executeCommand(cmd);
+        }
+    }
+
+    /**
+     * 事务：begin 之后对当前文件的修改在 commit 时合并为一条历史记录，rollback 时全部撤销
+     */
+    @Command(name = "begin", description = "Begin a transaction on the active file")
+    static class BeginCmd implements Runnable {
+        @Override
+        public void run() {
+            workSpace.beginTransaction();
+        }
+    }
+
+    @Command(name = "commit", description = "Commit the open transaction as a single undo entry")
+    static class CommitCmd implements Runnable {
+        @Override
+        public void run() {
+            workSpace.commitTransaction();
+        }
+    }
+
+    @Command(name = "rollback", description = "Discard all changes made in the open transaction")
+    static class RollbackCmd implements Runnable {
+        @Override
+        public void run() {
+            workSpace.rollbackTransaction();
+        }
+    }
+
+    /**
+     * 宏：record 与 stop 之间成功执行的编辑命令被记下，play 时直接构造命令回放
+     */
+    @Command(name = "record", description = "Start recording a macro")
+    static class RecordCmd implements Runnable {
+        @Parameters(index = "0", description = "Macro name")
+        private String name;
+
+        @Override
+        public void run() {
+            workSpace.startRecording(name);
+        }
+    }
+
+    @Command(name = "stop", description = "Stop recording the current macro")
+    static class StopCmd implements Runnable {
+        @Override
+        public void run() {
+            workSpace.stopRecording();
+        }
+    }
+
+    @Command(name = "play", description = "Replay a recorded macro on the active file as one undo entry")
+    static class PlayCmd implements Runnable {
+        @Parameters(index = "0", description = "Macro name")
+        private String name;
+
+        @Parameters(index = "1", description = "Number of times to play (default: 1)", arity = "0..1")
+        private int count = 1;
+
+        @Override
+        public void run() {
+            Macro macro = workSpace.getMacro(name);
+            if (macro == null) {
+                System.out.println("Error: No macro named '" + name + "'");
+                return;
+            }
+            Editor editor = workSpace.getActiveEditor();
+            if (editor == null) {
+                System.out.println("Error: No active editor.");
+                return;
+            }
+            PlayMacroCommand cmd = new PlayMacroCommand(editor, macro, count);
+            workSpace.executeCommand(cmd);
+        }
+    }
+
     @Command(name = "edit", description = "Switch to another opened file")
     static class EditCmd implements Runnable {
         @Parameters(index = "0", description = "File name to switch to")
@@ -390,6 +671,41 @@ public class FlanVimCLI implements Runnable {
         }
     }
 
+    @Command(name = "diff", description = "Show changes between the buffer and the file on disk")
+    static class DiffCmd implements Runnable {
+        @Parameters(index = "0", description = "File name (optional)", arity = "0..1")
+        private String fileName;
+
+        @Override
+        public void run() {
+            workSpace.executeCommand(new DiffCommand(workSpace, fileName));
+        }
+    }
+
+    @Command(name = "reload", description = "Replace the active buffer with the file on disk (undoable)")
+    static class ReloadCmd implements Runnable {
+        @Override
+        public void run() {
+            Editor editor = workSpace.getActiveEditor();
+            if (editor == null) {
+                System.out.println("Error: No active editor.");
+                return;
+            }
+            workSpace.executeCommand(new ReloadCommand(editor));
+        }
+    }
+
+    @Command(name = "stats", description = "Show per-command latency statistics for this session")
+    static class StatsCmd implements Runnable {
+        @Option(names = "--reset", description = "Clear the collected statistics")
+        private boolean reset;
+
+        @Override
+        public void run() {
+            workSpace.executeCommand(new StatsCommand(workSpace, reset));
+        }
+    }
+
     @Command(name = "exit", description = "Exit FlanVimCLI")
     static class ExitCmd implements Runnable {
         @Override
@@ -399,10 +715,96 @@ public class FlanVimCLI implements Runnable {
         }
     }
 
+    @Command(name = "replace-all", description = "Regex replace across workspace files or all open editors, without saving")
+    static class ReplaceAllCmd implements Runnable {
+        @Parameters(index = "0", description = "/regex/replacement/[flags], flags: g (all per line), i (ignore case)")
+        private String expression;
+
+        @Parameters(index = "1", description = "Only files matching this glob (e.g. *.java)", arity = "0..1")
+        private String glob;
+
+        @Option(names = {"--open", "-o"}, description = "Only replace in open editors")
+        private boolean openOnly;
+
+        @Override
+        public void run() {
+            String[] parts;
+            try {
+                parts = SubstituteCommand.parseExpression(expression);
+            } catch (IllegalArgumentException e) {
+                System.out.println("Invalid expression: " + e.getMessage());
+                return;
+            }
+
+            ReplaceAllCommand cmd;
+            try {
+                cmd = new ReplaceAllCommand(workSpace, parts[0], parts[1],
+                        parts[2].indexOf('g') >= 0, parts[2].indexOf('i') >= 0, glob, openOnly);
+            } catch (PatternSyntaxException e) {
+                System.out.println("Invalid regex: " + e.getDescription());
+                return;
+            } catch (IllegalArgumentException e) {
+                System.out.println("Invalid replacement: " + e.getMessage());
+                return;
+            }
+            workSpace.executeCommand(cmd);
+        }
+    }
+
+    @Command(name = "recent", description = "List recently opened files (kept across sessions)")
+    static class RecentCmd implements Runnable {
+        @Override
+        public void run() {
+            RecentCommand cmd = new RecentCommand(workSpace);
+            workSpace.executeCommand(cmd);
+        }
+    }
+
+    @Command(name = "find", description = "Search all open editors for a string")
+    static class FindCmd implements Runnable {
+        @Parameters(index = "0", description = "Text to search for (use quotes for text with spaces)")
+        private String pattern;
+
+        @Override
+        public void run() {
+            FindCommand cmd = new FindCommand(workSpace, pattern);
+            workSpace.executeCommand(cmd);
+        }
+    }
+
+    @Command(name = "grep", description = "Search files in the workspace with a regular expression")
+    static class GrepCmd implements Runnable {
+        @Parameters(index = "0", description = "Regular expression")
+        private String regex;
+
+        @Parameters(index = "1", description = "Glob to select files, e.g. \"*.java\"", arity = "0..1")
+        private String glob;
+
+        @Override
+        public void run() {
+            GrepCommand cmd = new GrepCommand(workSpace, regex, glob);
+            workSpace.executeCommand(cmd);
+        }
+    }
+
+    @Command(name = "reindex", description = "Rebuild the workspace search index from scratch")
+    static class ReindexCmd implements Runnable {
+        @Override
+        public void run() {
+            ReindexCommand cmd = new ReindexCommand(workSpace);
+            workSpace.executeCommand(cmd);
+        }
+    }
+
     public static void main(String[] args) {
         CommandLine commandLine = new CommandLine(new FlanVimCLI());
         Scanner scanner = new Scanner(System.in);
 
+        // 最近文件列表跨会话保存，退出时写回尚未保存的变化
+        RecentFiles recentFiles = new RecentFiles(RecentFiles.defaultFile());
+        workSpace.setRecentFiles(recentFiles);
+        Runtime.getRuntime().addShutdownHook(new Thread(recentFiles::flush, "recent-files-flush"));
+
         System.out.println("Welcome to FlanVimCLI! Type 'exit' to quit.");
         while (true) {
             System.out.print("> ");
@@ -2,6 +2,8 @@ package org.flanVim.command;
 
 import java.util.Stack;
 
+import org.flanVim.util.FlightEvents;
+
 public class CommandHistory {
     private Stack<Command> undoHistory = new Stack<>();
     private Stack<Command> redoHistory = new Stack<>();
@@ -26,7 +28,16 @@ public class CommandHistory {
         }
         Command command = undoHistory.pop();
         if (command instanceof Undoable) {
-            ((Undoable) command).undo();
+            FlightEvents.UndoEvent event = new FlightEvents.UndoEvent();
+            event.begin();
+            try {
+                ((Undoable) command).undo();
+            } catch (IllegalStateException e) {
+                undoHistory.push(command);  // 命令拒绝撤销，留在原位置
+                System.out.println("Cannot undo: " + e.getMessage());
+                return;
+            }
+            commit(event, command, false);
             redoHistory.push(command);
             System.out.println("Undo last command");
         } else {
@@ -41,11 +52,30 @@ public class CommandHistory {
         }
         Command command = redoHistory.pop();
         if (command instanceof Undoable) {
-            ((Undoable) command).redo();
+            FlightEvents.UndoEvent event = new FlightEvents.UndoEvent();
+            event.begin();
+            try {
+                ((Undoable) command).redo();
+            } catch (IllegalStateException e) {
+                redoHistory.push(command);  // 命令拒绝重做，留在原位置
+                System.out.println("Cannot redo: " + e.getMessage());
+                return;
+            }
+            commit(event, command, true);
             undoHistory.push(command);
         }
     }
 
+    private static void commit(FlightEvents.UndoEvent event, Command command, boolean redo) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.commandType = FlightEvents.commandType(command);
+            event.redo = redo;
+            event.revision = -1;
+            event.commit();
+        }
+    }
+
 
     /**
      * 清空所有历史记录（释放内存）
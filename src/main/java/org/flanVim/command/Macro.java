@@ -0,0 +1,38 @@
+package org.flanVim.command;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Macro: record 和 stop 之间成功执行的 Editor 层命令
+ * 每一步保存的是参数已经解析好、尚未执行的命令副本，回放时再用 copyFor 绑定到目标编辑器
+ */
+public class Macro {
+    private final String name;
+    private final List<Repeatable> steps = new ArrayList<>();
+
+    public Macro(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void add(Repeatable step) {
+        steps.add(step);
+    }
+
+    public List<Repeatable> getSteps() {
+        return Collections.unmodifiableList(steps);
+    }
+
+    public int size() {
+        return steps.size();
+    }
+
+    public boolean isEmpty() {
+        return steps.isEmpty();
+    }
+}
@@ -0,0 +1,18 @@
+package org.flanVim.command;
+
+import org.flanVim.editor.Editor;
+
+/**
+ * Repeatable - 可以被宏录制和回放的 Editor 层命令
+ *
+ * 录制时保存的是已经解析好参数的命令对象本身，
+ * 回放时用 copyFor 以相同参数直接构造新命令，不再经过 ArgumentParser 和 picocli。
+ */
+public interface Repeatable extends EditorCommand {
+    /**
+     * 用相同的参数构造一个作用于指定 Editor 的新命令
+     * @param editor 回放时的目标编辑器
+     * @return 尚未执行的新命令
+     */
+    Repeatable copyFor(Editor editor);
+}
@@ -0,0 +1,559 @@
+package org.flanVim.command;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.flanVim.editor.CompressedText;
+import org.flanVim.editor.EditJournal;
+import org.flanVim.util.FlightEvents;
+import org.flanVim.util.Quiet;
+
+/**
+ * UndoTree: Editor 的分支撤销历史
+ *
+ * 与 CommandHistory 不同，撤销之后再执行新命令不会丢弃原来的重做分支，而是从当前状态长出一个新分支。
+ * 每个节点（修订）只保存把父状态变成自己的那条命令，也就是一份增量；
+ * 分支之间共享从根到分叉点的全部节点，内存只随编辑量增长，与文档大小和分支数量无关。
+ *
+ * 修订号按创建顺序递增，根节点（0）表示最早保留的状态：
+ * - undo/redo 沿当前分支上下移动，redo 走最近一次经过的子节点
+ * - undoBranch/redoBranch 按修订号（时间顺序）前后移动，可以跨分支
+ * - goTo 先撤销到与目标的公共祖先，再沿目标分支重做
+ *
+ * 深度每隔 CHECKPOINT_INTERVAL 的修订保存一份压缩的内容快照（检查点）。
+ * 多步跳转（undo N、goto-rev、revert --to）时，如果从附近的检查点恢复再补做少量增量
+ * 比逐条撤销/重做更近，就先恢复检查点，跳转代价不再随步数线性增长。
+ * 恢复检查点要解压并重建整个文档，代价按快照大小计算，大文档只有在能省下足够多的增量时才会恢复。
+ * Checkpoints.capture 可以返回 null 跳过某个检查点（例如缓冲区太大，同步压缩的代价太高）。
+ */
+public class UndoTree {
+    private static final int MAX_REVISIONS = 1000;  // 最多保留的修订数（不含根节点）
+    private static final int CHECKPOINT_INTERVAL = 32;  // 检查点之间的深度间隔
+    private static final int BYTES_PER_STEP = 64 * 1024;  // 跳转代价的单位：处理这么多字节约等于重放一条小命令
+
+    private final TreeMap<Integer, Revision> revisions = new TreeMap<>();
+    private final Checkpoints checkpoints;  // 为 null 时不保存检查点
+    private Revision root;
+    private Revision current;
+    private int nextId = 0;
+    private int checkpointCount = 0;
+    private long checkpointBytes = 0;
+
+    /**
+     * 由历史所属的 Editor 提供：保存和恢复内容快照
+     */
+    public interface Checkpoints {
+        /**
+         * @return 当前内容的快照，返回 null 表示不保存这个检查点
+         */
+        CompressedText capture();
+
+        void restore(CompressedText snapshot);
+    }
+
+    /**
+     * 撤销树上的一个状态
+     */
+    public static class Revision {
+        private final int id;
+        private Command command;  // 从父状态到本状态的命令，根节点为 null
+        private Revision parent;
+        private final List<Revision> children = new ArrayList<>(1);
+        private Revision redoChild;  // redo 时进入的子节点（最近一次经过或创建的）
+        private int depth;
+        private CompressedText checkpoint;  // 本状态的内容快照，只有部分修订有
+        private EditJournal delta;  // 命令对内容做的修改，用于在不改动 Editor 的情况下重建历史内容
+
+        private Revision(int id, Command command, EditJournal delta, Revision parent) {
+            this.id = id;
+            this.command = command;
+            this.delta = delta;
+            this.parent = parent;
+            this.depth = parent == null ? 0 : parent.depth + 1;
+        }
+
+        public int getId() {
+            return id;
+        }
+
+        public Command getCommand() {
+            return command;
+        }
+
+        public Revision getParent() {
+            return parent;
+        }
+
+        public List<Revision> getChildren() {
+            return Collections.unmodifiableList(children);
+        }
+
+        public boolean hasCheckpoint() {
+            return checkpoint != null;
+        }
+    }
+
+    public UndoTree() {
+        this(null);
+    }
+
+    public UndoTree(Checkpoints checkpoints) {
+        this.checkpoints = checkpoints;
+        reset();
+    }
+
+    public void addCommand(Command command) {
+        addCommand(command, null);
+    }
+
+    /**
+     * @param delta 命令执行时记录的修改日志，为 null 时该修订之后的内容不能用 replayPath 重建
+     */
+    public void addCommand(Command command, EditJournal delta) {
+        Revision revision = new Revision(++nextId, command, delta, current);
+        current.children.add(revision);
+        current.redoChild = revision;
+        current = revision;
+        revisions.put(revision.id, revision);
+        if (checkpoints != null && revision.depth % CHECKPOINT_INTERVAL == 0) {
+            setCheckpoint(revision, checkpoints.capture());
+        }
+        prune();
+    }
+
+    private void setCheckpoint(Revision revision, CompressedText snapshot) {
+        if (revision.checkpoint != null) {
+            checkpointCount--;
+            checkpointBytes -= revision.checkpoint.getCompressedBytes();
+        }
+        revision.checkpoint = snapshot;
+        if (snapshot != null) {
+            checkpointCount++;
+            checkpointBytes += snapshot.getCompressedBytes();
+        }
+    }
+
+    public void undo() {
+        if (current == root) {
+            System.out.println("Nothing to undo.");
+            return;
+        }
+        String refused = stepUp();
+        System.out.println(refused != null ? refused : "Undo last command");
+    }
+
+    public void redo() {
+        if (current.redoChild == null) {
+            System.out.println("Nothing to redo.");
+            return;
+        }
+        String refused = stepDown(current.redoChild);
+        if (refused != null) {
+            System.out.println(refused);
+        }
+    }
+
+    /**
+     * 沿当前分支连续撤销多步
+     * @param steps 步数，超过可撤销的步数时撤销到最早保留的状态
+     */
+    public void undo(int steps) {
+        if (current == root) {
+            System.out.println("Nothing to undo.");
+            return;
+        }
+        Revision target = current;
+        int undone = 0;
+        while (undone < steps && target != root) {
+            target = target.parent;
+            undone++;
+        }
+        if (jumpTo(target)) {
+            System.out.println("Undid " + undone + " command(s), at revision " + current.id);
+        }
+    }
+
+    /**
+     * 回到时间上的前一个状态（修订号小 1 的仍保留的修订），可以跨分支
+     */
+    public void undoBranch() {
+        Map.Entry<Integer, Revision> previous = revisions.lowerEntry(current.id);
+        if (previous == null) {
+            System.out.println("Nothing to undo.");
+            return;
+        }
+        if (jumpTo(previous.getValue())) {
+            System.out.println("At revision " + current.id);
+        }
+    }
+
+    /**
+     * 前进到时间上的后一个状态，可以跨分支
+     */
+    public void redoBranch() {
+        Map.Entry<Integer, Revision> next = revisions.higherEntry(current.id);
+        if (next == null) {
+            System.out.println("Nothing to redo.");
+            return;
+        }
+        if (jumpTo(next.getValue())) {
+            System.out.println("At revision " + current.id);
+        }
+    }
+
+    /**
+     * 跳转到指定修订
+     * @return 修订不存在或途中有命令拒绝撤销/重做时返回 false
+     */
+    public boolean goTo(int id) {
+        Revision target = revisions.get(id);
+        if (target == null) {
+            System.out.println("No revision " + id + " (available: " + revisions.firstKey() + "-" + revisions.lastKey() + ")");
+            return false;
+        }
+        if (!jumpTo(target)) {
+            return false;
+        }
+        System.out.println("At revision " + current.id);
+        return true;
+    }
+
+    /**
+     * @return 指定修订，不存在（从未创建或已被丢弃）时为 null
+     */
+    public Revision getRevision(int id) {
+        return revisions.get(id);
+    }
+
+    /**
+     * 多步跳转：比较逐条撤销/重做和从附近检查点恢复的代价，选择较近的路线
+     * 途中各命令的逐条输出被屏蔽
+     * 途中有命令拒绝撤销/重做时（见 Undoable）停下并退回出发时的修订，输出拒绝的原因
+     * @return 是否到达目标修订
+     */
+    public boolean jumpTo(Revision target) {
+        Revision origin = current;
+        String[] refused = new String[1];
+        Quiet.run(() -> {
+            Revision start = nearestCheckpoint(target);
+            if (start != null) {
+                checkpoints.restore(start.checkpoint);
+                current = start;
+            }
+            refused[0] = moveTo(target);
+            if (refused[0] != null) {
+                moveTo(origin);  // 退回失败时停在最后一个成功的修订，内容仍与 current 一致
+            }
+        });
+        if (refused[0] != null) {
+            System.out.println(refused[0]);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 找到比从当前状态直接移动更近的检查点
+     * 候选包括当前状态到公共祖先、公共祖先到目标两段路径上的修订，以及公共祖先之上的祖先
+     * 撤销/重做一个修订按它的修改量计算（至少一步），恢复检查点按快照的大小计算
+     * @return 最近的检查点修订，没有更近的时返回 null
+     */
+    private Revision nearestCheckpoint(Revision target) {
+        if (checkpoints == null || checkpointCount == 0) {
+            return null;
+        }
+        Revision lca = commonAncestor(current, target);
+        long down = pathCost(target, lca);
+        long up = pathCost(current, lca);
+        long bestCost = up + down;
+        Revision best = null;
+        for (Revision r = current; r != lca; r = r.parent) {
+            // 当前状态到公共祖先之间：恢复后先撤销到公共祖先再下行，up 是从 r 撤销到公共祖先的代价
+            if (r.checkpoint != null && restoreCost(r) + up + down < bestCost) {
+                best = r;
+                bestCost = restoreCost(r) + up + down;
+            }
+            up -= stepCost(r);
+        }
+        long below = 0;  // 从 r 重做到目标的代价
+        for (Revision r = target; r != lca; r = r.parent) {
+            if (r.checkpoint != null && restoreCost(r) + below < bestCost) {
+                best = r;
+                bestCost = restoreCost(r) + below;
+            }
+            below += stepCost(r);
+        }
+        long above = 0;  // 从 r 重做到公共祖先的代价
+        for (Revision r = lca; r != null && above + down < bestCost; r = r.parent) {
+            if (r.checkpoint != null && restoreCost(r) + above + down < bestCost) {
+                best = r;
+                bestCost = restoreCost(r) + above + down;
+            }
+            above += stepCost(r);
+        }
+        return best;
+    }
+
+    /**
+     * @return 从 ancestor 沿路径到 descendant 逐条撤销/重做的代价
+     */
+    private static long pathCost(Revision descendant, Revision ancestor) {
+        long cost = 0;
+        for (Revision r = descendant; r != ancestor; r = r.parent) {
+            cost += stepCost(r);
+        }
+        return cost;
+    }
+
+    /**
+     * 撤销或重做一个修订的代价：至少一步，修改量大的命令（整个文件的替换等）按修改的字符数加算
+     */
+    private static long stepCost(Revision revision) {
+        return 1 + (revision.delta != null ? revision.delta.getStoredChars() / BYTES_PER_STEP : 0);
+    }
+
+    /**
+     * 恢复检查点的代价：解压并重建整个文档，按快照解压后的大小计算
+     */
+    private static long restoreCost(Revision revision) {
+        return 1 + revision.checkpoint.getUtf8Length() / BYTES_PER_STEP;
+    }
+
+    /**
+     * 把从当前状态到目标修订的修改按顺序交给 target，不执行命令也不移动当前位置
+     * 先反向应用当前状态到公共祖先之间的修改，再正向应用公共祖先到目标之间的修改
+     * @return 路径上有修订没有修改日志时返回 false，此时不会调用 target
+     */
+    public boolean replayPath(Revision target, EditJournal.Target sink) {
+        Revision lca = commonAncestor(current, target);
+        List<Revision> down = new ArrayList<>();
+        for (Revision r = target; r != lca; r = r.parent) {
+            if (r.delta == null) {
+                return false;
+            }
+            down.add(r);
+        }
+        for (Revision r = current; r != lca; r = r.parent) {
+            if (r.delta == null) {
+                return false;
+            }
+        }
+        for (Revision r = current; r != lca; r = r.parent) {
+            r.delta.revert(sink);
+        }
+        for (int i = down.size() - 1; i >= 0; i--) {
+            down.get(i).delta.replay(sink);
+        }
+        return true;
+    }
+
+    private static Revision commonAncestor(Revision a, Revision b) {
+        while (a.depth > b.depth) {
+            a = a.parent;
+        }
+        while (b.depth > a.depth) {
+            b = b.parent;
+        }
+        while (a != b) {
+            a = a.parent;
+            b = b.parent;
+        }
+        return a;
+    }
+
+    /**
+     * 经由公共祖先移动到目标状态，有命令拒绝时停在拒绝之前的修订
+     * @return 拒绝的原因，到达目标时为 null
+     */
+    private String moveTo(Revision target) {
+        Revision up = current;
+        Revision down = target;
+        List<Revision> path = new ArrayList<>();
+        while (up.depth > down.depth) {
+            up = up.parent;
+        }
+        while (down.depth > up.depth) {
+            path.add(down);
+            down = down.parent;
+        }
+        while (up != down) {
+            up = up.parent;
+            path.add(down);
+            down = down.parent;
+        }
+        while (current != up) {
+            String refused = stepUp();
+            if (refused != null) {
+                return refused;
+            }
+        }
+        for (int i = path.size() - 1; i >= 0; i--) {
+            String refused = stepDown(path.get(i));
+            if (refused != null) {
+                return refused;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 撤销当前修订的命令并移到父修订；命令拒绝撤销时 current 不变
+     * @return 拒绝的原因，成功时为 null
+     */
+    private String stepUp() {
+        FlightEvents.UndoEvent event = new FlightEvents.UndoEvent();
+        event.begin();
+        if (current.command instanceof Undoable) {
+            try {
+                ((Undoable) current.command).undo();
+            } catch (IllegalStateException e) {
+                return "Cannot undo: " + e.getMessage();
+            }
+        }
+        commit(event, current, false);
+        current.parent.redoChild = current;
+        current = current.parent;
+        return null;
+    }
+
+    /**
+     * 重做子修订的命令并移过去；命令拒绝重做时 current 不变
+     * @return 拒绝的原因，成功时为 null
+     */
+    private String stepDown(Revision child) {
+        FlightEvents.UndoEvent event = new FlightEvents.UndoEvent();
+        event.begin();
+        if (child.command instanceof Undoable) {
+            try {
+                ((Undoable) child.command).redo();
+            } catch (IllegalStateException e) {
+                return "Cannot redo: " + e.getMessage();
+            }
+        }
+        commit(event, child, true);
+        current.redoChild = child;
+        current = child;
+        return null;
+    }
+
+    private static void commit(FlightEvents.UndoEvent event, Revision revision, boolean redo) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.commandType = FlightEvents.commandType(revision.command);
+            event.redo = redo;
+            event.revision = revision.id;
+            event.commit();
+        }
+    }
+
+    /**
+     * 超出上限时丢弃最早的修订：
+     * 根节点只有一个子节点且当前不在根上时，子节点成为新的根；否则删除最早的叶子分支
+     */
+    private void prune() {
+        while (revisions.size() - 1 > MAX_REVISIONS) {
+            if (root.children.size() == 1 && current != root) {
+                Revision next = root.children.get(0);
+                setCheckpoint(root, null);
+                revisions.remove(root.id);
+                next.parent = null;
+                next.command = null;  // 新的根不再需要通往它的增量
+                next.delta = null;
+                root = next;
+                continue;
+            }
+            Revision leaf = null;
+            for (Revision revision : revisions.values()) {
+                if (revision.children.isEmpty() && revision != current && revision != root) {
+                    leaf = revision;
+                    break;
+                }
+            }
+            if (leaf == null) {
+                return;
+            }
+            Revision parent = leaf.parent;
+            parent.children.remove(leaf);
+            if (parent.redoChild == leaf) {
+                parent.redoChild = parent.children.isEmpty() ? null : parent.children.get(parent.children.size() - 1);
+            }
+            setCheckpoint(leaf, null);
+            revisions.remove(leaf.id);
+        }
+    }
+
+    /**
+     * 清空所有历史记录（释放内存）
+     */
+    public void clearAll() {
+        reset();
+    }
+
+    private void reset() {
+        revisions.clear();
+        checkpointCount = 0;
+        checkpointBytes = 0;
+        nextId = 0;
+        root = new Revision(0, null, null, null);
+        current = root;
+        revisions.put(0, root);
+    }
+
+    /**
+     * @return 从当前状态能连续撤销的步数
+     */
+    public int getUndoSize() {
+        return current.depth - root.depth;
+    }
+
+    /**
+     * @return 沿 redo 路径能连续重做的步数
+     */
+    public int getRedoSize() {
+        int size = 0;
+        for (Revision r = current.redoChild; r != null; r = r.redoChild) {
+            size++;
+        }
+        return size;
+    }
+
+    /**
+     * 丢弃全部检查点（内存不足时调用），不影响撤销/重做本身
+     * @return 释放的字节数
+     */
+    public long dropCheckpoints() {
+        long freed = checkpointBytes;
+        if (checkpointCount > 0) {
+            for (Revision revision : revisions.values()) {
+                setCheckpoint(revision, null);
+            }
+        }
+        return freed;
+    }
+
+    public int getCheckpointCount() {
+        return checkpointCount;
+    }
+
+    /**
+     * @return 全部检查点压缩后占用的字节数
+     */
+    public long getCheckpointBytes() {
+        return checkpointBytes;
+    }
+
+    public Revision getCurrent() {
+        return current;
+    }
+
+    /**
+     * @return 按修订号排序的全部修订（包含根节点）
+     */
+    public Collection<Revision> getRevisions() {
+        return Collections.unmodifiableCollection(revisions.values());
+    }
+}
@@ -1,6 +1,13 @@
 package org.flanVim.command;
 
 public interface Undoable {
+    /**
+     * @throws IllegalStateException 如果当前内容已无法撤销（命令不做修改，保持在历史中的原位置）
+     */
     public void undo();
+
+    /**
+     * @throws IllegalStateException 如果当前内容已无法重做（命令不做修改，保持在历史中的原位置）
+     */
     public void redo();
 }
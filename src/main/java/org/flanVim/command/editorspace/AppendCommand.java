@@ -1,13 +1,13 @@
 package org.flanVim.command.editorspace;
 
-import org.flanVim.command.EditorCommand;
+import org.flanVim.command.Repeatable;
 import org.flanVim.command.Undoable;
 import org.flanVim.editor.Editor;
 
 /**
  * AppendCommand - 在文件末尾追加一行文本
  */
-public class AppendCommand implements Undoable, EditorCommand {
+public class AppendCommand implements Undoable, Repeatable {
     private final Editor editor;
     private final String textToAppend;
     private int appendLength;  // 记录追加的字符数（用于 undo）
@@ -27,6 +27,11 @@ public class AppendCommand implements Undoable, EditorCommand {
         return editor;
     }
 
+    @Override
+    public Repeatable copyFor(Editor editor) {
+        return new AppendCommand(editor, textToAppend);
+    }
+
     @Override
     public boolean execute() {
         try {
@@ -0,0 +1,84 @@
+package org.flanVim.command.editorspace;
+
+import org.flanVim.command.Repeatable;
+import org.flanVim.command.Undoable;
+import org.flanVim.editor.BatchEdit;
+import org.flanVim.editor.Editor;
+import org.flanVim.editor.TextPatch;
+
+/**
+ * BatchEditCommand - 批量编辑
+ * batch-edit [-f editsFile] [edit...]
+ *
+ * 每个编辑的语法与 insert/delete/replace 命令相同，位置都指向编辑之前的原始内容。
+ * 全部编辑排序后一遍写入缓冲区，作为一条历史记录撤销/重做；有任何一个编辑无效时整批不应用。
+ */
+public class BatchEditCommand implements Undoable, Repeatable {
+    private final Editor editor;
+    private final BatchEdit edits;
+    private TextPatch patch;  // 本批编辑生成的修改（用于 undo/redo）
+
+    public BatchEditCommand(Editor editor, BatchEdit edits) {
+        this.editor = editor;
+        this.edits = edits;
+    }
+
+    @Override
+    public Editor getEditor() {
+        return editor;
+    }
+
+    @Override
+    public Repeatable copyFor(Editor editor) {
+        return new BatchEditCommand(editor, edits);
+    }
+
+    @Override
+    public boolean execute() {
+        if (edits.isEmpty()) {
+            System.out.println("Batch edit skipped: No edits given");
+            return false;
+        }
+        try {
+            TextPatch result = edits.toPatch(editor);
+            if (result.isEmpty()) {
+                System.out.println("Batch edit skipped: Nothing to change");
+                return false;
+            }
+            result.apply(editor);
+            patch = result;
+            System.out.println("Applied " + result.size() + " edit(s) in one pass");
+            return true;
+        } catch (IllegalArgumentException e) {
+            System.err.println("Batch edit failed: " + e.getMessage());
+            return false;
+        } catch (Exception e) {
+            System.err.println("Batch edit failed: Unexpected error - " + e.getMessage());
+            return false;
+        }
+    }
+
+    @Override
+    public void undo() {
+        if (patch != null) {
+            try {
+                patch.revert(editor);
+                System.out.println("Undo batch edit: Reverted " + patch.size() + " edit(s)");
+            } catch (IllegalArgumentException e) {
+                System.err.println("Undo batch edit failed: " + e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public void redo() {
+        if (patch != null) {
+            try {
+                patch.apply(editor);
+                System.out.println("Redo batch edit: Applied " + patch.size() + " edit(s)");
+            } catch (IllegalArgumentException e) {
+                System.err.println("Redo batch edit failed: " + e.getMessage());
+            }
+        }
+    }
+}
@@ -1,6 +1,6 @@
 package org.flanVim.command.editorspace;
 
-import org.flanVim.command.EditorCommand;
+import org.flanVim.command.Repeatable;
 import org.flanVim.command.Undoable;
 import org.flanVim.editor.Editor;
 
@@ -8,7 +8,7 @@ import org.flanVim.editor.Editor;
  * DeleteCommand - 删除指定位置的文本
  * 与 InsertCommand 互为逆操作
  */
-public class DeleteCommand implements Undoable, EditorCommand {
+public class DeleteCommand implements Undoable, Repeatable {
     private final Editor editor;
     private final int line;
     private final int column;
@@ -27,6 +27,11 @@ public class DeleteCommand implements Undoable, EditorCommand {
         return editor;
     }
 
+    @Override
+    public Repeatable copyFor(Editor editor) {
+        return new DeleteCommand(editor, line, column, length);
+    }
+
     @Override
     public boolean execute() {
         try {
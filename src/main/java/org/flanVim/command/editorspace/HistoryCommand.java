@@ -0,0 +1,53 @@
+package org.flanVim.command.editorspace;
+
+import org.flanVim.command.Command;
+import org.flanVim.command.UndoTree;
+import org.flanVim.editor.Editor;
+
+/**
+ * HistoryCommand - 列出当前文件撤销树上的全部修订
+ * history
+ *
+ * 每行一个修订：修订号、父修订号和产生它的命令，* 标记当前所在的修订，
+ * 有多个子节点的修订标记为分叉点。配合 goto-rev 使用。
+ */
+public class HistoryCommand implements Command {
+    private final Editor editor;
+
+    public HistoryCommand(Editor editor) {
+        this.editor = editor;
+    }
+
+    @Override
+    public boolean execute() {
+        if (editor == null) {
+            System.out.println("Error: No active editor.");
+            return false;
+        }
+        UndoTree history = editor.getHistory();
+        UndoTree.Revision current = history.getCurrent();
+        StringBuilder out = new StringBuilder();
+        out.append("Revisions of ").append(editor.getFilePath())
+           .append(" (current: ").append(current.getId()).append("):\n");
+        for (UndoTree.Revision revision : history.getRevisions()) {
+            out.append(revision == current ? "* " : "  ").append(revision.getId());
+            if (revision.getParent() == null) {
+                out.append("  (oldest kept state)");
+            } else {
+                out.append("  <- ").append(revision.getParent().getId())
+                   .append("  ").append(describe(revision.getCommand()));
+            }
+            if (revision.getChildren().size() > 1) {
+                out.append("  [").append(revision.getChildren().size()).append(" branches]");
+            }
+            out.append('\n');
+        }
+        System.out.print(out);
+        return true;
+    }
+
+    private static String describe(Command command) {
+        String name = command.getClass().getSimpleName();
+        return name.endsWith("Command") ? name.substring(0, name.length() - "Command".length()) : name;
+    }
+}
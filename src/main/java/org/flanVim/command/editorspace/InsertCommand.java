@@ -1,6 +1,6 @@
 package org.flanVim.command.editorspace;
 
-import org.flanVim.command.EditorCommand;
+import org.flanVim.command.Repeatable;
 import org.flanVim.command.Undoable;
 import org.flanVim.editor.Editor;
 
@@ -8,7 +8,7 @@ import org.flanVim.editor.Editor;
  * InsertCommand - 在指定位置插入文本
  * 与 DeleteCommand 互为逆操作
  */
-public class InsertCommand implements Undoable, EditorCommand {
+public class InsertCommand implements Undoable, Repeatable {
     private final Editor editor;
     private final int line;
     private final int column;
@@ -33,6 +33,11 @@ public class InsertCommand implements Undoable, EditorCommand {
         return editor;
     }
 
+    @Override
+    public Repeatable copyFor(Editor editor) {
+        return new InsertCommand(editor, line, column, textToInsert);
+    }
+
     @Override
     public boolean execute() {
         try {
@@ -0,0 +1,115 @@
+package org.flanVim.command.editorspace;
+
+import java.io.PrintStream;
+import java.util.List;
+
+import org.flanVim.command.Macro;
+import org.flanVim.command.Repeatable;
+import org.flanVim.command.Undoable;
+import org.flanVim.editor.EditJournal;
+import org.flanVim.editor.Editor;
+import org.flanVim.util.Quiet;
+
+/**
+ * PlayMacroCommand - 回放宏
+ * play <name> [count]
+ *
+ * 每一步用 copyFor 直接构造命令并执行，不经过命令行解析；回放期间各步骤的逐条输出被屏蔽。
+ * 所有修改记入编辑器的修改日志，整次回放作为一条历史记录撤销/重做；
+ * 任何一步失败时撤销已经做出的修改，整次回放不生效。
+ */
+public class PlayMacroCommand implements Undoable, Repeatable {
+    private final Editor editor;
+    private final Macro macro;
+    private final int count;
+    private EditJournal journal;  // 本次回放的全部修改（用于 undo/redo）
+
+    public PlayMacroCommand(Editor editor, Macro macro, int count) {
+        this.editor = editor;
+        this.macro = macro;
+        this.count = count;
+    }
+
+    @Override
+    public Editor getEditor() {
+        return editor;
+    }
+
+    @Override
+    public Repeatable copyFor(Editor editor) {
+        return new PlayMacroCommand(editor, macro, count);
+    }
+
+    @Override
+    public boolean execute() {
+        if (count < 1) {
+            System.err.println("Play failed: Count must be positive, got " + count);
+            return false;
+        }
+        if (macro.isEmpty()) {
+            System.out.println("Play skipped: Macro '" + macro.getName() + "' is empty");
+            return false;
+        }
+
+        List<Repeatable> steps = macro.getSteps();
+        PrintStream out = System.out;
+        editor.startJournal();
+        int iteration = 0;
+        int step = 0;
+        boolean ok = true;
+        try {
+            System.setOut(Quiet.SILENT);
+            play:
+            for (iteration = 1; iteration <= count; iteration++) {
+                for (step = 0; step < steps.size(); step++) {
+                    if (!steps.get(step).copyFor(editor).execute()) {
+                        ok = false;
+                        break play;
+                    }
+                }
+            }
+        } catch (RuntimeException e) {
+            ok = false;
+            System.err.println("Play failed: Unexpected error - " + e.getMessage());
+        } finally {
+            System.setOut(out);
+            if (!ok) {
+                editor.rollbackJournal();
+            }
+        }
+        if (!ok) {
+            System.err.println("Play failed: Macro '" + macro.getName() + "' stopped at iteration " + iteration
+                               + ", step " + (step + 1) + "; no changes applied");
+            return false;
+        }
+
+        journal = editor.stopJournal();
+        System.out.println("Played macro '" + macro.getName() + "' " + count + " time(s): "
+                           + (long) count * steps.size() + " command(s), " + journal.size() + " change(s)");
+        return true;
+    }
+
+    @Override
+    public void undo() {
+        if (journal != null) {
+            try {
+                journal.revert(editor);
+                System.out.println("Undo play: Reverted macro '" + macro.getName() + "'");
+            } catch (IllegalArgumentException e) {
+                System.err.println("Undo play failed: " + e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public void redo() {
+        if (journal != null) {
+            try {
+                journal.replay(editor);
+                System.out.println("Redo play: Replayed macro '" + macro.getName() + "'");
+            } catch (IllegalArgumentException e) {
+                System.err.println("Redo play failed: " + e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package org.flanVim.command.editorspace;
+
+import org.flanVim.command.EditorCommand;
+import org.flanVim.command.Undoable;
+import org.flanVim.editor.Editor;
+import org.flanVim.editor.TextPatch;
+
+import java.io.IOException;
+
+/**
+ * ReloadCommand - 文件被其他进程修改后，把未修改的缓冲区更新为磁盘上的内容
+ * 由 WorkSpace 在收到文件变化通知时执行，也可以用 reload 手动执行（会丢弃未保存的修改）
+ *
+ * 只替换变化的部分（见 Editor.reloadFromDisk），作为一次普通编辑进入撤销树，
+ * undo 回到重新加载之前的内容（此时与磁盘不一致，标记为已修改）。
+ */
+public class ReloadCommand implements Undoable, EditorCommand {
+    private final Editor editor;
+    private TextPatch patch;  // 本次重新加载的修改（用于 undo/redo）
+
+    public ReloadCommand(Editor editor) {
+        this.editor = editor;
+    }
+
+    @Override
+    public Editor getEditor() {
+        return editor;
+    }
+
+    @Override
+    public boolean execute() {
+        try {
+            TextPatch result = editor.reloadFromDisk();
+            if (result.isEmpty()) {
+                // 内容没有变化（例如只是 touch），不进入历史
+                System.out.println("Reload skipped: " + editor.getFilePath() + " already matches the file on disk");
+                return false;
+            }
+            patch = result;
+            System.out.println("Reloaded " + editor.getFilePath() + " (changed on disk)");
+            return true;
+        } catch (IOException e) {
+            System.err.println("Reload failed: " + e.getMessage());
+            return false;
+        }
+    }
+
+    @Override
+    public void undo() {
+        if (patch != null) {
+            try {
+                patch.revert(editor);
+                System.out.println("Undo reload: Restored content before reloading " + editor.getFilePath());
+            } catch (IllegalArgumentException e) {
+                System.err.println("Undo reload failed: " + e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public void redo() {
+        if (patch != null) {
+            try {
+                patch.apply(editor);
+                if (!editor.isChangedOnDisk()) {
+                    editor.setModified(false);  // 磁盘内容没有再变，重做后与磁盘一致
+                }
+                System.out.println("Redo reload: Reloaded " + editor.getFilePath());
+            } catch (IllegalArgumentException e) {
+                System.err.println("Redo reload failed: " + e.getMessage());
+            }
+        }
+    }
+}
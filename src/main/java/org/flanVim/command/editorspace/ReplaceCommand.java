@@ -1,6 +1,6 @@
 package org.flanVim.command.editorspace;
 
-import org.flanVim.command.EditorCommand;
+import org.flanVim.command.Repeatable;
 import org.flanVim.command.Undoable;
 import org.flanVim.editor.Editor;
 
@@ -9,7 +9,7 @@ import org.flanVim.editor.Editor;
  * replace <line:col> <len> "text"
  * 本质上是"先删除后插入"的组合操作
  */
-public class ReplaceCommand implements Undoable, EditorCommand {
+public class ReplaceCommand implements Undoable, Repeatable {
     private final Editor editor;
     private final int line;
     private final int column;
@@ -38,6 +38,11 @@ public class ReplaceCommand implements Undoable, EditorCommand {
         return editor;
     }
 
+    @Override
+    public Repeatable copyFor(Editor editor) {
+        return new ReplaceCommand(editor, line, column, length, newText);
+    }
+
     @Override
     public boolean execute() {
         try {
@@ -0,0 +1,58 @@
+package org.flanVim.command.editorspace;
+
+import org.flanVim.command.EditorCommand;
+import org.flanVim.command.Undoable;
+import org.flanVim.editor.Editor;
+import org.flanVim.editor.TextPatch;
+
+/**
+ * ReplaceInFileCommand - replace-all 在单个文件中的替换，作为该 Editor 撤销树中的一条记录
+ *
+ * 由 ReplaceAllCommand 创建并执行，不对应用户输入的命令。
+ * 这样 Editor 自己的 undo/redo 也会经过这次替换，之后的命令不会按替换前的偏移撤销；
+ * undo --workspace 同样通过这条记录撤销，两边的历史保持一致。
+ */
+public class ReplaceInFileCommand implements Undoable, EditorCommand {
+    private final Editor editor;
+    private final TextPatch patch;
+
+    public ReplaceInFileCommand(Editor editor, TextPatch patch) {
+        this.editor = editor;
+        this.patch = patch;
+    }
+
+    @Override
+    public Editor getEditor() {
+        return editor;
+    }
+
+    @Override
+    public boolean execute() {
+        patch.apply(editor);
+        return true;
+    }
+
+    /**
+     * @throws IllegalStateException 如果替换的位置上已经不是替换后的文本
+     */
+    @Override
+    public void undo() {
+        if (!patch.canRevert(editor)) {
+            throw new IllegalStateException("replace-all result in " + editor.getFilePath() + " has been changed");
+        }
+        patch.revert(editor);
+        System.out.println("Undo replace-all: Restored " + patch.size() + " occurrence(s)");
+    }
+
+    /**
+     * @throws IllegalStateException 如果替换的位置上已经不是原文本
+     */
+    @Override
+    public void redo() {
+        if (!patch.canApply(editor)) {
+            throw new IllegalStateException("content of " + editor.getFilePath() + " has been changed");
+        }
+        patch.apply(editor);
+        System.out.println("Redo replace-all: Replaced " + patch.size() + " occurrence(s)");
+    }
+}
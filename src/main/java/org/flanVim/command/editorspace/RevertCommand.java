@@ -0,0 +1,102 @@
+package org.flanVim.command.editorspace;
+
+import org.flanVim.command.EditorCommand;
+import org.flanVim.command.UndoTree;
+import org.flanVim.command.Undoable;
+import org.flanVim.editor.Editor;
+import org.flanVim.editor.TextPatch;
+
+/**
+ * RevertCommand - 把内容恢复成撤销树上某个修订的样子
+ * revert --to <rev>
+ *
+ * 与 goto-rev 不同，revert 不移动撤销树上的位置，而是把目标修订的内容作为一次新的编辑，
+ * 之后的历史都还在，可以再撤销这次 revert。
+ * 目标内容由 RevisionView 从修改日志重建，不移动撤销树上的位置；
+ * 新旧内容只替换去掉公共前缀/后缀后的中间部分。
+ */
+public class RevertCommand implements Undoable, EditorCommand {
+    private final Editor editor;
+    private final int revision;
+    private TextPatch patch;  // 本次恢复的修改（用于 undo/redo）
+
+    public RevertCommand(Editor editor, int revision) {
+        this.editor = editor;
+        this.revision = revision;
+    }
+
+    @Override
+    public Editor getEditor() {
+        return editor;
+    }
+
+    @Override
+    public boolean execute() {
+        UndoTree history = editor.getHistory();
+        UndoTree.Revision target = history.getRevision(revision);
+        UndoTree.Revision here = history.getCurrent();
+        if (target == null) {
+            System.err.println("Revert failed: No revision " + revision);
+            return false;
+        }
+        if (target == here) {
+            System.out.println("Revert skipped: Already at revision " + revision);
+            return false;
+        }
+
+        try {
+            String wanted = editor.getRevisionView(revision).toString();
+
+            CharSequence content = editor.getContentView();
+            int length = content.length();
+            int prefix = 0;
+            int max = Math.min(length, wanted.length());
+            while (prefix < max && content.charAt(prefix) == wanted.charAt(prefix)) {
+                prefix++;
+            }
+            int suffix = 0;
+            while (suffix < max - prefix
+                   && content.charAt(length - 1 - suffix) == wanted.charAt(wanted.length() - 1 - suffix)) {
+                suffix++;
+            }
+            if (prefix == length && length == wanted.length()) {
+                System.out.println("Revert skipped: Content already matches revision " + revision);
+                return false;
+            }
+            TextPatch result = new TextPatch();
+            result.add(prefix, content.subSequence(prefix, length - suffix),
+                       wanted.substring(prefix, wanted.length() - suffix));
+            result.apply(editor);
+            patch = result;
+            System.out.println("Reverted content to revision " + revision);
+            return true;
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            System.err.println("Revert failed: " + e.getMessage());
+            return false;
+        }
+    }
+
+    @Override
+    public void undo() {
+        if (patch != null) {
+            try {
+                patch.revert(editor);
+                System.out.println("Undo revert: Restored content before revert to revision " + revision);
+            } catch (IllegalArgumentException e) {
+                System.err.println("Undo revert failed: " + e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public void redo() {
+        if (patch != null) {
+            try {
+                patch.apply(editor);
+                System.out.println("Redo revert: Reverted content to revision " + revision);
+            } catch (IllegalArgumentException e) {
+                System.err.println("Redo revert failed: " + e.getMessage());
+            }
+        }
+    }
+}
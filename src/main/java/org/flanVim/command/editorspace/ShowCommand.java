@@ -1,15 +1,28 @@
 package org.flanVim.command.editorspace;
 
-import java.util.List;
+import java.io.PrintStream;
 
 import org.flanVim.command.Command;
 import org.flanVim.editor.Editor;
+import org.flanVim.editor.RevisionView;
 
+/**
+ * ShowCommand - 显示文件内容
+ * show [startLine:endLine]
+ * show --page N   分页显示，每次 N 行，游标保存在 Editor 中，到达末尾后回到第一行
+ * show --rev N [startLine:endLine]   显示撤销树上某个修订的内容（只读视图，不改动当前内容和历史）
+ *
+ * 行直接从缓冲区流式输出，不会先把整个文件复制成 List
+ */
 public class ShowCommand implements Command {
+    private static final int FLUSH_LINES = 1024;  // 输出缓冲的最大行数
+
     private Editor editor;
     private int startLine;
     private int endLine;
     private boolean showAll;
+    private int pageSize = 0;  // > 0 表示分页模式
+    private int revision = -1;  // >= 0 表示显示历史修订
 
     public ShowCommand(Editor editor) {
         this.editor = editor;
@@ -23,23 +36,87 @@ public class ShowCommand implements Command {
         this.showAll = false;
     }
 
+    /**
+     * 历史修订模式
+     * @param editor 编辑器实例
+     * @param revision 修订号（见 history）
+     * @param startLine 起始行
+     * @param endLine 结束行，Integer.MAX_VALUE 表示到文件末尾
+     */
+    public ShowCommand(Editor editor, int revision, int startLine, int endLine) {
+        this(editor, startLine, endLine);
+        this.revision = revision;
+    }
+
+    /**
+     * 分页模式
+     * @param editor 编辑器实例
+     * @param pageSize 每页行数
+     */
+    public ShowCommand(Editor editor, int pageSize) {
+        this.editor = editor;
+        this.pageSize = pageSize;
+        this.showAll = false;
+    }
+
     @Override
     public boolean execute() {
-        if(showAll) {
+        if (pageSize > 0) {
+            startLine = editor.getPageCursor();
+            endLine = (int) Math.min(Integer.MAX_VALUE, (long) startLine + pageSize - 1);
+        } else if (showAll) {
             startLine = 1;
             endLine = Integer.MAX_VALUE;
+        } else if (startLine > endLine) {
+            int t = startLine;
+            startLine = endLine;
+            endLine = t;
         }
         try {
-            List<String> lines = editor.getLines(startLine, endLine);
-            System.out.println(">>>>>>>>>>>>>>>>>>>>>>>>  " + editor.getFilePath() + "  <<<<<<<<<<<<<<<<<<<<<<<<");
-            for (int i = 0; i < lines.size(); i++) {
-                System.out.println((i + startLine) + "\t|  " + lines.get(i));
+            RevisionView view = revision >= 0 ? editor.getRevisionView(revision) : null;
+            String title = editor.getFilePath() + (view != null ? " @ revision " + revision : "");
+            PrintStream out = System.out;
+            out.println(">>>>>>>>>>>>>>>>>>>>>>>>  " + title + "  <<<<<<<<<<<<<<<<<<<<<<<<");
+
+            // 按块输出，内存中最多保留 FLUSH_LINES 行
+            StringBuilder buffer = new StringBuilder();
+            int[] pending = {0};
+            int lastPrinted = endLine;
+            // 分页时多看一行：最后一行恰好落在本页末尾时，本页就能判断出已到达文件末尾
+            int probeLine = pageSize > 0 && endLine < Integer.MAX_VALUE ? endLine + 1 : endLine;
+            Editor.LineVisitor printer = (lineNumber, line) -> {
+                if (lineNumber > lastPrinted) {
+                    return false;
+                }
+                buffer.append(lineNumber).append("\t|  ").append(line).append('\n');
+                if (++pending[0] >= FLUSH_LINES) {
+                    out.print(buffer);
+                    buffer.setLength(0);
+                    pending[0] = 0;
+                }
+                return true;
+            };
+            int lastVisited = view != null ? view.forEachLine(startLine, probeLine, printer)
+                                           : editor.forEachLine(startLine, probeLine, printer);
+            int lastLine = Math.min(lastVisited, endLine);
+            out.print(buffer);
+            out.flush();
+
+            if (pageSize > 0) {
+                if (lastVisited <= endLine) {
+                    // 已到达文件末尾，游标回到开头
+                    editor.setPageCursor(1);
+                    out.println("(END)");
+                } else {
+                    editor.setPageCursor(lastLine + 1);
+                    out.println("-- lines " + startLine + "-" + lastLine + ", 'show --page " + pageSize + "' for more --");
+                }
             }
-            System.out.println("<<<<<<<<<<<<<<<<<<<<<<<<  " + editor.getFilePath() + "  >>>>>>>>>>>>>>>>>>>>>>>>");
+            out.println("<<<<<<<<<<<<<<<<<<<<<<<<  " + title + "  >>>>>>>>>>>>>>>>>>>>>>>>");
             return true;
         } catch (Exception e) {
             System.err.println("Show command failed: " + e.getMessage());
             return false;
         }
     }
-}
\ No newline at end of file
+}
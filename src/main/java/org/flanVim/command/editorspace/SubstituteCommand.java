@@ -0,0 +1,172 @@
+package org.flanVim.command.editorspace;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.PatternSyntaxException;
+
+import org.flanVim.command.Repeatable;
+import org.flanVim.command.Undoable;
+import org.flanVim.editor.Editor;
+import org.flanVim.editor.RegexReplacer;
+import org.flanVim.editor.TextPatch;
+
+/**
+ * SubstituteCommand - 正则查找替换
+ * substitute /regex/replacement/[flags] [startLine:endLine]
+ *
+ * flags: g 替换每行的所有匹配（默认每行只替换第一个），i 忽略大小写
+ * 替换串使用 Java 的 $1 分组引用语法
+ *
+ * 由 RegexReplacer 一遍扫描收集所有匹配，生成一个 TextPatch 一次写回缓冲区，
+ * 所有替换作为一条历史记录撤销/重做
+ */
+public class SubstituteCommand implements Undoable, Repeatable {
+    private final Editor editor;
+    private final String regex;
+    private final String replacement;
+    private final boolean global;
+    private final boolean ignoreCase;
+    private final int startLine;
+    private final int endLine;
+    private TextPatch patch;  // 本次替换的全部修改（用于 undo/redo）
+
+    /**
+     * @param editor 编辑器实例
+     * @param regex 正则表达式
+     * @param replacement 替换串
+     * @param global 是否替换每行的所有匹配
+     * @param ignoreCase 是否忽略大小写
+     * @param startLine 起始行（从 1 开始）
+     * @param endLine 结束行（包含），Integer.MAX_VALUE 表示到文件末尾
+     */
+    public SubstituteCommand(Editor editor, String regex, String replacement, boolean global,
+                             boolean ignoreCase, int startLine, int endLine) {
+        this.editor = editor;
+        this.regex = regex;
+        this.replacement = replacement != null ? replacement : "";
+        this.global = global;
+        this.ignoreCase = ignoreCase;
+        this.startLine = Math.min(startLine, endLine);
+        this.endLine = Math.max(startLine, endLine);
+    }
+
+    /**
+     * 解析 /regex/replacement/flags 形式的表达式，分隔符为第一个字符，可用反斜杠转义
+     * @param expression 表达式
+     * @return [regex, replacement, flags]
+     * @throws IllegalArgumentException 如果格式错误
+     */
+    public static String[] parseExpression(String expression) throws IllegalArgumentException {
+        if (expression == null || expression.length() < 2) {
+            throw new IllegalArgumentException("Expected /regex/replacement/[flags]");
+        }
+        char delimiter = expression.charAt(0);
+        if (Character.isLetterOrDigit(delimiter) || delimiter == '\\') {
+            throw new IllegalArgumentException("Invalid delimiter: " + delimiter);
+        }
+        List<String> parts = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        for (int i = 1; i < expression.length(); i++) {
+            char c = expression.charAt(i);
+            if (c == '\\' && i + 1 < expression.length() && expression.charAt(i + 1) == delimiter) {
+                current.append(delimiter);  // 转义的分隔符
+                i++;
+            } else if (c == delimiter && parts.size() < 2) {
+                parts.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        parts.add(current.toString());
+        if (parts.size() < 2) {
+            throw new IllegalArgumentException("Expected /regex/replacement/[flags]");
+        }
+        if (parts.size() == 2) {
+            parts.add("");
+        }
+        String flags = parts.get(2);
+        for (char flag : flags.toCharArray()) {
+            if (flag != 'g' && flag != 'i') {
+                throw new IllegalArgumentException("Unknown flag: " + flag);
+            }
+        }
+        if (parts.get(0).isEmpty()) {
+            throw new IllegalArgumentException("Search pattern cannot be empty");
+        }
+        return parts.toArray(new String[0]);
+    }
+
+    @Override
+    public Editor getEditor() {
+        return editor;
+    }
+
+    @Override
+    public Repeatable copyFor(Editor editor) {
+        return new SubstituteCommand(editor, regex, replacement, global, ignoreCase, startLine, endLine);
+    }
+
+    @Override
+    public boolean execute() {
+        try {
+            RegexReplacer replacer = new RegexReplacer(regex, replacement, global, ignoreCase);
+
+            int regionStart = editor.getLineOffset(Math.max(startLine, 1));
+            if (regionStart < 0) {
+                System.err.println("Substitute failed: Line " + startLine + " is beyond the end of file");
+                return false;
+            }
+            int regionEnd = editor.getLineEndOffset(endLine);
+            if (regionEnd < 0) {
+                regionEnd = editor.getContentLength();
+            }
+
+            // 一遍扫描收集所有匹配，再一次性写回
+            TextPatch result = replacer.collect(editor.getContentView(), regionStart, regionEnd);
+            if (result.isEmpty()) {
+                System.out.println("Pattern not found: " + regex);
+                return false;
+            }
+
+            result.apply(editor);
+            patch = result;
+            System.out.println("Substituted " + result.size() + " occurrence(s)");
+            return true;
+
+        } catch (PatternSyntaxException e) {
+            System.err.println("Substitute failed: Invalid regex - " + e.getDescription());
+            return false;
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            System.err.println("Substitute failed: " + e.getMessage());
+            return false;
+        } catch (Exception e) {
+            System.err.println("Substitute failed: Unexpected error - " + e.getMessage());
+            return false;
+        }
+    }
+
+    @Override
+    public void undo() {
+        if (patch != null) {
+            try {
+                patch.revert(editor);
+                System.out.println("Undo substitute: Restored " + patch.size() + " occurrence(s)");
+            } catch (IllegalArgumentException e) {
+                System.err.println("Undo substitute failed: " + e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public void redo() {
+        if (patch != null) {
+            try {
+                patch.apply(editor);
+                System.out.println("Redo substitute: Substituted " + patch.size() + " occurrence(s)");
+            } catch (IllegalArgumentException e) {
+                System.err.println("Redo substitute failed: " + e.getMessage());
+            }
+        }
+    }
+}
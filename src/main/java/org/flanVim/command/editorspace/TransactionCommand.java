@@ -0,0 +1,54 @@
+package org.flanVim.command.editorspace;
+
+import org.flanVim.command.EditorCommand;
+import org.flanVim.command.Undoable;
+import org.flanVim.editor.EditJournal;
+import org.flanVim.editor.Editor;
+
+/**
+ * TransactionCommand - 已提交的事务
+ * begin ... commit 之间对同一编辑器的全部修改作为一条历史记录撤销/重做
+ *
+ * 修改在事务进行中已经生效，这里只保存压缩后的修改日志，
+ * 不会被 executeCommand 执行，由 WorkSpace.commitTransaction 直接放入编辑器的历史。
+ */
+public class TransactionCommand implements Undoable, EditorCommand {
+    private final Editor editor;
+    private final EditJournal journal;
+
+    public TransactionCommand(Editor editor, EditJournal journal) {
+        this.editor = editor;
+        this.journal = journal;
+    }
+
+    @Override
+    public Editor getEditor() {
+        return editor;
+    }
+
+    @Override
+    public boolean execute() {
+        journal.replay(editor);
+        return true;
+    }
+
+    @Override
+    public void undo() {
+        try {
+            journal.revert(editor);
+            System.out.println("Undo transaction: Reverted " + journal.size() + " change(s)");
+        } catch (IllegalArgumentException e) {
+            System.err.println("Undo transaction failed: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void redo() {
+        try {
+            journal.replay(editor);
+            System.out.println("Redo transaction: Applied " + journal.size() + " change(s)");
+        } catch (IllegalArgumentException e) {
+            System.err.println("Redo transaction failed: " + e.getMessage());
+        }
+    }
+}
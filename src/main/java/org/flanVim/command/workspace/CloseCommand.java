@@ -16,6 +16,7 @@ import java.util.Scanner;
  * ⽂件已修改且未保存：提示"⽂件已修改，是否保存? (y/n)"
  * ⽤户输⼊ y：保存⽂件后关闭
  * ⽤户输⼊ n：直接关闭不保存
+ * ⽤户输⼊ d：显示与磁盘⽂件的差异后重新提示
  * 关闭后，如果还有其他打开的⽂件，切换到最近使⽤的⽂件
  */
 public class CloseCommand implements Command, Undoable {
@@ -104,8 +105,11 @@ public class CloseCommand implements Command, Undoable {
         
         // 检查文件是否已修改
         if (editor.isModified()) {
+            if (editor.hasDiskConflict()) {
+                System.out.println("Warning: <" + fileName + "> was also changed on disk; saving will overwrite those changes.");
+            }
             while(true) {
-                System.out.print("File <" + fileName + "> has been modified, save or not? (y/n): ");
+                System.out.print("File <" + fileName + "> has been modified, save or not? (y/n/d): ");
                 String response = scanner.nextLine().trim().toLowerCase();
                 if (response.equals("y") || response.equals("yes")) {
                     // 保存文件
@@ -118,8 +122,11 @@ public class CloseCommand implements Command, Undoable {
                         return false;
                     }
                     break;
+                } else if (response.equals("d") || response.equals("diff")) {
+                    DiffCommand.printDiff(workSpace, editor);
+                    continue;
                 } else if (!response.equals("n") && !response.equals("no")) {
-                    System.out.println("Invalid input. Print (y/n).");
+                    System.out.println("Invalid input. Print (y/n/d).");
                     continue;
                 }
                 //为n
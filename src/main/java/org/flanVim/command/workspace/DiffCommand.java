@@ -0,0 +1,96 @@
+package org.flanVim.command.workspace;
+
+import org.flanVim.command.Command;
+import org.flanVim.editor.Editor;
+import org.flanVim.editor.LineDiff;
+import org.flanVim.editor.Utf8Text;
+import org.flanVim.workspace.WorkSpace;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * diff [file]
+ * 比较编辑器中的内容与磁盘上的文件，以 unified diff 格式输出（磁盘为 a，缓冲区为 b）
+ * 磁盘文件不存在时视为空文件
+ */
+public class DiffCommand implements Command {
+    private static final int CONTEXT_LINES = 3;
+
+    private WorkSpace workSpace;
+    private String fileName;  // null 表示当前活动文件
+
+    public DiffCommand(WorkSpace workSpace, String fileName) {
+        this.workSpace = workSpace;
+        this.fileName = fileName;
+    }
+
+    @Override
+    public boolean execute() {
+        Editor editor;
+        if (fileName == null) {
+            editor = workSpace.getActiveEditor();
+            if (editor == null) {
+                System.out.println("Error: No active editor.");
+                return false;
+            }
+        } else {
+            editor = workSpace.getEditor(resolveFilePath(fileName));
+            if (editor == null) {
+                System.out.println("Error: File not found in workspace: " + fileName);
+                return false;
+            }
+        }
+        return printDiff(workSpace, editor);
+    }
+
+    /**
+     * 输出编辑器内容与磁盘文件的差异，close 的保存提示中也会用到
+     * @return 是否成功读取磁盘文件并完成比较
+     */
+    public static boolean printDiff(WorkSpace workSpace, Editor editor) {
+        File file = new File(editor.getFilePath());
+        Utf8Text disk;
+        try {
+            disk = file.exists() ? Utf8Text.load(file.toPath()) : new Utf8Text();
+        } catch (IOException e) {
+            System.out.println("Error reading file: " + editor.getFilePath());
+            System.out.println("Reason: " + e.getMessage());
+            return false;
+        }
+
+        try {
+            LineDiff diff = LineDiff.compare(disk, editor.getContentView());
+            if (diff.isEmpty()) {
+                System.out.println("No differences.");
+                return true;
+            }
+            String name = workSpace.getRelativePath(editor.getFilePath());
+            boolean absolute = new File(name).isAbsolute();  // 没有工作区时是绝对路径，不加 a/ b/ 前缀
+            int hunks = diff.writeUnified((absolute ? "" : "a/") + name + " (disk)",
+                                          (absolute ? "" : "b/") + name + " (buffer)",
+                                          CONTEXT_LINES, System.out);
+            System.out.println(hunks + " hunk(s), +" + diff.getInsertedCount()
+                               + " -" + diff.getDeletedCount() + " line(s)");
+            return true;
+        } finally {
+            disk.release();
+        }
+    }
+
+    /**
+     * 将相对路径转换为绝对路径（与 SaveCommand 保持一致）
+     */
+    private String resolveFilePath(String filePath) {
+        String exactPath = new File(filePath).getAbsolutePath();
+        if (workSpace.getWorkSpacePath() != null) {
+            File file = new File(filePath);
+            if (!file.isAbsolute()) {
+                exactPath = new File(workSpace.getWorkSpacePath(), filePath).getAbsolutePath();
+            }
+            String resolved = workSpace.resolveFileName(filePath, exactPath, workSpace::hasEditor);
+            return resolved != null ? resolved : exactPath;
+        }
+        return exactPath;
+    }
+}
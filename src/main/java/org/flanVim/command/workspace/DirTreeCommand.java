@@ -1,62 +1,90 @@
 package org.flanVim.command.workspace;
 
 import org.flanVim.command.Command;
+import org.flanVim.util.DirTreeScanner;
+import org.flanVim.workspace.DirTreeCache;
 
-import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
 
+/**
+ * dir-tree [path] [--depth N] [--exclude glob]... [--refresh]
+ * 并行扫描目录并按名字排序、流式输出目录树
+ * 显示工作区目录时直接从 WorkSpace 的目录树缓存渲染，--refresh 强制重新扫描
+ */
 public class DirTreeCommand implements Command {
     private String directoryPath;
+    private int maxDepth;
+    private List<String> excludePatterns;
+    private DirTreeCache cache;  // 为 null 时直接扫描文件系统
+    private boolean refresh;
 
     public DirTreeCommand(String directoryPath) {
+        this(directoryPath, DirTreeScanner.UNLIMITED_DEPTH, null);
+    }
+
+    /**
+     * @param directoryPath 目录路径
+     * @param maxDepth 最大深度（<= 0 表示不限制）
+     * @param excludePatterns 要排除的 glob 模式
+     */
+    public DirTreeCommand(String directoryPath, int maxDepth, List<String> excludePatterns) {
         this.directoryPath = directoryPath;
+        this.maxDepth = maxDepth;
+        this.excludePatterns = excludePatterns != null ? new ArrayList<>(excludePatterns) : new ArrayList<>();
+    }
+
+    /**
+     * 从目录树缓存渲染
+     * @param cache 工作区目录树缓存
+     * @param maxDepth 最大深度（<= 0 表示不限制）
+     * @param excludePatterns 要排除的 glob 模式
+     * @param refresh 是否先丢弃缓存重新扫描
+     */
+    public DirTreeCommand(DirTreeCache cache, int maxDepth, List<String> excludePatterns, boolean refresh) {
+        this(cache.getRootPath().toString(), maxDepth, excludePatterns);
+        this.cache = cache;
+        this.refresh = refresh;
     }
 
     @Override
     public boolean execute() {
-        File directory = new File(directoryPath);
+        Path directory = Paths.get(directoryPath);
         
-        if (!directory.exists()) {
+        if (!Files.exists(directory)) {
             System.out.println("错误: 目录不存在 - " + directoryPath);
             return false;
         }
         
-        if (!directory.isDirectory()) {
+        if (!Files.isDirectory(directory)) {
             System.out.println("错误: 指定的路径不是目录 - " + directoryPath);
             return false;
         }
-        
-        System.out.println(directoryPath);
-        printDirectoryTree(directory, "");
-        
-        return true;
-    }
-    
-    /**
-     * 递归打印目录树
-     * @param file 当前文件或目录
-     * @param prefix 前缀字符串（用于绘制树状结构）
-     */
-    private void printDirectoryTree(File file, String prefix) {
-        File[] children = file.listFiles();
-        
-        if (children == null || children.length == 0) {
-            return;
-        }
-        
-        for (int i = 0; i < children.length; i++) {
-            File child = children[i];
-            boolean isLastChild = (i == children.length - 1);
-            
-            // 打印当前文件/目录
-            System.out.print(prefix);
-            System.out.print(isLastChild ? "└── " : "├── ");
-            System.out.println(child.getName());
-            
-            // 如果是目录，递归打印子目录
-            if (child.isDirectory()) {
-                String newPrefix = prefix + (isLastChild ? "    " : "│   ");
-                printDirectoryTree(child, newPrefix);
+
+        try {
+            if (cache != null) {
+                // 缓存保存的是完整目录树，打印时再按深度和排除模式过滤
+                if (refresh) {
+                    cache.rebuild();
+                }
+                DirTreeScanner.Node root = cache.getRoot();
+                System.out.println(directoryPath);
+                DirTreeScanner.render(root, maxDepth, DirTreeScanner.compile(excludePatterns), System.out);
+            } else {
+                DirTreeScanner scanner = new DirTreeScanner(maxDepth, excludePatterns);
+                System.out.println(directoryPath);
+                DirTreeScanner.Node root = scanner.scan(directory);
+                // 扫描时已经按深度和排除模式剪枝，打印时无需再过滤
+                DirTreeScanner.render(root, maxDepth, new ArrayList<>(), System.out);
             }
+        } catch (IllegalArgumentException e) {
+            System.out.println("错误: 无效的排除模式 - " + e.getMessage());
+            return false;
         }
+        
+        return true;
     }
-}
\ No newline at end of file
+}
@@ -29,6 +29,11 @@ public class EditCommand implements Command, Undoable {
         
         // 将输入的文件名转换为绝对路径（支持相对路径输入）
         String absoluteFileName = workSpace.getAbsolutePath(fileName);
+        // 未精确命中时，通过工作区文件索引在已打开的文件中模糊解析
+        absoluteFileName = workSpace.resolveFileNameFuzzy(fileName, absoluteFileName, workSpace::hasEditor);
+        if (absoluteFileName == null) {
+            return false;
+        }
         
         // 检查文件是否已在工作区打开
         if (!workSpace.hasEditor(absoluteFileName)) {
@@ -3,6 +3,8 @@ package org.flanVim.command.workspace;
 import java.util.Map;
 
 import org.flanVim.command.Command;
+import org.flanVim.editor.CompressedText;
+import org.flanVim.editor.OffHeapMemory;
 import org.flanVim.editor.Editor;
 import org.flanVim.workspace.WorkSpace;
 
@@ -31,9 +33,61 @@ public class EditorListCommand implements Command {
             }
             if(editor.isModified())
                 System.out.print(" [modified]");
+            CompressedText compressed = editor.getCompressed();
+            if(compressed != null)
+                System.out.print(" [compressed " + formatBytes(compressed.getOriginalBytes()) + " -> "
+                        + formatBytes(compressed.getCompressedBytes())
+                        + String.format(", %.1fx]", compressed.getRatio()));
+            else if(editor.isOffHeap())
+                System.out.print(" [off-heap " + formatBytes(editor.getResidentBytes()) + "]");
+            else if(editor.isResident())
+                System.out.print(" [resident " + formatBytes(editor.getResidentBytes()) + "]");
+            else
+                System.out.print(" [evicted]");
+            if(editor.getHistoryBytes() > 0)
+                System.out.print(" [checkpoints " + formatBytes(editor.getHistoryBytes()) + "]");
             System.out.println();
         }
+        System.out.println("Memory: " + formatBytes(workSpace.getResidentBytes())
+                + " resident (" + formatBytes(OffHeapMemory.getAllocatedBytes()) + " off-heap), budget "
+                + formatBytes(workSpace.getMemoryBudget()));
+        printCompressionSummary(editors);
         return true;
     }
 
+    /**
+     * 压缩统计：当前压缩的缓冲区节省的内存，以及累计的压缩/解压耗时
+     */
+    private void printCompressionSummary(Map<String, Editor> editors) {
+        int count = 0;
+        long original = 0;
+        long compressedTotal = 0;
+        long decompressNanos = 0;
+        for (Editor editor : editors.values()) {
+            decompressNanos += editor.getDecompressNanos();
+            CompressedText compressed = editor.getCompressed();
+            if (compressed != null) {
+                count++;
+                original += compressed.getOriginalBytes();
+                compressedTotal += compressed.getCompressedBytes();
+            }
+        }
+        if (count == 0 && workSpace.getCompressRuns() == 0) {
+            return;
+        }
+        System.out.println("Compressed: " + count + " buffer(s), saved " + formatBytes(original - compressedTotal)
+                + (compressedTotal > 0 ? String.format(" (%.1fx)", (double) original / compressedTotal) : "")
+                + String.format(", compress %.1f ms over %d run(s), decompress %.1f ms",
+                        workSpace.getCompressNanos() / 1e6, workSpace.getCompressRuns(), decompressNanos / 1e6));
+    }
+
+    static String formatBytes(long bytes) {
+        if (bytes < 1024) {
+            return bytes + " B";
+        }
+        if (bytes < 1024 * 1024) {
+            return String.format("%.1f KB", bytes / 1024.0);
+        }
+        return String.format("%.1f MB", bytes / (1024.0 * 1024));
+    }
 }
\ No newline at end of file
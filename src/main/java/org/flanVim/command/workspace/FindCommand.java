@@ -0,0 +1,129 @@
+package org.flanVim.command.workspace;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.flanVim.command.Command;
+import org.flanVim.editor.Editor;
+import org.flanVim.util.StringSearch;
+import org.flanVim.workspace.WorkSpace;
+
+/**
+ * find <pattern>
+ * 在所有打开的 Editor 中并行查找字符串，每个 Editor 一个 ForkJoin 任务
+ * 结果以 file:line:col: 行内容 的格式在找到时分批输出
+ */
+public class FindCommand implements Command {
+    private static final int FLUSH_HITS = 256;  // 每个任务缓冲的最大结果数
+
+    private WorkSpace workSpace;
+    private String pattern;
+
+    public FindCommand(WorkSpace workSpace, String pattern) {
+        this.workSpace = workSpace;
+        this.pattern = pattern;
+    }
+
+    @Override
+    public boolean execute() {
+        if (pattern == null || pattern.isEmpty()) {
+            System.out.println("Error: Search pattern cannot be empty.");
+            return false;
+        }
+        if (workSpace.getAllEditors().isEmpty()) {
+            System.out.println("No open editors.");
+            return true;
+        }
+
+        StringSearch search = new StringSearch(pattern);
+        AtomicInteger totalHits = new AtomicInteger();
+        AtomicInteger matchedFiles = new AtomicInteger();
+
+        List<SearchTask> tasks = new ArrayList<>();
+        for (Editor editor : workSpace.getAllEditors().values()) {
+            tasks.add(new SearchTask(editor, workSpace.getRelativePath(editor.getFilePath()),
+                    search, totalHits, matchedFiles));
+        }
+        ForkJoinPool.commonPool().invoke(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                invokeAll(tasks);
+            }
+        });
+
+        System.out.println(totalHits.get() + " match(es) in " + matchedFiles.get() + " file(s).");
+        return true;
+    }
+
+    /**
+     * 在单个 Editor 中查找的任务
+     */
+    @SuppressWarnings("serial")  // 只在 ForkJoinPool 中使用，从不序列化
+    private static class SearchTask extends RecursiveAction {
+        private final Editor editor;
+        private final String displayName;
+        private final StringSearch search;
+        private final AtomicInteger totalHits;
+        private final AtomicInteger matchedFiles;
+
+        SearchTask(Editor editor, String displayName, StringSearch search,
+                   AtomicInteger totalHits, AtomicInteger matchedFiles) {
+            this.editor = editor;
+            this.displayName = displayName;
+            this.search = search;
+            this.totalHits = totalHits;
+            this.matchedFiles = matchedFiles;
+        }
+
+        @Override
+        protected void compute() {
+            CharSequence text = editor.getContentView();
+            int length = text.length();
+            StringBuilder buffer = new StringBuilder();
+            int pending = 0;
+            int hits = 0;
+
+            // 增量维护当前行号和行首位置，避免每个结果都从头数换行
+            int line = 1;
+            int lineStart = 0;
+            int scanned = 0;
+
+            int position = search.indexOf(text, 0, length);
+            while (position >= 0) {
+                for (int i = scanned; i < position; i++) {
+                    if (text.charAt(i) == '\n') {
+                        line++;
+                        lineStart = i + 1;
+                    }
+                }
+                scanned = position;
+
+                int lineEnd = lineStart;
+                while (lineEnd < length && text.charAt(lineEnd) != '\n') {
+                    lineEnd++;
+                }
+                buffer.append(displayName).append(':').append(line).append(':')
+                      .append(position - lineStart + 1).append(": ")
+                      .append(text, lineStart, lineEnd).append('\n');
+                hits++;
+                if (++pending >= FLUSH_HITS) {
+                    System.out.print(buffer);
+                    buffer.setLength(0);
+                    pending = 0;
+                }
+                position = search.indexOf(text, position + 1, length);
+            }
+
+            if (pending > 0) {
+                System.out.print(buffer);
+            }
+            if (hits > 0) {
+                totalHits.addAndGet(hits);
+                matchedFiles.incrementAndGet();
+            }
+        }
+    }
+}
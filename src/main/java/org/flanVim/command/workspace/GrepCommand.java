@@ -0,0 +1,258 @@
+package org.flanVim.command.workspace;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import org.flanVim.command.Command;
+import org.flanVim.util.Latin1CharSequence;
+import org.flanVim.workspace.TrigramIndex;
+import org.flanVim.workspace.WorkSpace;
+
+/**
+ * grep <regex> [glob]
+ * 在工作区磁盘上的文件中查找正则表达式（不需要先 load）
+ *
+ * 文件按路径排序后提交到固定大小的线程池，同时在途的文件数有上限；
+ * 主线程按顺序等待结果并输出，所以输出是排序的、内存占用有界。
+ * 每个文件通过 mmap 读取，先嗅探开头的字节跳过二进制文件，超大文件按大小直接跳过。
+ * 纯 ASCII 的文件直接在映射的字节上匹配，不做 UTF-8 解码。
+ * 扫描前先用工作区的三元组索引（TrigramIndex）排除不可能匹配的文件。
+ */
+public class GrepCommand implements Command {
+    public static final long MAX_FILE_SIZE = 64L * 1024 * 1024;  // 超过此大小的文件跳过
+    private static final int SNIFF_BYTES = 8192;  // 二进制嗅探的字节数
+
+    private WorkSpace workSpace;
+    private String regex;
+    private String glob;
+
+    /**
+     * 单个文件的搜索结果
+     */
+    private static class FileResult {
+        final List<String> lines = new ArrayList<>();
+        boolean binary;
+        boolean huge;
+    }
+
+    public GrepCommand(WorkSpace workSpace, String regex, String glob) {
+        this.workSpace = workSpace;
+        this.regex = regex;
+        this.glob = glob;
+    }
+
+    @Override
+    public boolean execute() {
+        if (workSpace.getWorkSpacePath() == null) {
+            System.out.println("Error: Workspace is not initialized.");
+            return false;
+        }
+
+        Pattern pattern;
+        PathMatcher matcher;
+        try {
+            pattern = Pattern.compile(regex, Pattern.MULTILINE);
+            matcher = glob != null ? FileSystems.getDefault().getPathMatcher("glob:" + glob) : null;
+        } catch (PatternSyntaxException e) {
+            System.out.println("Error: Invalid regex - " + e.getDescription());
+            return false;
+        } catch (IllegalArgumentException e) {
+            System.out.println("Error: Invalid glob - " + e.getMessage());
+            return false;
+        }
+
+        Path root = Paths.get(workSpace.getWorkSpacePath()).toAbsolutePath().normalize();
+        List<Path> files;
+        try {
+            files = collectFiles(root, matcher, workSpace.getTrigramIndex(), regex);
+        } catch (IOException e) {
+            System.out.println("Error walking workspace: " + e.getMessage());
+            return false;
+        }
+
+        return search(root, files, pattern);
+    }
+
+    /**
+     * 列出工作区内的候选文件（跳过隐藏目录），按路径排序
+     * 先按 mtime 增量更新三元组索引，再用正则中必须出现的字面量过滤掉不可能匹配的文件
+     */
+    static List<Path> collectFiles(Path root, PathMatcher matcher, TrigramIndex index, String regex)
+            throws IOException {
+        Map<Path, BasicFileAttributes> all = TrigramIndex.walk(root);
+        index.refresh(all);
+
+        int[] required = TrigramIndex.requiredTrigrams(regex);
+        List<Path> files = new ArrayList<>();
+        for (Path relative : all.keySet()) {
+            if (matcher != null && !matcher.matches(relative) && !matcher.matches(relative.getFileName())) {
+                continue;
+            }
+            if (index.mayContain(relative, required)) {
+                files.add(relative);
+            }
+        }
+        Collections.sort(files);
+        return files;
+    }
+
+    /**
+     * 并行搜索，按文件顺序输出
+     */
+    private boolean search(Path root, List<Path> files, Pattern pattern) {
+        int threads = Runtime.getRuntime().availableProcessors();
+        int window = threads * 4;  // 同时在途的最大文件数
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "grep-worker");
+            t.setDaemon(true);
+            return t;
+        });
+        int hits = 0;
+        int matchedFiles = 0;
+        int skippedBinary = 0;
+        int skippedHuge = 0;
+        try {
+            Deque<Future<FileResult>> inFlight = new ArrayDeque<>();
+            Deque<Path> names = new ArrayDeque<>();
+            int next = 0;
+            while (next < files.size() || !inFlight.isEmpty()) {
+                while (next < files.size() && inFlight.size() < window) {
+                    Path file = files.get(next++);
+                    inFlight.add(executor.submit(() -> scanFile(root.resolve(file), pattern)));
+                    names.add(file);
+                }
+
+                Path file = names.poll();
+                FileResult result;
+                try {
+                    result = inFlight.poll().get();
+                } catch (ExecutionException e) {
+                    continue;  // 读取失败的文件跳过
+                }
+                if (result.binary) {
+                    skippedBinary++;
+                } else if (result.huge) {
+                    skippedHuge++;
+                } else if (!result.lines.isEmpty()) {
+                    matchedFiles++;
+                    hits += result.lines.size();
+                    StringBuilder buffer = new StringBuilder();
+                    for (String line : result.lines) {
+                        buffer.append(file).append(':').append(line).append('\n');
+                    }
+                    System.out.print(buffer);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            executor.shutdownNow();
+        }
+
+        System.out.println(hits + " matching line(s) in " + matchedFiles + " file(s)"
+                + (skippedBinary + skippedHuge > 0
+                   ? " (skipped " + skippedBinary + " binary, " + skippedHuge + " huge)" : "") + ".");
+        return true;
+    }
+
+    /**
+     * 搜索单个文件，每个匹配行只报告一次，格式为 line:col: 行内容
+     */
+    private static FileResult scanFile(Path file, Pattern pattern) throws IOException {
+        FileResult result = new FileResult();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > MAX_FILE_SIZE) {
+                result.huge = true;
+                return result;
+            }
+            if (size == 0) {
+                return result;
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+
+            // 嗅探开头的字节：出现 NUL 视为二进制
+            int sniff = (int) Math.min(size, SNIFF_BYTES);
+            for (int i = 0; i < sniff; i++) {
+                if (buffer.get(i) == 0) {
+                    result.binary = true;
+                    return result;
+                }
+            }
+
+            // 全部是 ASCII 时按字节直接匹配，否则解码为 UTF-8
+            boolean ascii = isAscii(buffer, (int) size);
+            Latin1CharSequence bytes = new Latin1CharSequence(buffer);
+            CharSequence text = ascii ? bytes : StandardCharsets.UTF_8.decode(buffer);
+            int length = text.length();
+            Matcher matcher = pattern.matcher(text);
+
+            int line = 1;
+            int lineStart = 0;
+            int scanned = 0;
+            while (matcher.find()) {
+                int position = matcher.start();
+                for (int i = scanned; i < position; i++) {
+                    if (text.charAt(i) == '\n') {
+                        line++;
+                        lineStart = i + 1;
+                    }
+                }
+                scanned = position;
+
+                int lineEnd = lineStart;
+                while (lineEnd < length && text.charAt(lineEnd) != '\n') {
+                    lineEnd++;
+                }
+                String lineText;
+                int column;
+                if (ascii) {
+                    lineText = bytes.decode(lineStart, lineEnd);
+                } else {
+                    lineText = text.subSequence(lineStart, lineEnd).toString();
+                }
+                column = position - lineStart + 1;
+                result.lines.add(line + ":" + column + ": " + lineText);
+
+                // 每行只报告一次，从下一行继续
+                if (lineEnd >= length) {
+                    break;
+                }
+                matcher.region(lineEnd + 1, length);
+            }
+        }
+        return result;
+    }
+
+    private static boolean isAscii(MappedByteBuffer buffer, int size) {
+        for (int i = 0; i < size; i++) {
+            if (buffer.get(i) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -37,6 +37,12 @@ public class LoadCommand implements Command, Undoable {
                 // 如果是相对路径，拼接工作区路径
                 fullPath = new File(workSpace.getWorkSpacePath(), filePath).getAbsolutePath();
             }
+            // 精确路径不存在时，通过工作区文件索引查找同名文件（区分大小写，不做模糊匹配）
+            fullPath = workSpace.resolveFileName(filePath, fullPath,
+                    path -> workSpace.hasEditor(path) || new File(path).exists());
+            if (fullPath == null) {
+                return false;
+            }
         }
         
         File file = new File(fullPath);
@@ -0,0 +1,43 @@
+package org.flanVim.command.workspace;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.List;
+
+import org.flanVim.command.Command;
+import org.flanVim.workspace.RecentFiles;
+import org.flanVim.workspace.WorkSpace;
+
+/**
+ * recent
+ * 列出最近打开过的文件（跨会话保存），最近的在前，当前已打开的文件标记 *
+ */
+public class RecentCommand implements Command {
+    private WorkSpace workSpace;
+
+    public RecentCommand(WorkSpace workSpace) {
+        this.workSpace = workSpace;
+    }
+
+    @Override
+    public boolean execute() {
+        List<RecentFiles.Entry> entries = workSpace.getRecentFiles().getEntries();
+        if (entries.isEmpty()) {
+            System.out.println("No recent files.");
+            return true;
+        }
+        SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd HH:mm");
+        StringBuilder buffer = new StringBuilder();
+        for (int i = 0; i < entries.size(); i++) {
+            RecentFiles.Entry entry = entries.get(i);
+            buffer.append(workSpace.hasEditor(entry.getPath()) ? "*" : " ")
+                  .append(String.format("%3d  ", i + 1))
+                  .append(format.format(new Date(entry.getOpenedAt())))
+                  .append("  ")
+                  .append(workSpace.getRelativePath(entry.getPath()))
+                  .append('\n');
+        }
+        System.out.print(buffer);
+        return true;
+    }
+}
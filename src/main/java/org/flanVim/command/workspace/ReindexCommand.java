@@ -0,0 +1,37 @@
+package org.flanVim.command.workspace;
+
+import java.io.IOException;
+
+import org.flanVim.command.Command;
+import org.flanVim.workspace.TrigramIndex;
+import org.flanVim.workspace.WorkSpace;
+
+/**
+ * reindex - 丢弃并重新建立 grep 使用的三元组索引
+ */
+public class ReindexCommand implements Command {
+    private WorkSpace workSpace;
+
+    public ReindexCommand(WorkSpace workSpace) {
+        this.workSpace = workSpace;
+    }
+
+    @Override
+    public boolean execute() {
+        TrigramIndex index = workSpace.getTrigramIndex();
+        if (index == null) {
+            System.out.println("Error: Workspace is not initialized.");
+            return false;
+        }
+        long start = System.nanoTime();
+        try {
+            int files = index.rebuild();
+            long millis = (System.nanoTime() - start) / 1_000_000;
+            System.out.println("Indexed " + files + " file(s) in " + millis + " ms.");
+            return true;
+        } catch (IOException e) {
+            System.out.println("Error rebuilding index: " + e.getMessage());
+            return false;
+        }
+    }
+}
@@ -0,0 +1,286 @@
+package org.flanVim.command.workspace;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.regex.PatternSyntaxException;
+
+import org.flanVim.command.Command;
+import org.flanVim.command.UndoTree;
+import org.flanVim.command.Undoable;
+import org.flanVim.command.editorspace.ReplaceInFileCommand;
+import org.flanVim.editor.EditJournal;
+import org.flanVim.editor.Editor;
+import org.flanVim.editor.RegexReplacer;
+import org.flanVim.editor.TextPatch;
+import org.flanVim.workspace.WorkSpace;
+
+/**
+ * replace-all /regex/replacement/[flags] [glob] [--open]
+ * 对工作区中所有匹配的文件（或 --open 时所有已打开的 Editor）做正则替换
+ *
+ * 每个文件的替换在线程池中并行计算成一个 TextPatch，主线程再依次写入 Editor。
+ * 结果只暂存在 Editor 中，不保存到磁盘；未打开的文件会被加载为新的 Editor。
+ * 整批替换作为一条 WorkSpace 层的历史记录，undo --workspace 一次撤销全部文件。
+ * 每个文件的替换同时作为一条 ReplaceInFileCommand 记入该 Editor 的撤销树，
+ * Editor 层的 undo 也会先撤销这次替换；undo/redo --workspace 通过这些记录移动各 Editor 的历史，
+ * 有 Editor 的历史已经离开对应位置时整批拒绝执行。
+ */
+public class ReplaceAllCommand implements Command, Undoable {
+    private final WorkSpace workSpace;
+    private final String glob;
+    private final boolean openOnly;
+    private final RegexReplacer replacer;
+    private final String regex;
+    private final List<Change> changes = new ArrayList<>();  // 本次替换涉及的文件（按路径排序）
+
+    /**
+     * 单个文件的替换结果
+     */
+    private static class Change {
+        final String fileName;
+        final Editor editor;
+        final TextPatch patch;
+        final boolean newEditor;     // 是否由本命令加载（撤销时关闭）
+        final boolean wasModified;   // 替换前的修改状态（撤销时恢复）
+        UndoTree.Revision revision;  // 这次替换在 Editor 撤销树中的记录
+
+        Change(String fileName, Editor editor, TextPatch patch, boolean newEditor) {
+            this.fileName = fileName;
+            this.editor = editor;
+            this.patch = patch;
+            this.newEditor = newEditor;
+            this.wasModified = editor.isModified();
+        }
+    }
+
+    /**
+     * @param workSpace 工作区
+     * @param regex 正则表达式
+     * @param replacement 替换串
+     * @param global 是否替换每行的所有匹配
+     * @param ignoreCase 是否忽略大小写
+     * @param glob 文件过滤（可为 null）
+     * @param openOnly 只处理已打开的 Editor
+     * @throws PatternSyntaxException 如果正则语法错误
+     * @throws IllegalArgumentException 如果替换串语法错误或引用了不存在的分组编号
+     */
+    public ReplaceAllCommand(WorkSpace workSpace, String regex, String replacement, boolean global,
+                             boolean ignoreCase, String glob, boolean openOnly) throws PatternSyntaxException {
+        this.workSpace = workSpace;
+        this.regex = regex;
+        this.replacer = new RegexReplacer(regex, replacement, global, ignoreCase);
+        this.glob = glob;
+        this.openOnly = openOnly;
+    }
+
+    @Override
+    public boolean execute() {
+        if (workSpace.inTransaction()) {
+            // 工作区层的修改进入工作区历史，不能混进编辑器的事务日志
+            System.out.println("Error: Transaction in progress, commit or rollback first.");
+            return false;
+        }
+        if (!openOnly && workSpace.getWorkSpacePath() == null) {
+            System.out.println("Error: Workspace is not initialized.");
+            return false;
+        }
+        PathMatcher matcher;
+        try {
+            matcher = glob != null ? FileSystems.getDefault().getPathMatcher("glob:" + glob) : null;
+        } catch (IllegalArgumentException e) {
+            System.out.println("Error: Invalid glob - " + e.getMessage());
+            return false;
+        }
+
+        // 候选文件：文件名 -> 已打开的 Editor（未打开时为 null）
+        Map<String, Editor> targets = new LinkedHashMap<>();
+        try {
+            collectTargets(matcher, targets);
+        } catch (IOException e) {
+            System.out.println("Error walking workspace: " + e.getMessage());
+            return false;
+        }
+
+        List<Change> computed = targets.entrySet().parallelStream()
+                .map(entry -> compute(entry.getKey(), entry.getValue()))
+                .filter(Objects::nonNull)
+                .sorted((a, b) -> a.fileName.compareTo(b.fileName))
+                .toList();
+        if (computed.isEmpty()) {
+            System.out.println("Pattern not found: " + regex);
+            return false;
+        }
+
+        // 写入 Editor 在主线程进行，避免与其他命令并发修改
+        int occurrences = 0;
+        for (Change change : computed) {
+            if (change.newEditor) {
+                workSpace.addEditor(change.fileName, change.editor);
+            }
+            apply(change);
+            changes.add(change);
+            occurrences += change.patch.size();
+            System.out.println("     " + relative(change.fileName) + ": " + change.patch.size() + " occurrence(s)");
+        }
+        System.out.println("Replaced " + occurrences + " occurrence(s) in " + changes.size()
+                + " file(s). Use 'save all' to write, or 'undo --workspace' to revert.");
+        return true;
+    }
+
+    /**
+     * 把单个文件的替换写入 Editor，并作为一条带修改日志的记录加入该 Editor 的撤销树
+     */
+    private static void apply(Change change) {
+        ReplaceInFileCommand step = new ReplaceInFileCommand(change.editor, change.patch);
+        change.editor.startJournal();
+        EditJournal delta;
+        try {
+            step.execute();
+        } finally {
+            delta = change.editor.stopJournal();
+        }
+        change.editor.addToHistory(step, delta);
+        change.revision = change.editor.getHistory().getCurrent();
+    }
+
+    /**
+     * 收集候选文件
+     * --open 时只取已打开的 Editor；否则取工作区的文件（用三元组索引过滤），已打开的文件使用 Editor 中的内容
+     */
+    private void collectTargets(PathMatcher matcher, Map<String, Editor> targets) throws IOException {
+        if (!openOnly) {
+            Path root = Paths.get(workSpace.getWorkSpacePath()).toAbsolutePath().normalize();
+            for (Path file : GrepCommand.collectFiles(root, matcher, workSpace.getTrigramIndex(), regex)) {
+                String fileName = root.resolve(file).toString();
+                targets.put(fileName, workSpace.getEditor(fileName));
+            }
+        }
+        for (Map.Entry<String, Editor> entry : workSpace.getAllEditors().entrySet()) {
+            if (matcher != null) {
+                Path path = Paths.get(relative(entry.getKey()));
+                if (!matcher.matches(path) && (path.getFileName() == null || !matcher.matches(path.getFileName()))) {
+                    continue;
+                }
+            }
+            targets.put(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * 在工作线程中计算单个文件的替换，未打开的文件先加载为新的 Editor（还不加入工作区）
+     * @return 替换结果，没有匹配或无法读取时返回 null
+     */
+    private Change compute(String fileName, Editor editor) {
+        boolean newEditor = editor == null;
+        try {
+            if (newEditor) {
+                if (!isTextFile(Paths.get(fileName))) {
+                    return null;
+                }
+                editor = new Editor(fileName);
+            }
+            CharSequence content = editor.getContentView();
+            TextPatch patch = replacer.collect(content, 0, content.length());
+            return patch.isEmpty() ? null : new Change(fileName, editor, patch, newEditor);
+        } catch (IOException | IllegalArgumentException e) {
+            return null;  // 无法读取（例如不是 UTF-8）或替换串错误的文件跳过
+        }
+    }
+
+    /**
+     * 跳过超大文件和二进制文件（开头出现 NUL）
+     */
+    private static boolean isTextFile(Path file) throws IOException {
+        if (Files.size(file) > GrepCommand.MAX_FILE_SIZE) {
+            return false;
+        }
+        byte[] head = new byte[8192];
+        try (InputStream in = Files.newInputStream(file)) {
+            int n = in.readNBytes(head, 0, head.length);
+            for (int i = 0; i < n; i++) {
+                if (head[i] == 0) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private String relative(String fileName) {
+        return workSpace.getWorkSpacePath() != null ? workSpace.getRelativePath(fileName) : fileName;
+    }
+
+    /**
+     * 撤销前检查每个文件的撤销树仍停在这次替换上、内容也没有再被修改，
+     * 否则按旧偏移还原会破坏后来的内容，或者与 Editor 自己的历史不一致
+     * @throws IllegalStateException 如果有文件无法撤销（不做任何修改）
+     */
+    @Override
+    public void undo() {
+        for (Change change : changes) {
+            if (change.editor.getHistory().getCurrent() != change.revision
+                    || change.revision.getParent() == null  // 之前的历史已被丢弃
+                    || !change.patch.canRevert(change.editor)) {
+                throw new IllegalStateException(relative(change.fileName)
+                        + " has been edited or undone after replace-all, undo/redo it back to that point first.");
+            }
+        }
+        int occurrences = 0;
+        for (int i = changes.size() - 1; i >= 0; i--) {
+            Change change = changes.get(i);
+            UndoTree history = change.editor.getHistory();
+            if (!history.jumpTo(change.revision.getParent())) {
+                System.err.println("Undo replace-all failed for " + change.fileName);
+            } else {
+                change.editor.setModified(change.wasModified);
+                occurrences += change.patch.size();
+            }
+            if (change.newEditor && change.editor != workSpace.getActiveEditor()) {
+                workSpace.removeEditor(change.fileName);
+            }
+        }
+        System.out.println("Undo replace-all: Restored " + occurrences + " occurrence(s) in "
+                + changes.size() + " file(s)");
+    }
+
+    /**
+     * 重做前同样检查每个文件的撤销树停在替换之前的位置、内容仍是替换前的样子
+     * @throws IllegalStateException 如果有文件无法重做（不做任何修改）
+     */
+    @Override
+    public void redo() {
+        for (Change change : changes) {
+            UndoTree history = change.editor.getHistory();
+            if (history.getRevision(change.revision.getId()) != change.revision
+                    || history.getCurrent() != change.revision.getParent()
+                    || !change.patch.canApply(change.editor)) {
+                throw new IllegalStateException(relative(change.fileName)
+                        + " has been modified since undo, cannot redo replace-all.");
+            }
+        }
+        int occurrences = 0;
+        for (Change change : changes) {
+            if (change.newEditor && !workSpace.hasEditor(change.fileName)) {
+                workSpace.addEditor(change.fileName, change.editor);
+            }
+            UndoTree history = change.editor.getHistory();
+            if (history.jumpTo(change.revision)) {
+                occurrences += change.patch.size();
+            } else {
+                System.err.println("Redo replace-all failed for " + change.fileName);
+            }
+        }
+        System.out.println("Redo replace-all: Replaced " + occurrences + " occurrence(s) in "
+                + changes.size() + " file(s)");
+    }
+}
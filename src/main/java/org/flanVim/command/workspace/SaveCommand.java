@@ -18,6 +18,7 @@ public class SaveCommand implements Command {
     private WorkSpace workSpace;
     private List<String> targetFiles; // 要保存的文件列表
     private boolean saveAll;
+    private boolean force = false;  // 文件被外部修改过时仍然覆盖
 
     /**
      * 保存当前活动文件
@@ -60,6 +61,13 @@ public class SaveCommand implements Command {
         this.targetFiles = new ArrayList<>();
     }
 
+    /**
+     * 文件在磁盘上被其他进程修改过时，默认拒绝保存；force 为 true 时直接覆盖
+     */
+    public void setForce(boolean force) {
+        this.force = force;
+    }
+
     @Override
     public boolean execute() {
         if (saveAll) {
@@ -124,16 +132,20 @@ public class SaveCommand implements Command {
 
     /**
      * 将相对路径转换为绝对路径（与 LoadCommand 保持一致）
+     * 未精确命中已打开的文件时，通过工作区文件索引解析
      */
     private String resolveFilePath(String filePath) {
+        String exactPath = new File(filePath).getAbsolutePath();
         if (workSpace.getWorkSpacePath() != null) {
             File file = new File(filePath);
             if (!file.isAbsolute()) {
                 // 如果是相对路径，拼接工作区路径
-                return new File(workSpace.getWorkSpacePath(), filePath).getAbsolutePath();
+                exactPath = new File(workSpace.getWorkSpacePath(), filePath).getAbsolutePath();
             }
+            String resolved = workSpace.resolveFileName(filePath, exactPath, workSpace::hasEditor);
+            return resolved != null ? resolved : exactPath;
         }
-        return new File(filePath).getAbsolutePath();
+        return exactPath;
     }
 
     /**
@@ -171,6 +183,11 @@ public class SaveCommand implements Command {
      * 将编辑器内容保存到文件
      */
     private boolean saveEditorToFile(String fileName, Editor editor) {
+        if (!force && editor.hasDiskConflict()) {
+            System.out.println("Error: " + fileName + " was changed on disk since it was loaded; not saved.");
+            System.out.println("Use diff to compare, reload to take the disk version, or save --force to overwrite.");
+            return false;
+        }
         try {
             editor.save();
             System.out.println("Saved: " + fileName);
@@ -0,0 +1,56 @@
+package org.flanVim.command.workspace;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.flanVim.command.Command;
+import org.flanVim.util.LatencyHistogram;
+import org.flanVim.workspace.WorkSpace;
+
+/**
+ * stats [--reset]
+ * 按命令类型列出本次会话的执行次数、失败次数和耗时分布（p50/p99/max/总耗时），按总耗时从高到低排序
+ * 耗时来自 WorkSpace.executeCommand 和 undo/redo 的计时，分位数的相对误差不超过 1/16
+ */
+public class StatsCommand implements Command {
+    private WorkSpace workSpace;
+    private boolean reset;
+
+    public StatsCommand(WorkSpace workSpace, boolean reset) {
+        this.workSpace = workSpace;
+        this.reset = reset;
+    }
+
+    @Override
+    public boolean execute() {
+        if (reset) {
+            workSpace.resetCommandLatency();
+            System.out.println("Command statistics cleared.");
+            return true;
+        }
+        List<Map.Entry<String, LatencyHistogram>> entries = new ArrayList<>(workSpace.getCommandLatency().entrySet());
+        if (entries.isEmpty()) {
+            System.out.println("No commands executed yet.");
+            return true;
+        }
+        entries.sort((a, b) -> Long.compare(b.getValue().getTotalNanos(), a.getValue().getTotalNanos()));
+
+        StringBuilder buffer = new StringBuilder();
+        buffer.append(String.format("%-16s %8s %7s %10s %10s %10s %10s%n",
+                "Command", "count", "failed", "p50", "p99", "max", "total"));
+        for (Map.Entry<String, LatencyHistogram> entry : entries) {
+            LatencyHistogram histogram = entry.getValue();
+            buffer.append(String.format("%-16s %8d %7d %10s %10s %10s %10s%n",
+                    entry.getKey(),
+                    histogram.getCount(),
+                    histogram.getFailures(),
+                    LatencyHistogram.format(histogram.getQuantile(0.50)),
+                    LatencyHistogram.format(histogram.getQuantile(0.99)),
+                    LatencyHistogram.format(histogram.getMaxNanos()),
+                    LatencyHistogram.format(histogram.getTotalNanos())));
+        }
+        System.out.print(buffer);
+        return true;
+    }
+}
@@ -0,0 +1,158 @@
+package org.flanVim.editor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.flanVim.util.ArgumentParser;
+
+/**
+ * BatchEdit: 一组按 line:col 指定的编辑，一次性应用到同一个 Editor
+ *
+ * 所有位置都指向应用之前的原始内容（与代码生成工具的输出一致），不需要调用方自己换算偏移。
+ * toPatch 通过行索引把每个位置换算成偏移，按偏移排序后生成一个 TextPatch，
+ * 由 TextPatch 一遍写回缓冲区并作为一条历史记录撤销。
+ *
+ * 同一位置的多个插入保持添加的顺序，插入排在同一位置开始的删除/替换之前；
+ * 删除/替换的范围互相重叠时报错。
+ */
+public class BatchEdit {
+    private final List<Edit> edits = new ArrayList<>();
+
+    /**
+     * 单个编辑：在 line:col 处删除 length 个字符并插入 text
+     */
+    private static final class Edit {
+        final int line;
+        final int column;
+        final int length;
+        final String text;
+        final int order;  // 添加的顺序（排序时保持稳定）
+        int offset;
+
+        Edit(int line, int column, int length, String text, int order) {
+            this.line = line;
+            this.column = column;
+            this.length = length;
+            this.text = text;
+            this.order = order;
+        }
+    }
+
+    public BatchEdit insert(int line, int column, String text) {
+        return add(line, column, 0, text);
+    }
+
+    public BatchEdit delete(int line, int column, int length) {
+        return add(line, column, length, "");
+    }
+
+    public BatchEdit replace(int line, int column, int length, String text) {
+        return add(line, column, length, text);
+    }
+
+    private BatchEdit add(int line, int column, int length, String text) {
+        if (length < 0) {
+            throw new IllegalArgumentException("Length must be >= 0, got: " + length);
+        }
+        edits.add(new Edit(line, column, length, text != null ? text : "", edits.size()));
+        return this;
+    }
+
+    public int size() {
+        return edits.size();
+    }
+
+    public boolean isEmpty() {
+        return edits.isEmpty();
+    }
+
+    /**
+     * 解析一行编辑描述，语法与对应的命令相同：
+     * insert line:col "text" | delete line:col length | replace line:col length "text"
+     * 空行和 # 开头的行忽略
+     * @throws IllegalArgumentException 如果格式错误
+     */
+    public BatchEdit parse(String spec) throws IllegalArgumentException {
+        String trimmed = spec.trim();
+        if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+            return this;
+        }
+        String[] args = ArgumentParser.parse(trimmed);
+        if (args.length < 2) {
+            throw new IllegalArgumentException("Invalid edit: " + spec);
+        }
+        String[] position = args[1].split(":");
+        if (position.length != 2) {
+            throw new IllegalArgumentException("Invalid position format, use <line:col>: " + spec);
+        }
+        try {
+            int line = Integer.parseInt(position[0]);
+            int column = Integer.parseInt(position[1]);
+            switch (args[0]) {
+                case "insert":
+                    expectArgs(args, 3, spec);
+                    return insert(line, column, args[2]);
+                case "delete":
+                    expectArgs(args, 3, spec);
+                    return delete(line, column, Integer.parseInt(args[2]));
+                case "replace":
+                    expectArgs(args, 4, spec);
+                    return replace(line, column, Integer.parseInt(args[2]), args[3]);
+                default:
+                    throw new IllegalArgumentException("Unknown edit '" + args[0] + "', use insert/delete/replace");
+            }
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid number in edit: " + spec);
+        }
+    }
+
+    private static void expectArgs(String[] args, int count, String spec) {
+        if (args.length != count) {
+            throw new IllegalArgumentException("Expected " + (count - 1) + " argument(s) for " + args[0] + ": " + spec);
+        }
+    }
+
+    /**
+     * 在 Editor 的当前内容上解析全部位置，生成按偏移排序的 TextPatch（不修改 Editor）
+     * @throws IllegalArgumentException 如果有位置无效、范围越界或删除范围重叠
+     */
+    public TextPatch toPatch(Editor editor) throws IllegalArgumentException {
+        CharSequence content = editor.getContentView();
+        Edit[] sorted = edits.toArray(new Edit[0]);
+        for (Edit edit : sorted) {
+            edit.offset = editor.getOffset(edit.line, edit.column);
+            if (edit.offset + edit.length > content.length()) {
+                throw new IllegalArgumentException(
+                    "Range [" + edit.offset + ", " + (edit.offset + edit.length) + ") exceeds content length "
+                    + content.length() + " at line " + edit.line + ", column " + edit.column
+                );
+            }
+        }
+        Arrays.sort(sorted, (a, b) -> {
+            if (a.offset != b.offset) {
+                return Integer.compare(a.offset, b.offset);
+            }
+            boolean aInsert = a.length == 0;
+            boolean bInsert = b.length == 0;
+            if (aInsert != bInsert) {
+                return aInsert ? -1 : 1;
+            }
+            return Integer.compare(a.order, b.order);
+        });
+
+        TextPatch patch = new TextPatch();
+        for (Edit edit : sorted) {
+            if (edit.length == 0 && edit.text.isEmpty()) {
+                continue;
+            }
+            try {
+                patch.add(edit.offset, content.subSequence(edit.offset, edit.offset + edit.length), edit.text);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Edit at line " + edit.line + ", column " + edit.column
+                        + " overlaps another edit");
+            }
+        }
+        return patch;
+    }
+}
@@ -0,0 +1,128 @@
+package org.flanVim.editor;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * CompressedText: 用 Deflater 压缩后存放在内存中的文本
+ *
+ * 直接压缩 Utf8Text 的 UTF-8 字节，压缩成若干固定大小的字节块，避免一次分配一个很大的数组。
+ * 同时记录压缩前后的大小和耗时，供 editor-list 报告。
+ */
+public class CompressedText {
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    private final byte[][] chunks;
+    private final int utf8Length;       // 解压后的 UTF-8 字节数
+    private final int charLength;       // 解压后的 UTF-16 字符数
+    private final long originalBytes;   // 压缩前缓冲区占用的估计字节数
+    private final long compressedBytes;
+    private final long compressNanos;
+
+    private CompressedText(byte[][] chunks, int utf8Length, int charLength, long originalBytes, long compressNanos) {
+        this.chunks = chunks;
+        this.utf8Length = utf8Length;
+        this.charLength = charLength;
+        this.originalBytes = originalBytes;
+        this.compressNanos = compressNanos;
+        long total = 0;
+        for (byte[] chunk : chunks) {
+            total += chunk.length;
+        }
+        this.compressedBytes = total;
+    }
+
+    /**
+     * 压缩文本
+     * @param text 文本
+     * @param originalBytes 文本当前占用的估计字节数（用于计算压缩比）
+     */
+    public static CompressedText compress(Utf8Text text, long originalBytes) {
+        long start = System.nanoTime();
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        List<byte[]> chunks = new ArrayList<>();
+        ByteBuffer input = text.pinBytes();  // 压缩期间缓冲区被释放也不会读到已释放的内存
+        try {
+            deflater.setInput(input);
+            deflater.finish();
+            byte[] chunk = new byte[CHUNK_SIZE];
+            int filled = 0;
+            while (!deflater.finished()) {
+                filled += deflater.deflate(chunk, filled, chunk.length - filled);
+                if (filled == chunk.length) {
+                    chunks.add(chunk);
+                    chunk = new byte[CHUNK_SIZE];
+                    filled = 0;
+                }
+            }
+            if (filled > 0) {
+                chunks.add(Arrays.copyOf(chunk, filled));  // 最后一块截断到实际长度
+            }
+        } finally {
+            deflater.end();
+            text.unpinBytes();
+        }
+        return new CompressedText(chunks.toArray(new byte[0][]), text.getByteLength(), text.length(),
+                originalBytes, System.nanoTime() - start);
+    }
+
+    /**
+     * 解压为新的缓冲区
+     * @throws IllegalStateException 如果数据损坏
+     */
+    public Utf8Text decompress() throws IllegalStateException {
+        ByteBuffer output = OffHeapMemory.allocate(utf8Length);  // 大缓冲区直接解压到堆外
+        Inflater inflater = new Inflater();
+        try {
+            for (byte[] chunk : chunks) {
+                inflater.setInput(chunk);
+                while (!inflater.needsInput() && !inflater.finished()) {
+                    inflater.inflate(output);
+                }
+            }
+            if (output.position() != utf8Length) {
+                throw new IllegalStateException("Compressed buffer is truncated");
+            }
+        } catch (DataFormatException e) {
+            OffHeapMemory.free(output);
+            throw new IllegalStateException("Compressed buffer is corrupted: " + e.getMessage(), e);
+        } catch (IllegalStateException e) {
+            OffHeapMemory.free(output);
+            throw e;
+        } finally {
+            inflater.end();
+        }
+        return Utf8Text.wrap(output, utf8Length, charLength);
+    }
+
+    /**
+     * @return 解压后的 UTF-8 字节数
+     */
+    public int getUtf8Length() {
+        return utf8Length;
+    }
+
+    public long getOriginalBytes() {
+        return originalBytes;
+    }
+
+    public long getCompressedBytes() {
+        return compressedBytes;
+    }
+
+    /**
+     * @return 压缩比（压缩前 / 压缩后）
+     */
+    public double getRatio() {
+        return compressedBytes == 0 ? 0 : (double) originalBytes / compressedBytes;
+    }
+
+    public long getCompressNanos() {
+        return compressNanos;
+    }
+}
@@ -0,0 +1,169 @@
+package org.flanVim.editor;
+
+import java.util.Arrays;
+
+/**
+ * EditJournal: 按执行顺序记录对一个 Editor 的全部修改，用于事务（begin/commit/rollback）
+ *
+ * 每条记录是一次 replaceRange：当时内容中的偏移、被替换的旧文本和新文本。
+ * 与 TextPatch 一样，旧文本/新文本拼接在 StringBuilder 中，位置和长度存放在 int 数组里。
+ *
+ * 记录时就地压缩：新的修改完全落在上一条记录写入的新文本范围内（连续输入、删掉刚输入的内容等）
+ * 时直接改写上一条记录，而不是追加新记录。
+ *
+ * revert 按相反顺序逐条写回旧文本，replay 按原顺序重新应用，代价只与记录条数成正比。
+ * 日志可以嵌套（事务中回放宏）：内层结束时把记录并入外层。
+ * 记录时去掉新旧文本的公共前缀/后缀，整段重写（TextPatch）也只保存真正变化的部分。
+ *
+ * 每条进入撤销树的命令都带有一份日志，show --rev 用它在不改动 Editor 的情况下重建历史内容。
+ */
+public class EditJournal {
+    private int[] offsets = new int[16];
+    private int[] oldLengths = new int[16];
+    private int[] newLengths = new int[16];
+    private final StringBuilder oldText = new StringBuilder();
+    private final StringBuilder newText = new StringBuilder();
+    private int size = 0;
+    private int recorded = 0;  // 记录过的修改次数（压缩前）
+    EditJournal parent = null;  // 外层日志，由 Editor 维护
+
+    /**
+     * 接收 revert/replay 产生的替换操作
+     */
+    public interface Target {
+        void replace(int start, int end, CharSequence text);
+    }
+
+    /**
+     * 记录一次已经应用的修改
+     * @param offset 修改时内容中的偏移
+     * @param oldValue 被替换的文本
+     * @param newValue 新文本
+     */
+    void record(int offset, CharSequence oldValue, CharSequence newValue) {
+        recorded++;
+        int oldEnd = oldValue.length();
+        int newEnd = newValue.length();
+        int prefix = 0;
+        while (prefix < oldEnd && prefix < newEnd && oldValue.charAt(prefix) == newValue.charAt(prefix)) {
+            prefix++;
+        }
+        while (oldEnd > prefix && newEnd > prefix && oldValue.charAt(oldEnd - 1) == newValue.charAt(newEnd - 1)) {
+            oldEnd--;
+            newEnd--;
+        }
+        if (prefix > 0 || oldEnd < oldValue.length()) {
+            offset += prefix;
+            oldValue = oldValue.subSequence(prefix, oldEnd);
+            newValue = newValue.subSequence(prefix, newEnd);
+        }
+        if (oldValue.length() == 0 && newValue.length() == 0) {
+            return;
+        }
+        if (size > 0) {
+            int last = size - 1;
+            int from = offset - offsets[last];
+            int to = from + oldValue.length();
+            if (from >= 0 && to <= newLengths[last]) {
+                // 修改落在上一条记录的新文本内，合并为一条
+                int tail = newText.length() - newLengths[last];
+                newText.replace(tail + from, tail + to, newValue.toString());
+                newLengths[last] += newValue.length() - oldValue.length();
+                if (newLengths[last] == 0 && oldLengths[last] == 0) {
+                    size--;  // 输入后又全部删掉，抵消为空
+                }
+                return;
+            }
+        }
+        if (size == offsets.length) {
+            int capacity = size * 2;
+            offsets = Arrays.copyOf(offsets, capacity);
+            oldLengths = Arrays.copyOf(oldLengths, capacity);
+            newLengths = Arrays.copyOf(newLengths, capacity);
+        }
+        offsets[size] = offset;
+        oldLengths[size] = oldValue.length();
+        newLengths[size] = newValue.length();
+        oldText.append(oldValue);
+        newText.append(newValue);
+        size++;
+    }
+
+    /**
+     * 把全部记录按顺序并入另一个日志（内层日志结束时使用）
+     */
+    void appendTo(EditJournal target) {
+        int oldPos = 0;
+        int newPos = 0;
+        for (int i = 0; i < size; i++) {
+            target.record(offsets[i], oldText.subSequence(oldPos, oldPos + oldLengths[i]),
+                          newText.subSequence(newPos, newPos + newLengths[i]));
+            oldPos += oldLengths[i];
+            newPos += newLengths[i];
+        }
+        target.recorded += recorded - size;
+    }
+
+    /**
+     * @return 压缩后的记录条数
+     */
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @return 记录过的修改次数（压缩前）
+     */
+    public int getRecordedCount() {
+        return recorded;
+    }
+
+    /**
+     * 记录占用的字符数（旧文本 + 新文本），用于统计
+     */
+    public int getStoredChars() {
+        return oldText.length() + newText.length();
+    }
+
+    /**
+     * 在修改后的内容上按相反顺序撤销全部记录
+     */
+    public void revert(Editor editor) {
+        revert((start, end, text) -> editor.replaceRange(start, end, text.toString()));
+    }
+
+    /**
+     * 把撤销全部记录所需的替换按顺序交给 target
+     */
+    public void revert(Target target) {
+        int oldPos = oldText.length();
+        for (int i = size - 1; i >= 0; i--) {
+            oldPos -= oldLengths[i];
+            target.replace(offsets[i], offsets[i] + newLengths[i],
+                           oldText.substring(oldPos, oldPos + oldLengths[i]));
+        }
+    }
+
+    /**
+     * 在修改前的内容上按原顺序重新应用全部记录
+     */
+    public void replay(Editor editor) {
+        replay((start, end, text) -> editor.replaceRange(start, end, text.toString()));
+    }
+
+    /**
+     * 把重新应用全部记录所需的替换按顺序交给 target
+     */
+    public void replay(Target target) {
+        int newPos = 0;
+        for (int i = 0; i < size; i++) {
+            target.replace(offsets[i], offsets[i] + oldLengths[i],
+                           newText.substring(newPos, newPos + newLengths[i]));
+            newPos += newLengths[i];
+        }
+    }
+}
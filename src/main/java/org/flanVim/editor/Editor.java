@@ -1,18 +1,21 @@
 package org.flanVim.editor;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
-import java.io.FileWriter;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
 import org.flanVim.command.Command;
-import org.flanVim.command.CommandHistory;
+import org.flanVim.command.UndoTree;
+import org.flanVim.util.FlightEvents;
 
 /**
  * Editor: 一个打开的文本的包装类
@@ -20,12 +23,46 @@ import org.flanVim.command.CommandHistory;
  * 每个 Editor 维护自己的命令历史栈，实现文件级别的 undo/redo
  */
 public class Editor {
-    private StringBuilder content;
+    // 超过此大小的缓冲区不保存撤销检查点：每 32 个修订同步压缩一次整个缓冲区会让输入明显卡顿
+    private static final long CHECKPOINT_MAX_BYTES = Long.getLong("flanvim.checkpointMaxMB", 4L) * 1024 * 1024;
+
+    private Utf8Text content;  // UTF-8 存放的内容，被换出或压缩时为 null，下次访问时重新加载/解压
+    private CompressedText compressed = null;  // 空闲时压缩存放的内容
+    private long lastBufferAccess;  // 最近一次访问内容的时间（epoch 毫秒），用于判断是否空闲
+    private long decompressNanos = 0;  // 累计解压耗时
     private String filePath;
     private boolean modified = false;
     private boolean withLog = false;
-    private LocalDateTime lastAccessTime;  // 最后访问时间
-    private CommandHistory history = new CommandHistory();  // 每个 Editor 独立的历史栈
+    private long lastAccessTime;  // 最后访问时间（epoch 毫秒），激活时不分配对象
+    private UndoTree history = new UndoTree(new UndoTree.Checkpoints() {  // 每个 Editor 独立的分支撤销历史
+        @Override
+        public CompressedText capture() {
+            return captureSnapshot();
+        }
+
+        @Override
+        public void restore(CompressedText snapshot) {
+            restoreSnapshot(snapshot);
+        }
+    });
+    private int pageCursor = 1;  // show --page 的分页游标（下一页的起始行）
+    private Consumer<Editor> saveListener = null;  // 保存成功后的回调（由 WorkSpace 设置）
+    private long diskModifiedTime = -1;  // 最近一次加载/保存时文件的 mtime，用于判断换出后文件是否被外部修改
+    private long diskSize = -1;
+    private EditJournal journal = null;  // 事务进行中时记录每次修改，否则为 null
+
+    /**
+     * 逐行访问器：按行回调，避免把整个缓冲区复制成 List
+     */
+    @FunctionalInterface
+    public interface LineVisitor {
+        /**
+         * @param lineNumber 行号（从 1 开始）
+         * @param line 该行内容（不含换行符）
+         * @return false 表示提前终止遍历
+         */
+        boolean visit(int lineNumber, CharSequence line);
+    }
 
     /**
      * 从文件路径创建 Editor（如果文件存在则加载内容，否则创建空 Editor）
@@ -34,7 +71,7 @@ public class Editor {
      */
     public Editor(String filePath) throws IOException {
         this.filePath = filePath;
-        this.lastAccessTime = LocalDateTime.now();
+        this.lastAccessTime = System.currentTimeMillis();
         
         File file = new File(filePath);
         if (file.exists()) {
@@ -43,7 +80,7 @@ public class Editor {
             this.modified = false;  // 刚加载的文件未修改
         } else {
             // 文件不存在，创建空 Editor
-            this.content = new StringBuilder();
+            this.content = new Utf8Text();
             this.modified = true;  // 新文件标记为已修改（需要保存）
         }
     }
@@ -55,8 +92,8 @@ public class Editor {
      */
     public Editor(String filePath, boolean createEmpty) {
         this.filePath = filePath;
-        this.content = new StringBuilder();
-        this.lastAccessTime = LocalDateTime.now();
+        this.content = new Utf8Text();
+        this.lastAccessTime = System.currentTimeMillis();
         this.modified = true;
     }
 
@@ -64,31 +101,342 @@ public class Editor {
      * 从文件加载内容
      */
     private void loadFromFile(File file) throws IOException {
-        // 先读取第一行检查是否启用日志模式
-        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
-            String firstLine = reader.readLine();
-            if (firstLine != null && firstLine.equals("# log")) {
-                this.withLog = true;
+        FlightEvents.FileLoadEvent event = new FlightEvents.FileLoadEvent();
+        event.begin();
+        // 直接读入 UTF-8 字节，不解码为 UTF-16（大文件直接读到堆外）
+        Utf8Text text = Utf8Text.load(file.toPath());
+        event.end();
+        if (event.shouldCommit()) {
+            event.filePath = filePath;
+            event.bytes = text.getByteLength();
+            event.lineCount = text.lineCount();  // 只在录制时建立行索引，之后的访问直接复用
+            event.offHeap = text.isOffHeap();
+            event.commit();
+        }
+
+        // 检查第一行是否启用日志模式
+        if (isLogHeader(text)) {
+            this.withLog = true;
+        }
+        this.content = text;
+        recordDiskState(file);
+    }
+
+    private static boolean isLogHeader(Utf8Text text) {
+        String header = "# log";
+        if (text.length() < header.length() || !text.subSequence(0, header.length()).equals(header)) {
+            return false;
+        }
+        return text.length() == header.length() || text.charAt(header.length()) == '\n'
+                || text.charAt(header.length()) == '\r';
+    }
+
+    private void recordDiskState(File file) {
+        this.diskModifiedTime = file.lastModified();
+        this.diskSize = file.length();
+    }
+
+    /**
+     * @return 磁盘上的文件在最近一次加载/保存之后是否被修改过（mtime 或大小变化），没有对应的磁盘文件时为 false
+     */
+    public boolean isChangedOnDisk() {
+        if (diskModifiedTime < 0) {
+            return false;
+        }
+        File file = new File(filePath);
+        return file.lastModified() != diskModifiedTime || file.length() != diskSize;
+    }
+
+    /**
+     * @return 保存是否会覆盖别的进程对文件的修改（文件被外部修改过且仍然存在）
+     */
+    public boolean hasDiskConflict() {
+        return isChangedOnDisk() && new File(filePath).exists();
+    }
+
+    /**
+     * 文件被外部修改后增量重新加载：只把变化的部分替换进缓冲区（见 Utf8Text.diffWithFile），
+     * 替换走普通的修改入口，会记入修改日志，可以撤销。重新加载后内容与磁盘一致，不再是已修改状态
+     * @return 应用的修改，内容相同时为空
+     * @throws IOException 如果文件无法读取或不是合法的 UTF-8
+     */
+    public TextPatch reloadFromDisk() throws IOException {
+        File file = new File(filePath);
+        long modifiedTime = file.lastModified();  // 先记下状态：读取期间再被修改时，下一次检查还能发现
+        long size = file.length();
+        TextPatch patch = buffer().diffWithFile(file.toPath());
+        patch.apply(this);
+        diskModifiedTime = modifiedTime;
+        diskSize = size;
+        modified = false;
+        return patch;
+    }
+
+    /**
+     * 获取内容缓冲区，被压缩时先解压，被换出时先从磁盘重新加载
+     */
+    private Utf8Text buffer() {
+        if (content == null) {
+            if (compressed != null) {
+                inflate();
+            } else {
+                reload();
             }
         }
-        
-        // 读取完整内容
-        String fileContent = Files.readString(Paths.get(file.getAbsolutePath()));
-        this.content = new StringBuilder(fileContent);
+        lastBufferAccess = System.currentTimeMillis();
+        return content;
+    }
+
+    private void inflate() {
+        long start = System.nanoTime();
+        content = compressed.decompress();
+        compressed = null;
+        decompressNanos += System.nanoTime() - start;
+    }
+
+    /**
+     * 压缩内容：把缓冲区用 Deflater 压缩后留在内存中，下次访问时自动解压
+     * 只压缩已修改（不能换出到磁盘）且不小于 minChars 的缓冲区
+     * @param minChars 最小字符数，太小的缓冲区压缩不划算
+     * @return 压缩结果，不能压缩时返回 null
+     */
+    public CompressedText compress(int minChars) {
+        if (content == null || !modified || content.length() < minChars) {
+            return null;
+        }
+        compressed = CompressedText.compress(content, getResidentBytes());
+        content.release();
+        content = null;
+        return compressed;
+    }
+
+    /**
+     * 关闭时调用：立即释放堆外存放的内容（堆上的内容交给 GC）
+     * 未修改的内容直接换出，需要时（例如撤销 close）从磁盘重新加载；
+     * 已修改的内容压缩后留在堆上，撤销 close 不会丢失修改
+     */
+    public void release() {
+        if (content == null || !content.isOffHeap()) {
+            return;
+        }
+        if (evict() > 0) {
+            return;
+        }
+        compressed = CompressedText.compress(content, getResidentBytes());
+        content.release();
+        content = null;
+    }
+
+    /**
+     * @return 内容是否存放在堆外
+     */
+    public boolean isOffHeap() {
+        return content != null && content.isOffHeap();
+    }
+
+    /**
+     * 压缩保存当前内容的快照（撤销历史的检查点），不影响当前缓冲区
+     * @return 快照，缓冲区超过 CHECKPOINT_MAX_BYTES 时返回 null（不保存检查点）
+     */
+    private CompressedText captureSnapshot() {
+        Utf8Text buf = buffer();
+        if (buf.getByteLength() > CHECKPOINT_MAX_BYTES) {
+            return null;
+        }
+        return CompressedText.compress(buf, buf.getResidentBytes());
+    }
+
+    /**
+     * 用快照替换当前内容（跳转到有检查点的修订），替换不记入修改日志
+     */
+    private void restoreSnapshot(CompressedText snapshot) {
+        Utf8Text restored = snapshot.decompress();
+        if (content != null) {
+            content.release();
+        }
+        content = restored;
+        compressed = null;
+        lastBufferAccess = System.currentTimeMillis();
+        markModified();
+    }
+
+    /**
+     * 如果内容被压缩，立即解压（激活时调用，避免第一次编辑时才付出解压的延迟）
+     */
+    public void ensureDecompressed() {
+        if (content == null && compressed != null) {
+            inflate();
+        }
+    }
+
+    public boolean isCompressed() {
+        return compressed != null;
+    }
+
+    /**
+     * @return 当前的压缩结果，未压缩时为 null
+     */
+    public CompressedText getCompressed() {
+        return compressed;
+    }
+
+    /**
+     * @return 累计解压耗时（纳秒）
+     */
+    public long getDecompressNanos() {
+        return decompressNanos;
+    }
+
+    /**
+     * @return 最近一次访问内容的时间（epoch 毫秒）
+     */
+    public long getLastBufferAccess() {
+        return Math.max(lastBufferAccess, lastAccessTime);
+    }
+
+    /**
+     * 重新加载被换出的内容
+     * 换出期间文件被外部修改时，旧的撤销记录已经对不上新内容，清空历史
+     */
+    private void reload() {
+        File file = new File(filePath);
+        try {
+            boolean changed = file.lastModified() != diskModifiedTime || file.length() != diskSize;
+            loadFromFile(file);
+            if (changed) {
+                history.clearAll();
+                System.out.println("Reloaded " + filePath + " (changed on disk, undo history cleared)");
+            }
+        } catch (IOException e) {
+            // 文件已不可读：保留一个空缓冲区并标记为已修改，避免再次被换出
+            content = new Utf8Text();
+            markModified();
+            history.clearAll();
+            System.out.println("Warning: Unable to reload " + filePath + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * 换出内容：丢弃内存中的缓冲区，只保留路径、mtime 等元数据，下次访问时自动重新加载
+     * 只有未修改、且磁盘上有对应文件的 Editor 才能换出
+     * @return 释放的估计字节数，不能换出时返回 0
+     */
+    public long evict() {
+        if (content == null || compressed != null || modified || diskModifiedTime < 0) {
+            return 0;
+        }
+        long freed = getResidentBytes();
+        content.release();
+        content = null;
+        return freed;
+    }
+
+    /**
+     * @return 内容是否在内存中（包括压缩存放）
+     */
+    public boolean isResident() {
+        return content != null || compressed != null;
+    }
+
+    /**
+     * @return 内容占用堆内存的估计字节数（UTF-8 字节 + 索引），压缩时为压缩后的大小，被换出时为 0
+     */
+    public long getResidentBytes() {
+        if (compressed != null) {
+            return compressed.getCompressedBytes();
+        }
+        return content == null ? 0 : content.getResidentBytes();
+    }
+
+    /**
+     * @return 撤销历史中检查点占用的字节数（不包含在 getResidentBytes 中，换出内容时不会释放）
+     */
+    public long getHistoryBytes() {
+        return history.getCheckpointBytes();
+    }
+
+    /**
+     * 丢弃撤销历史中的全部检查点（内存预算不足时调用），之后的多步跳转逐条撤销/重做
+     * @return 释放的字节数
+     */
+    public long dropCheckpoints() {
+        return history.dropCheckpoints();
     }
 
     private void markModified() {
         this.modified = true;
     }
 
-    public void append(String text) {
-        if (content.length() > 0) {
-            content.append("\n");
+    /**
+     * 所有修改的唯一入口：替换 [start, end) 并在事务进行中时记入日志
+     * 先修改后记录，修改抛出异常时日志不受影响
+     */
+    private void edit(int start, int end, String text) {
+        Utf8Text buf = buffer();
+        String old = journal != null ? buf.subSequence(start, end) : null;
+        buf.replace(start, end, text);
+        if (journal != null) {
+            journal.record(start, old, text);
         }
-        content.append(text);
         markModified();
     }
 
+    /**
+     * 开始记录修改（事务 begin、宏回放），已经在记录时嵌套在当前日志之内
+     * @return 新的修改日志
+     */
+    public EditJournal startJournal() {
+        EditJournal started = new EditJournal();
+        started.parent = journal;
+        journal = started;
+        return started;
+    }
+
+    /**
+     * 停止记录修改并保留修改（事务 commit），嵌套时记录并入外层日志
+     * @return 记录到的修改日志，没有在记录时为 null
+     */
+    public EditJournal stopJournal() {
+        EditJournal stopped = journal;
+        if (stopped == null) {
+            return null;
+        }
+        journal = stopped.parent;
+        stopped.parent = null;
+        if (journal != null) {
+            stopped.appendTo(journal);
+        }
+        return stopped;
+    }
+
+    /**
+     * 停止记录修改并撤销记录到的全部修改（事务 rollback），撤销本身不记入外层日志
+     * @return 被撤销的修改日志，没有在记录时为 null
+     */
+    public EditJournal rollbackJournal() {
+        EditJournal stopped = journal;
+        if (stopped == null) {
+            return null;
+        }
+        journal = null;
+        try {
+            stopped.revert(this);
+        } finally {
+            journal = stopped.parent;
+            stopped.parent = null;
+        }
+        return stopped;
+    }
+
+    public boolean isJournaling() {
+        return journal != null;
+    }
+
+    public void append(String text) {
+        int length = buffer().length();
+        edit(length, length, length > 0 ? "\n" + text : text);
+    }
+
     public void insert(int line, int column, String text) throws IllegalArgumentException {
         validateLineColumn(line, column);
         
@@ -98,8 +446,7 @@ public class Editor {
         
         try {
             int position = getPositionFromLineColumn(line, column);
-            content.insert(position, text);
-            markModified();
+            edit(position, position, text);
         } catch (StringIndexOutOfBoundsException e) {
             throw new IllegalArgumentException("Insert position out of bounds at line " + line + 
                                              ", column " + column + ": " + e.getMessage(), e);
@@ -112,15 +459,14 @@ public class Editor {
         
         try {
             int position = getPositionFromLineColumn(line, column);
-            if (position + length > content.length()) {
+            if (position + length > buffer().length()) {
                 throw new IllegalArgumentException(
                     "Delete range [" + position + ", " + (position + length) + 
-                    ") exceeds content length " + content.length() + 
+                    ") exceeds content length " + buffer().length() + 
                     " at line " + line + ", column " + column
                 );
             }
-            content.delete(position, position + length);
-            markModified();
+            edit(position, position + length, "");
         } catch (StringIndexOutOfBoundsException e) {
             throw new IllegalArgumentException("Delete position out of bounds at line " + line + 
                                              ", column " + column + ": " + e.getMessage(), e);
@@ -142,20 +488,32 @@ public class Editor {
         
         try {
             int position = getPositionFromLineColumn(line, column);
-            if (position + length > content.length()) {
+            if (position + length > buffer().length()) {
                 throw new IllegalArgumentException(
                     "Range [" + position + ", " + (position + length) + 
-                    ") exceeds content length " + content.length() + 
+                    ") exceeds content length " + buffer().length() + 
                     " at line " + line + ", column " + column
                 );
             }
-            return content.substring(position, position + length);
+            return buffer().subSequence(position, position + length);
         } catch (StringIndexOutOfBoundsException e) {
             throw new IllegalArgumentException("Position out of bounds at line " + line + 
                                              ", column " + column + ": " + e.getMessage(), e);
         }
     }
 
+    /**
+     * 将行号和列号转换为字符偏移（带参数校验，供批量编辑等按偏移操作的调用方使用）
+     * @param line 行号（从 1 开始）
+     * @param column 列号（从 1 开始，可以是行尾之后的位置）
+     * @return 字符偏移
+     * @throws IllegalArgumentException 如果行号或列号无效
+     */
+    public int getOffset(int line, int column) throws IllegalArgumentException {
+        validateLineColumn(line, column);
+        return getPositionFromLineColumn(line, column);
+    }
+
     /**
      * 将行号和列号转换为字符位置
      * @param line 行号（从1开始）
@@ -164,24 +522,21 @@ public class Editor {
      * @throws IllegalArgumentException 如果行号或列号无效
      */
     private int getPositionFromLineColumn(int line, int column) throws IllegalArgumentException {
-        String[] lines = content.toString().split("\n", -1);
-        if (line < 1 || line > lines.length) {
+        Utf8Text text = buffer();
+        // 行首偏移直接取自行索引，只扫描到目标行；总行数只在报错时才计算
+        int position = line < 1 ? -1 : text.lineStart(line);
+        if (position < 0) {
             throw new IllegalArgumentException(
-                "Line number " + line + " out of range [1, " + lines.length + "]"
+                "Line number " + line + " out of range [1, " + text.lineCount() + "]"
             );
         }
-        
-        int position = 0;
-        // 累加前面所有行的长度
-        for (int i = 0; i < line - 1; i++) {
-            position += lines[i].length() + 1; // +1 for '\n'
-        }
+        int lineLength = getLineEndOffset(line) - position;
         
         // 加上当前行的列偏移
-        if (column < 1 || column > lines[line - 1].length() + 1) {
+        if (column < 1 || column > lineLength + 1) {
             throw new IllegalArgumentException(
                 "Column number " + column + " out of range [1, " + 
-                (lines[line - 1].length() + 1) + "] at line " + line
+                (lineLength + 1) + "] at line " + line
             );
         }
         position += column - 1;
@@ -216,11 +571,9 @@ public class Editor {
     }
 
     public List<String> getLines(int startLine, int endLine) {
-        String[] lines = content.toString().split("\n", -1);
-        
         // 宽容处理
         if (startLine < 1) startLine = 1;
-        if (endLine > lines.length) endLine = lines.length;
+        if (endLine < 1) endLine = 1;
 
         if (startLine > endLine) {
             int t = startLine;
@@ -228,12 +581,115 @@ public class Editor {
             endLine = t;
         }
         List<String> result = new ArrayList<>();
-        for (int i = startLine - 1; i < endLine; i++) {
-            result.add(lines[i]);
-        }
+        forEachLine(startLine, endLine, (lineNumber, line) -> result.add(line.toString()));
         return result;
     }
 
+    /**
+     * 流式遍历 [startLine, endLine] 内的行，直接从缓冲区取出，不复制整个文件
+     * 超出文件末尾的部分会被忽略
+     * @param startLine 起始行（从 1 开始）
+     * @param endLine 结束行（包含）
+     * @param visitor 行访问器
+     * @return 实际访问到的最后一行行号，若一行都没访问到则返回 startLine - 1
+     */
+    public int forEachLine(int startLine, int endLine, LineVisitor visitor) {
+        if (startLine < 1) startLine = 1;
+        Utf8Text text = buffer();
+        int length = text.length();
+
+        int offset = text.lineStart(startLine);
+        if (offset < 0) {
+            return startLine - 1;  // 起始行超出文件末尾
+        }
+
+        int lineNumber = startLine;
+        int lastVisited = startLine - 1;
+        while (lineNumber <= endLine) {
+            int newline = text.indexOf('\n', offset);
+            int lineEnd = newline < 0 ? length : newline;
+            lastVisited = lineNumber;
+            if (!visitor.visit(lineNumber, text.subSequence(offset, lineEnd)) || newline < 0) {
+                break;
+            }
+            offset = newline + 1;
+            lineNumber++;
+        }
+        return lastVisited;
+    }
+
+    /**
+     * 获取某一行行首的字符偏移（由内容缓冲区的行索引给出，编辑后只重建编辑位置之后的部分）
+     * @param line 行号（从 1 开始）
+     * @return 行首偏移，行号超出文件末尾时返回 -1
+     */
+    public int getLineOffset(int line) {
+        return buffer().lineStart(line);
+    }
+
+    /**
+     * 获取某一行行尾（换行符之前）的字符偏移
+     * @param line 行号（从 1 开始）
+     * @return 行尾偏移，行号超出文件末尾时返回 -1
+     */
+    public int getLineEndOffset(int line) {
+        int start = getLineOffset(line);
+        if (start < 0) {
+            return -1;
+        }
+        int newline = buffer().indexOf('\n', start);
+        return newline < 0 ? buffer().length() : newline;
+    }
+
+    /**
+     * 按字符偏移替换一段内容（用于一次性应用多处修改）
+     * @param start 起始偏移（包含）
+     * @param end 结束偏移（不包含）
+     * @param text 新内容
+     * @throws IllegalArgumentException 如果范围无效
+     */
+    public void replaceRange(int start, int end, String text) throws IllegalArgumentException {
+        if (start < 0 || end < start || end > buffer().length()) {
+            throw new IllegalArgumentException(
+                "Range [" + start + ", " + end + ") out of bounds for content length " + buffer().length()
+            );
+        }
+        edit(start, end, text);
+    }
+
+    /**
+     * 一次写回 TextPatch 重建的区域 [start, end)，不把整段旧文本记入修改日志：
+     * 区域内大部分文本没有变化，由 TextPatch 通过 journalEdit 逐处记录真正的修改
+     */
+    void replaceRegion(int start, int end, String text) throws IllegalArgumentException {
+        Utf8Text buf = buffer();
+        if (start < 0 || end < start || end > buf.length()) {
+            throw new IllegalArgumentException(
+                "Range [" + start + ", " + end + ") out of bounds for content length " + buf.length()
+            );
+        }
+        buf.replace(start, end, text);
+        markModified();
+    }
+
+    /**
+     * 把一处已经写入缓冲区的修改记入修改日志，没有在记录时忽略
+     * @param offset 按修改顺序逐处应用时，这处修改所在的偏移
+     */
+    void journalEdit(int offset, CharSequence oldValue, CharSequence newValue) {
+        if (journal != null) {
+            journal.record(offset, oldValue, newValue);
+        }
+    }
+
+    public int getPageCursor() {
+        return pageCursor;
+    }
+
+    public void setPageCursor(int pageCursor) {
+        this.pageCursor = Math.max(1, pageCursor);
+    }
+
     /**
      * 给append用的未包装版本
      * @param start
@@ -241,8 +697,7 @@ public class Editor {
      */
     public void delete(int start, int end) {
         try {
-            content.delete(start, end);
-            markModified();
+            edit(start, Math.min(end, buffer().length()), "");
         } catch (StringIndexOutOfBoundsException e) {
             System.err.println("Delete failed: " + e.getMessage());
             throw e;
@@ -250,7 +705,15 @@ public class Editor {
     }
 
     public String getContent() {
-        return content.toString();
+        return buffer().toString();
+    }
+
+    /**
+     * 获取内容的只读视图（不复制），供搜索等只读遍历使用
+     * 视图直接引用缓冲区，调用方不能在编辑之后继续持有；缓冲区被释放（关闭、压缩、换出）后访问视图会抛出异常
+     */
+    public CharSequence getContentView() {
+        return buffer();
     }
 
     public String getFilePath() {
@@ -258,7 +721,7 @@ public class Editor {
     }
 
     public int getContentLength() {
-        return content.length();
+        return buffer().length();
     }
 
     public boolean isWithLog() {
@@ -296,23 +759,50 @@ public class Editor {
             throw new IOException("File is not writable: " + filePath);
         }
 
-        // 写入文件
-        try (FileWriter writer = new FileWriter(file)) {
-            writer.write(content.toString());
+        // 写入文件（内容本身就是 UTF-8，直接写出字节）
+        FlightEvents.FileSaveEvent event = new FlightEvents.FileSaveEvent();
+        event.begin();
+        Utf8Text text = buffer();
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            text.writeTo(out.getChannel());
         }
+        event.end();
+        if (event.shouldCommit()) {
+            event.filePath = filePath;
+            event.bytes = text.getByteLength();
+            event.lineCount = text.lineCount();
+            event.commit();
+        }
+
+        recordDiskState(file);
 
         // 清除已修改标记
         this.modified = false;
+
+        if (saveListener != null) {
+            saveListener.accept(this);
+        }
         
         return true;
     }
 
+    public void setSaveListener(Consumer<Editor> saveListener) {
+        this.saveListener = saveListener;
+    }
+
     public LocalDateTime getLastAccessTime() {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(lastAccessTime), ZoneId.systemDefault());
+    }
+
+    /**
+     * @return 最后访问时间（epoch 毫秒）
+     */
+    public long getLastAccessMillis() {
         return lastAccessTime;
     }
 
     public void updateAccessTime() {
-        this.lastAccessTime = LocalDateTime.now();
+        this.lastAccessTime = System.currentTimeMillis();
     }
 
     // ==================== 历史管理方法 ====================
@@ -320,6 +810,29 @@ public class Editor {
     public void addToHistory(Command cmd) {
         history.addCommand(cmd);
     }
+
+    /**
+     * @param delta 命令执行期间记录的修改日志（show --rev 用来重建历史内容）
+     */
+    public void addToHistory(Command cmd, EditJournal delta) {
+        history.addCommand(cmd, delta);
+    }
+
+    /**
+     * 构造某个修订的只读视图，不改动当前内容和历史
+     * @throws IllegalArgumentException 如果修订不存在或无法重建
+     */
+    public RevisionView getRevisionView(int revision) throws IllegalArgumentException {
+        UndoTree.Revision target = history.getRevision(revision);
+        if (target == null) {
+            throw new IllegalArgumentException("No revision " + revision);
+        }
+        RevisionView view = new RevisionView(buffer());
+        if (!history.replayPath(target, view::replace)) {
+            throw new IllegalArgumentException("Revision " + revision + " cannot be reconstructed (no recorded changes)");
+        }
+        return view;
+    }
     
     public void undo() {
         history.undo();
@@ -328,7 +841,35 @@ public class Editor {
     public void redo() {
         history.redo();
     }
-    
+
+    /**
+     * 连续撤销多步，距离远时从检查点恢复
+     */
+    public void undo(int steps) {
+        history.undo(steps);
+    }
+
+    /**
+     * 按时间顺序回到前一个修订（可以跨分支）
+     */
+    public void undoBranch() {
+        history.undoBranch();
+    }
+
+    /**
+     * 按时间顺序前进到后一个修订（可以跨分支）
+     */
+    public void redoBranch() {
+        history.redoBranch();
+    }
+
+    /**
+     * 跳转到指定修订
+     * @return 修订不存在时返回 false
+     */
+    public boolean gotoRevision(int id) {
+        return history.goTo(id);
+    }
 
     public boolean hasUndo() {
         return history.getUndoSize() > 0;
@@ -338,7 +879,7 @@ public class Editor {
         return history.getRedoSize() > 0;
     }
     
-    public CommandHistory getHistory() {
+    public UndoTree getHistory() {
         return history;
     }
 
@@ -0,0 +1,442 @@
+package org.flanVim.editor;
+
+import java.io.PrintStream;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Deque;
+
+/**
+ * LineDiff: 两段文本按行比较（diff 命令、close 提示中查看修改）
+ *
+ * 每行（连同行尾的换行符）只哈希一次，映射成整数编号，相同内容的行共用一个编号；
+ * 编号表是开放寻址的 int 数组，只记录行在原文本中的位置，不为每行创建字符串。
+ * 之后的比较都在两个 int 数组上进行。
+ * 差异用 Myers 算法的线性空间版本计算：先去掉公共前缀/后缀，再反复用"中间蛇"二分，
+ * 子问题放在显式栈里，两个 V 数组只分配一次，内存与行数成线性关系，百万行的文件也不会二次方增长。
+ * Myers 的时间是 O((N+M)·D)，两段文本差别很大时 D 接近行数。与 git (xdiff) 一样给编辑距离设上限：
+ * 一次中间蛇搜索超过 maxCost 步还没有相遇时，取两个方向上走得最远的点作为分割点，
+ * 结果仍是正确的差异，只是在差别很大的区域不一定最短。
+ *
+ * 结果只是两个位图（旧文本中被删除的行、新文本中插入的行），
+ * writeUnified 按需生成 unified diff，每个 hunk 生成完就输出，不会把整个 diff 拼在内存里。
+ * 行内容在输出时才从原文本中取出，所以两段文本在输出完成之前不能修改。
+ */
+public class LineDiff {
+    private final CharSequence[] sources;  // {旧文本, 新文本}
+    private int[] oldLines;   // 旧文本每行的编号
+    private int[] newLines;   // 新文本每行的编号
+    private final BitSet deleted = new BitSet();
+    private final BitSet inserted = new BitSet();
+    private int[] forward;   // 中间蛇搜索用的 V 数组，所有子问题共用
+    private int[] backward;
+    private int maxCost;     // 中间蛇搜索的步数上限，超过后改用启发式分割
+
+    private static final int MIN_COST = 256;  // 步数上限的下限（同 xdiff 的 XDL_MAX_COST_MIN）
+
+    // 编号表：每个不同的行记录它第一次出现的位置（来源、起止偏移，含换行符）和哈希值
+    private byte[] uniqueSource = new byte[64];
+    private int[] uniqueStart = new int[64];
+    private int[] uniqueEnd = new int[64];
+    private int[] uniqueHash = new int[64];
+    private int uniqueCount = 0;
+    private int[] slots = new int[128];  // 开放寻址表，存放 编号 + 1，0 表示空
+
+    private LineDiff(CharSequence oldText, CharSequence newText) {
+        this.sources = new CharSequence[] {oldText, newText};
+    }
+
+    /**
+     * 比较两段文本
+     * @param oldText 旧文本（例如磁盘上的文件）
+     * @param newText 新文本（例如编辑器的内容）
+     */
+    public static LineDiff compare(CharSequence oldText, CharSequence newText) {
+        LineDiff diff = new LineDiff(oldText, newText);
+        diff.oldLines = diff.splitLines(0);
+        diff.newLines = diff.splitLines(1);
+        diff.slots = null;  // 编号完成后不再需要查找表
+        diff.uniqueHash = null;
+        diff.run();
+        return diff;
+    }
+
+    /**
+     * 按 '\n' 切分并把每行映射成编号；以换行结尾时不产生最后的空行
+     */
+    private int[] splitLines(int source) {
+        CharSequence text = sources[source];
+        int[] lines = new int[64];
+        int count = 0;
+        int length = text.length();
+        int start = 0;
+        while (start < length) {
+            int newline = indexOfNewline(text, start);
+            int end = newline < 0 ? length : newline + 1;
+            if (count == lines.length) {
+                lines = Arrays.copyOf(lines, count * 2);
+            }
+            lines[count++] = lineId(source, start, end);
+            start = end;
+        }
+        return Arrays.copyOf(lines, count);
+    }
+
+    /**
+     * 查找或分配一行的编号
+     */
+    private int lineId(int source, int start, int end) {
+        CharSequence text = sources[source];
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + text.charAt(i);
+        }
+        int mask = slots.length - 1;
+        int slot = (hash ^ (hash >>> 16)) * 0x9E3779B1 & mask;
+        while (slots[slot] != 0) {
+            int id = slots[slot] - 1;
+            if (uniqueHash[id] == hash && sameLine(id, text, start, end)) {
+                return id;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        int id = uniqueCount++;
+        if (id == uniqueStart.length) {
+            int capacity = id * 2;
+            uniqueSource = Arrays.copyOf(uniqueSource, capacity);
+            uniqueStart = Arrays.copyOf(uniqueStart, capacity);
+            uniqueEnd = Arrays.copyOf(uniqueEnd, capacity);
+            uniqueHash = Arrays.copyOf(uniqueHash, capacity);
+        }
+        uniqueSource[id] = (byte) source;
+        uniqueStart[id] = start;
+        uniqueEnd[id] = end;
+        uniqueHash[id] = hash;
+        slots[slot] = id + 1;
+        if (uniqueCount * 2 > slots.length) {
+            rehash();
+        }
+        return id;
+    }
+
+    private boolean sameLine(int id, CharSequence text, int start, int end) {
+        int length = end - start;
+        if (uniqueEnd[id] - uniqueStart[id] != length) {
+            return false;
+        }
+        CharSequence other = sources[uniqueSource[id]];
+        int otherStart = uniqueStart[id];
+        for (int i = 0; i < length; i++) {
+            if (text.charAt(start + i) != other.charAt(otherStart + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void rehash() {
+        slots = new int[slots.length * 2];
+        int mask = slots.length - 1;
+        for (int id = 0; id < uniqueCount; id++) {
+            int hash = uniqueHash[id];
+            int slot = (hash ^ (hash >>> 16)) * 0x9E3779B1 & mask;
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = id + 1;
+        }
+    }
+
+    private static int indexOfNewline(CharSequence text, int from) {
+        if (text instanceof Utf8Text) {
+            return ((Utf8Text) text).indexOf('\n', from);
+        }
+        for (int i = from; i < text.length(); i++) {
+            if (text.charAt(i) == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // ==================== Myers 线性空间算法 ====================
+
+    private void run() {
+        int size = 2 * ((oldLines.length + newLines.length + 1) / 2) + 2;
+        forward = new int[size];
+        backward = new int[size];
+        maxCost = Math.max(MIN_COST, (int) Math.sqrt((double) oldLines.length + newLines.length));
+        Deque<int[]> pending = new ArrayDeque<>();
+        pending.push(new int[] {0, oldLines.length, 0, newLines.length});
+        while (!pending.isEmpty()) {
+            int[] range = pending.pop();
+            int aLo = range[0], aHi = range[1], bLo = range[2], bHi = range[3];
+
+            // 去掉公共前缀/后缀
+            while (aLo < aHi && bLo < bHi && oldLines[aLo] == newLines[bLo]) {
+                aLo++;
+                bLo++;
+            }
+            while (aLo < aHi && bLo < bHi && oldLines[aHi - 1] == newLines[bHi - 1]) {
+                aHi--;
+                bHi--;
+            }
+            if (aLo == aHi || bLo == bHi) {
+                deleted.set(aLo, aHi);
+                inserted.set(bLo, bHi);
+                continue;
+            }
+
+            int[] split = middleSnake(aLo, aHi, bLo, bHi);
+            if (split == null || (split[0] == aLo && split[1] == bLo) || (split[0] == aHi && split[1] == bHi)) {
+                // 找不到公共部分：整段删除 + 整段插入
+                deleted.set(aLo, aHi);
+                inserted.set(bLo, bHi);
+                continue;
+            }
+            pending.push(new int[] {aLo, split[0], bLo, split[1]});
+            pending.push(new int[] {split[0], aHi, split[1], bHi});
+        }
+        forward = null;
+        backward = null;
+    }
+
+    /**
+     * 同时从两端搜索最短编辑路径，在路径相遇处把问题一分为二
+     * 搜索超过 maxCost 步时不再等待相遇，改用 heuristicSplit
+     * @return 分割点 {x, y}（绝对行号），找不到时返回 null
+     */
+    private int[] middleSnake(int aLo, int aHi, int bLo, int bHi) {
+        int n = aHi - aLo;
+        int m = bHi - bLo;
+        int maxD = (n + m + 1) / 2;
+        int offset = maxD;
+        int vLength = 2 * maxD + 2;
+        Arrays.fill(forward, 0, vLength, -1);
+        Arrays.fill(backward, 0, vLength, -1);
+        forward[offset + 1] = 0;
+        backward[offset + 1] = 0;
+        int delta = n - m;
+        boolean odd = (delta & 1) != 0;  // 奇数时在正向搜索中检查相遇，偶数时在反向搜索中
+        int k1Start = 0, k1End = 0, k2Start = 0, k2End = 0;
+
+        for (int d = 0; d < maxD; d++) {
+            if (d > maxCost) {
+                return heuristicSplit(aLo, aHi, bLo, bHi, d - 1, offset, k1Start, k1End, k2Start, k2End);
+            }
+            for (int k1 = -d + k1Start; k1 <= d - k1End; k1 += 2) {
+                int k1Offset = offset + k1;
+                int x1 = (k1 == -d || (k1 != d && forward[k1Offset - 1] < forward[k1Offset + 1]))
+                        ? forward[k1Offset + 1] : forward[k1Offset - 1] + 1;
+                int y1 = x1 - k1;
+                while (x1 < n && y1 < m && oldLines[aLo + x1] == newLines[bLo + y1]) {
+                    x1++;
+                    y1++;
+                }
+                forward[k1Offset] = x1;
+                if (x1 > n) {
+                    k1End += 2;      // 越过右边界
+                } else if (y1 > m) {
+                    k1Start += 2;    // 越过下边界
+                } else if (odd) {
+                    int k2Offset = offset + delta - k1;
+                    if (k2Offset >= 0 && k2Offset < vLength && backward[k2Offset] != -1
+                            && x1 >= n - backward[k2Offset]) {
+                        return new int[] {aLo + x1, bLo + y1};
+                    }
+                }
+            }
+            for (int k2 = -d + k2Start; k2 <= d - k2End; k2 += 2) {
+                int k2Offset = offset + k2;
+                int x2 = (k2 == -d || (k2 != d && backward[k2Offset - 1] < backward[k2Offset + 1]))
+                        ? backward[k2Offset + 1] : backward[k2Offset - 1] + 1;
+                int y2 = x2 - k2;
+                while (x2 < n && y2 < m && oldLines[aHi - 1 - x2] == newLines[bHi - 1 - y2]) {
+                    x2++;
+                    y2++;
+                }
+                backward[k2Offset] = x2;
+                if (x2 > n) {
+                    k2End += 2;
+                } else if (y2 > m) {
+                    k2Start += 2;
+                } else if (!odd) {
+                    int k1Offset = offset + delta - k2;
+                    if (k1Offset >= 0 && k1Offset < vLength && forward[k1Offset] != -1) {
+                        int x1 = forward[k1Offset];
+                        int y1 = offset + x1 - k1Offset;
+                        if (x1 >= n - x2) {
+                            return new int[] {aLo + x1, bLo + y1};
+                        }
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 步数超过上限时的分割点：正向搜索中 x + y 最大的点，或反向搜索中离终点最远的点，取走得更远的一个
+     * 两个点都在从起点（或到终点）的合法编辑路径上，分割后的两个子问题都比原问题小
+     * @param d 最后一轮完成的步数
+     */
+    private int[] heuristicSplit(int aLo, int aHi, int bLo, int bHi, int d, int offset,
+                                 int k1Start, int k1End, int k2Start, int k2End) {
+        int n = aHi - aLo;
+        int m = bHi - bLo;
+        int bestForward = -1;
+        int forwardX = 0, forwardY = 0;
+        for (int k1 = -d + k1Start; k1 <= d - k1End; k1 += 2) {
+            int x1 = Math.min(forward[offset + k1], n);
+            int y1 = x1 - k1;
+            if (y1 < 0 || y1 > m) {
+                continue;
+            }
+            if (x1 + y1 > bestForward) {
+                bestForward = x1 + y1;
+                forwardX = x1;
+                forwardY = y1;
+            }
+        }
+        int bestBackward = -1;
+        int backwardX = 0, backwardY = 0;
+        for (int k2 = -d + k2Start; k2 <= d - k2End; k2 += 2) {
+            int x2 = Math.min(backward[offset + k2], n);
+            int y2 = x2 - k2;
+            if (y2 < 0 || y2 > m) {
+                continue;
+            }
+            if (x2 + y2 > bestBackward) {
+                bestBackward = x2 + y2;
+                backwardX = x2;
+                backwardY = y2;
+            }
+        }
+        if (bestForward < 0 && bestBackward < 0) {
+            return null;
+        }
+        if (bestForward >= bestBackward) {
+            return new int[] {aLo + forwardX, bLo + forwardY};
+        }
+        return new int[] {aHi - backwardX, bHi - backwardY};
+    }
+
+    // ==================== 结果 ====================
+
+    public boolean isEmpty() {
+        return deleted.isEmpty() && inserted.isEmpty();
+    }
+
+    public int getDeletedCount() {
+        return deleted.cardinality();
+    }
+
+    public int getInsertedCount() {
+        return inserted.cardinality();
+    }
+
+    /**
+     * 输出 unified diff，每个 hunk 生成完立即写出
+     * @param oldLabel --- 行的名字
+     * @param newLabel +++ 行的名字
+     * @param context 每个 hunk 前后保留的上下文行数
+     * @return 输出的 hunk 数
+     */
+    public int writeUnified(String oldLabel, String newLabel, int context, PrintStream out) {
+        if (isEmpty()) {
+            return 0;
+        }
+        out.println("--- " + oldLabel);
+        out.println("+++ " + newLabel);
+
+        int n = oldLines.length;
+        int m = newLines.length;
+        int hunks = 0;
+        StringBuilder hunk = new StringBuilder();
+        boolean open = false;
+        int hunkOld = 0, hunkNew = 0;      // hunk 起始行（从 0 开始）
+        int oldCount = 0, newCount = 0;    // hunk 覆盖的行数
+        int common = 0;                    // 上一处修改之后连续的相同行数
+        int i = 0, j = 0;
+        while (i < n || j < m) {
+            boolean del = i < n && deleted.get(i);
+            boolean ins = !del && j < m && inserted.get(j);
+            if (del || ins) {
+                int lead = open ? common : Math.min(context, common);
+                if (!open) {
+                    open = true;
+                    hunkOld = i - lead;
+                    hunkNew = j - lead;
+                    oldCount = 0;
+                    newCount = 0;
+                }
+                for (int k = i - lead; k < i; k++) {
+                    appendLine(hunk, ' ', oldLines[k]);
+                }
+                oldCount += lead;
+                newCount += lead;
+                common = 0;
+                if (del) {
+                    appendLine(hunk, '-', oldLines[i++]);
+                    oldCount++;
+                } else {
+                    appendLine(hunk, '+', newLines[j++]);
+                    newCount++;
+                }
+                continue;
+            }
+            i++;
+            j++;
+            common++;
+            if (open && common > 2 * context) {
+                // 相同行足够多：带上 context 行后关闭当前 hunk
+                for (int k = i - common; k < i - common + context; k++) {
+                    appendLine(hunk, ' ', oldLines[k]);
+                }
+                oldCount += context;
+                newCount += context;
+                flushHunk(out, hunk, hunkOld, oldCount, hunkNew, newCount);
+                hunks++;
+                open = false;
+            }
+        }
+        if (open) {
+            int tail = Math.min(context, common);
+            for (int k = i - common; k < i - common + tail; k++) {
+                appendLine(hunk, ' ', oldLines[k]);
+            }
+            flushHunk(out, hunk, hunkOld, oldCount + tail, hunkNew, newCount + tail);
+            hunks++;
+        }
+        out.flush();
+        return hunks;
+    }
+
+    private void appendLine(StringBuilder hunk, char prefix, int id) {
+        CharSequence text = sources[uniqueSource[id]];
+        int start = uniqueStart[id];
+        int end = uniqueEnd[id];
+        hunk.append(prefix).append(text, start, end);
+        if (end == start || text.charAt(end - 1) != '\n') {
+            hunk.append("\n\\ No newline at end of file\n");
+        }
+    }
+
+    private static void flushHunk(PrintStream out, StringBuilder hunk, int oldStart, int oldCount,
+                                  int newStart, int newCount) {
+        out.print("@@ -" + range(oldStart, oldCount) + " +" + range(newStart, newCount) + " @@\n");
+        out.print(hunk);
+        hunk.setLength(0);
+    }
+
+    /**
+     * unified diff 的行范围：从 1 开始，行数为 1 时省略，行数为 0 时起始行指向前一行
+     */
+    private static String range(int start, int count) {
+        if (count == 1) {
+            return String.valueOf(start + 1);
+        }
+        return (count == 0 ? start : start + 1) + "," + count;
+    }
+}
@@ -0,0 +1,93 @@
+package org.flanVim.editor;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * OffHeapMemory: 大缓冲区的堆外内存分配与释放
+ *
+ * 超过阈值的 Utf8Text 使用 direct ByteBuffer 存放内容，GC 不扫描也不复制这部分内存，
+ * 打开多大的文件都不会拉长 GC 停顿。
+ * 释放是显式的：Editor 关闭（WorkSpace.removeEditor）、扩容、换出时立即归还内存，
+ * 而不是等 ByteBuffer 对象被回收后由 Cleaner 释放。
+ * 共享同一块内存的字节视图由 Utf8Text 登记（pinBytes），仍有视图时推迟到最后一个视图结束再释放。
+ *
+ * 阈值通过 -Dflanvim.offHeapThresholdMB=<n> 设置（默认 16MB，0 表示全部放在堆外，负数表示禁用）。
+ */
+public final class OffHeapMemory {
+    private static final long THRESHOLD = thresholdBytes();
+    private static final AtomicLong allocated = new AtomicLong();
+    private static final Method INVOKE_CLEANER;
+    private static final Object UNSAFE;
+
+    static {
+        // sun.misc.Unsafe.invokeCleaner 立即释放 direct buffer；不可用时退回到等 GC 释放
+        Method method = null;
+        Object unsafe = null;
+        try {
+            Class<?> type = Class.forName("sun.misc.Unsafe");
+            Field field = type.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            unsafe = field.get(null);
+            method = type.getMethod("invokeCleaner", ByteBuffer.class);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            method = null;
+            unsafe = null;
+        }
+        INVOKE_CLEANER = method;
+        UNSAFE = unsafe;
+    }
+
+    private OffHeapMemory() {}
+
+    private static long thresholdBytes() {
+        long mb = Long.getLong("flanvim.offHeapThresholdMB", 16L);
+        return mb < 0 ? Long.MAX_VALUE : mb * 1024 * 1024;
+    }
+
+    /**
+     * @return 指定容量的缓冲区是否应该放在堆外
+     */
+    static boolean shouldUse(long capacity) {
+        return capacity >= THRESHOLD;
+    }
+
+    /**
+     * 按容量分配缓冲区：达到阈值时在堆外分配，否则在堆上
+     */
+    static ByteBuffer allocate(int capacity) {
+        if (!shouldUse(capacity)) {
+            return ByteBuffer.allocate(capacity);
+        }
+        ByteBuffer buffer = ByteBuffer.allocateDirect(capacity);
+        allocated.addAndGet(capacity);
+        return buffer;
+    }
+
+    /**
+     * 立即释放堆外缓冲区（堆上的缓冲区忽略）
+     * 调用后不能再访问该缓冲区和它的任何视图，调用方负责确认没有仍在使用的视图
+     */
+    static void free(ByteBuffer buffer) {
+        if (buffer == null || !buffer.isDirect()) {
+            return;
+        }
+        allocated.addAndGet(-buffer.capacity());
+        if (INVOKE_CLEANER != null) {
+            try {
+                INVOKE_CLEANER.invoke(UNSAFE, buffer);
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                // 无法立即释放，等 GC 回收
+            }
+        }
+    }
+
+    /**
+     * @return 当前在堆外分配的字节数
+     */
+    public static long getAllocatedBytes() {
+        return allocated.get();
+    }
+}
@@ -0,0 +1,188 @@
+package org.flanVim.editor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * RegexReplacer: 一遍扫描收集正则替换，生成 TextPatch
+ *
+ * 不可变、线程安全，可以在多个线程中对不同的内容同时使用
+ */
+public class RegexReplacer {
+    private final Pattern pattern;
+    private final List<Part> replacement;
+    private final boolean global;
+
+    /**
+     * 替换串中的一段：字面文本、分组编号或分组名，三者只有一个有效
+     */
+    private static final class Part {
+        final String literal;
+        final int group;
+        final String name;
+
+        Part(String literal, int group, String name) {
+            this.literal = literal;
+            this.group = group;
+            this.name = name;
+        }
+    }
+
+    /**
+     * @param regex 正则表达式
+     * @param replacement 替换串，语法与 Matcher.appendReplacement 相同：
+     *                    $n、${name} 引用分组，\ 转义下一个字符
+     * @param global 是否替换每行的所有匹配（否则每行只替换第一个）
+     * @param ignoreCase 是否忽略大小写
+     * @throws java.util.regex.PatternSyntaxException 如果正则语法错误
+     * @throws IllegalArgumentException 如果替换串语法错误或引用了不存在的分组编号
+     */
+    public RegexReplacer(String regex, String replacement, boolean global, boolean ignoreCase) {
+        this.pattern = Pattern.compile(regex, Pattern.MULTILINE | (ignoreCase ? Pattern.CASE_INSENSITIVE : 0));
+        this.replacement = parseReplacement(replacement != null ? replacement : "",
+                pattern.matcher("").groupCount());
+        this.global = global;
+    }
+
+    public Pattern getPattern() {
+        return pattern;
+    }
+
+    /**
+     * 在 [regionStart, regionEnd) 范围内收集所有替换
+     * @param content 内容
+     * @param regionStart 起始偏移
+     * @param regionEnd 结束偏移
+     * @return 替换组成的 TextPatch，没有匹配时为空
+     * @throws IllegalArgumentException 如果替换串引用了不存在的分组名
+     */
+    public TextPatch collect(CharSequence content, int regionStart, int regionEnd) throws IllegalArgumentException {
+        Matcher matcher = pattern.matcher(content);
+        matcher.region(regionStart, regionEnd);
+        TextPatch result = new TextPatch();
+        StringBuilder expanded = new StringBuilder();
+        int lastLineEnd = -1;  // 上一次替换所在行的行尾
+        while (matcher.find()) {
+            int start = matcher.start();
+            if (start <= lastLineEnd) {
+                if (!global) {
+                    // 非全局模式：每行只替换第一个匹配，跳到下一行继续
+                    if (lastLineEnd >= regionEnd) {
+                        break;
+                    }
+                    matcher.region(lastLineEnd + 1, regionEnd);
+                    continue;
+                }
+            } else {
+                lastLineEnd = indexOfNewline(content, start, regionEnd);
+            }
+            expanded.setLength(0);
+            appendReplacement(matcher, expanded);
+            result.add(start, content.subSequence(start, matcher.end()), expanded);
+        }
+        return result;
+    }
+
+    /**
+     * 按 Matcher.appendReplacement 的规则解析替换串
+     * 分组编号在这里检查（与 Matcher 一样尽可能多读数字，只要分组存在）；
+     * 分组名在第一次展开时由 Matcher.group(name) 检查
+     */
+    private static List<Part> parseReplacement(String replacement, int groupCount) {
+        List<Part> parts = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+        int i = 0;
+        while (i < replacement.length()) {
+            char c = replacement.charAt(i++);
+            if (c == '\\') {
+                if (i == replacement.length()) {
+                    throw new IllegalArgumentException("Character to be escaped is missing in replacement");
+                }
+                literal.append(replacement.charAt(i++));
+                continue;
+            }
+            if (c != '$') {
+                literal.append(c);
+                continue;
+            }
+            if (i == replacement.length()) {
+                throw new IllegalArgumentException("Illegal group reference: group index is missing");
+            }
+            if (literal.length() > 0) {
+                parts.add(new Part(literal.toString(), -1, null));
+                literal.setLength(0);
+            }
+            c = replacement.charAt(i++);
+            if (c == '{') {
+                int close = i;
+                while (close < replacement.length() && isAsciiLetterOrDigit(replacement.charAt(close))) {
+                    close++;
+                }
+                if (close == replacement.length() || replacement.charAt(close) != '}') {
+                    throw new IllegalArgumentException("Named group reference is missing trailing '}'");
+                }
+                String name = replacement.substring(i, close);
+                if (name.isEmpty() || Character.isDigit(name.charAt(0))) {
+                    throw new IllegalArgumentException("Illegal group name: {" + name + "}");
+                }
+                parts.add(new Part(null, -1, name));
+                i = close + 1;
+            } else if (c >= '0' && c <= '9') {
+                int group = c - '0';
+                if (group > groupCount) {
+                    throw new IllegalArgumentException("No group " + group + " in pattern");
+                }
+                while (i < replacement.length() && replacement.charAt(i) >= '0' && replacement.charAt(i) <= '9') {
+                    int next = group * 10 + (replacement.charAt(i) - '0');
+                    if (next > groupCount) {
+                        break;
+                    }
+                    group = next;
+                    i++;
+                }
+                parts.add(new Part(null, group, null));
+            } else {
+                throw new IllegalArgumentException("Illegal group reference: $" + c);
+            }
+        }
+        if (literal.length() > 0) {
+            parts.add(new Part(literal.toString(), -1, null));
+        }
+        return parts;
+    }
+
+    private static boolean isAsciiLetterOrDigit(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9');
+    }
+
+    /**
+     * 展开当前匹配的替换串，没有参与匹配的分组展开为空串
+     * @throws IllegalArgumentException 如果引用的分组名不存在
+     */
+    private void appendReplacement(Matcher matcher, StringBuilder out) {
+        for (Part part : replacement) {
+            String value;
+            if (part.literal != null) {
+                value = part.literal;
+            } else if (part.name != null) {
+                value = matcher.group(part.name);
+            } else {
+                value = matcher.group(part.group);
+            }
+            if (value != null) {
+                out.append(value);
+            }
+        }
+    }
+
+    private static int indexOfNewline(CharSequence content, int from, int end) {
+        for (int i = from; i < end; i++) {
+            if (content.charAt(i) == '\n') {
+                return i;
+            }
+        }
+        return end;
+    }
+}
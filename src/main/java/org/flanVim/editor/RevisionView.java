@@ -0,0 +1,307 @@
+package org.flanVim.editor;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * RevisionView: 某个历史修订的只读内容视图（show --rev）
+ *
+ * 从当前缓冲区出发，按撤销树上的路径把各条命令的修改日志反向/正向"应用"到一个片段表上：
+ * 未改动的区域直接引用当前缓冲区，只有被改动的地方才是日志里的文本片段。
+ * 构造视图不修改 Editor 和它的历史，占用的内存只与路径上的修改量有关，与文件大小无关。
+ *
+ * 视图引用当前缓冲区，不能在 Editor 被再次编辑之后继续使用。
+ */
+public class RevisionView implements CharSequence {
+    private Node root;
+    private int length;
+    private int seed = 0x2545F491;  // 节点优先级的伪随机序列（xorshift），同样的修改得到同样的树
+    private Piece cached;       // 最近一次 charAt 定位到的片段，顺序访问同一片段时不必从根查找
+    private int cachedPos = -1; // 该片段在视图中的起始位置
+
+    /**
+     * 引用某个来源文本的一段
+     */
+    private static final class Piece {
+        final CharSequence source;
+        final int start;
+        final int length;
+
+        Piece(CharSequence source, int start, int length) {
+            this.source = source;
+            this.start = start;
+            this.length = length;
+        }
+    }
+
+    /**
+     * 片段表按视图中的顺序组织成隐式 treap：按中序排列，以子树的总长度定位。
+     * 定位、切分和替换都是 O(log 片段数)，反向应用很多条修改时总代价不会随片段数平方增长。
+     */
+    private static final class Node {
+        Piece piece;
+        final int priority;
+        Node left;
+        Node right;
+        int total;  // 子树中所有片段的总长度
+        int count;  // 子树中的片段数
+
+        Node(Piece piece, int priority) {
+            this.piece = piece;
+            this.priority = priority;
+            update();
+        }
+
+        void update() {
+            total = piece.length + total(left) + total(right);
+            count = 1 + count(left) + count(right);
+        }
+    }
+
+    RevisionView(CharSequence base) {
+        length = base.length();
+        if (length > 0) {
+            root = newNode(new Piece(base, 0, length));
+        }
+    }
+
+    /**
+     * 用 text 替换视图中的 [start, end)，只改片段表不复制内容
+     * @throws IllegalArgumentException 如果范围越界（日志与内容对不上）
+     */
+    void replace(int start, int end, CharSequence text) {
+        if (start < 0 || end < start || end > length) {
+            throw new IllegalArgumentException(
+                "Range [" + start + ", " + end + ") out of bounds for revision length " + length
+            );
+        }
+        Node[] head = split(root, start);
+        Node[] tail = split(head[1], end - start);
+        Node middle = text.length() > 0 ? newNode(new Piece(text, 0, text.length())) : null;
+        root = merge(head[0], merge(middle, tail[1]));
+        length += text.length() - (end - start);
+        cached = null;
+    }
+
+    private Node newNode(Piece piece) {
+        seed ^= seed << 13;
+        seed ^= seed >>> 17;
+        seed ^= seed << 5;
+        return new Node(piece, seed);
+    }
+
+    private static int total(Node node) {
+        return node == null ? 0 : node.total;
+    }
+
+    private static int count(Node node) {
+        return node == null ? 0 : node.count;
+    }
+
+    /**
+     * 把子树按位置切成 [0, position) 和 [position, total) 两棵，必要时把一个片段切成两段
+     * @return 长度为 2 的数组：左子树、右子树
+     */
+    private Node[] split(Node node, int position) {
+        Piece[] rest = new Piece[1];
+        Node[] parts = split(node, position, rest);
+        if (rest[0] != null) {
+            // 切出来的后半段作为新节点并入右子树的最前面：新节点的优先级是随机的，
+            // 只能由 merge 从右子树的根开始放到合适的位置，不能直接挂在递归中途的节点下
+            parts[1] = merge(newNode(rest[0]), parts[1]);
+        }
+        return parts;
+    }
+
+    /**
+     * @param rest 切点落在某个片段中间时，存放该片段的后半段（前半段留在原节点）
+     */
+    private static Node[] split(Node node, int position, Piece[] rest) {
+        if (node == null) {
+            return new Node[] {null, null};
+        }
+        int leftTotal = total(node.left);
+        if (position <= leftTotal) {
+            Node[] parts = split(node.left, position, rest);
+            node.left = parts[1];
+            node.update();
+            return new Node[] {parts[0], node};
+        }
+        int pieceEnd = leftTotal + node.piece.length;
+        if (position < pieceEnd) {
+            Piece piece = node.piece;
+            int cut = position - leftTotal;
+            node.piece = new Piece(piece.source, piece.start, cut);
+            rest[0] = new Piece(piece.source, piece.start + cut, piece.length - cut);
+        }
+        Node[] parts = split(node.right, position - pieceEnd, rest);
+        node.right = parts[0];
+        node.update();
+        return new Node[] {node, parts[1]};
+    }
+
+    /**
+     * 合并两棵树，a 中的片段全部排在 b 之前
+     */
+    private static Node merge(Node a, Node b) {
+        if (a == null) {
+            return b;
+        }
+        if (b == null) {
+            return a;
+        }
+        if (a.priority > b.priority) {
+            a.right = merge(a.right, b);
+            a.update();
+            return a;
+        }
+        b.left = merge(a, b.left);
+        b.update();
+        return b;
+    }
+
+    /**
+     * 找到包含 position 的片段，结果记在 cached/cachedPos 中
+     */
+    private Piece locate(int position) {
+        if (cached != null && position >= cachedPos && position < cachedPos + cached.length) {
+            return cached;
+        }
+        Node node = root;
+        int pos = 0;
+        while (true) {
+            int leftTotal = total(node.left);
+            if (position < pos + leftTotal) {
+                node = node.left;
+            } else if (position < pos + leftTotal + node.piece.length) {
+                cached = node.piece;
+                cachedPos = pos + leftTotal;
+                return cached;
+            } else {
+                pos += leftTotal + node.piece.length;
+                node = node.right;
+            }
+        }
+    }
+
+    /**
+     * 按视图顺序遍历片段，从包含 from 的片段开始（from 不小于视图长度时不遍历）
+     * 先从根下行到起始片段，把之后要访问的祖先压栈，再按中序依次弹出
+     */
+    private void forEachPiece(int from, PieceVisitor visitor) {
+        Deque<Node> stack = new ArrayDeque<>();
+        Node node = root;
+        int pos = 0;
+        while (node != null) {
+            int leftTotal = total(node.left);
+            if (from < pos + leftTotal) {
+                stack.push(node);  // 起始片段在左子树中，本节点之后访问
+                node = node.left;
+            } else if (from < pos + leftTotal + node.piece.length) {
+                stack.push(node);
+                pos += leftTotal;
+                break;
+            } else {
+                pos += leftTotal + node.piece.length;
+                node = node.right;
+            }
+        }
+        while (!stack.isEmpty()) {
+            Node current = stack.pop();
+            if (!visitor.visit(current.piece, pos)) {
+                return;
+            }
+            pos += current.piece.length;
+            for (Node n = current.right; n != null; n = n.left) {
+                stack.push(n);
+            }
+        }
+    }
+
+    private interface PieceVisitor {
+        boolean visit(Piece piece, int position);
+    }
+
+    /**
+     * @return 片段数，反映与当前缓冲区的差异程度
+     */
+    public int getPieceCount() {
+        return count(root);
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index < 0 || index >= length) {
+            throw new StringIndexOutOfBoundsException("index " + index + ", length " + length);
+        }
+        Piece piece = locate(index);
+        return piece.source.charAt(piece.start + index - cachedPos);
+    }
+
+    @Override
+    public String subSequence(int start, int end) {
+        if (start < 0 || end > length || start > end) {
+            throw new StringIndexOutOfBoundsException("begin " + start + ", end " + end + ", length " + length);
+        }
+        if (start == end) {
+            return "";
+        }
+        StringBuilder out = new StringBuilder(end - start);
+        forEachPiece(start, (piece, pos) -> {
+            int from = Math.max(start, pos) - pos;
+            int to = Math.min(end, pos + piece.length) - pos;
+            out.append(piece.source, piece.start + from, piece.start + to);
+            return pos + piece.length < end;
+        });
+        return out.toString();
+    }
+
+    @Override
+    public String toString() {
+        return subSequence(0, length);
+    }
+
+    /**
+     * 流式遍历 [startLine, endLine] 内的行，行为与 Editor.forEachLine 相同
+     * @return 实际访问到的最后一行行号，若一行都没访问到则返回 startLine - 1
+     */
+    public int forEachLine(int startLine, int endLine, Editor.LineVisitor visitor) {
+        int first = Math.max(1, startLine);
+        int[] lineNumber = {1};
+        int[] lastVisited = {first - 1};
+        boolean[] stopped = {false};
+        StringBuilder line = new StringBuilder();
+        forEachPiece(0, (piece, pos) -> {
+            int end = piece.start + piece.length;
+            for (int i = piece.start; i < end; i++) {
+                char c = piece.source.charAt(i);
+                if (c != '\n') {
+                    if (lineNumber[0] >= first) {
+                        line.append(c);
+                    }
+                    continue;
+                }
+                if (lineNumber[0] >= first) {
+                    lastVisited[0] = lineNumber[0];
+                    if (!visitor.visit(lineNumber[0], line) || lineNumber[0] >= endLine) {
+                        stopped[0] = true;
+                        return false;
+                    }
+                    line.setLength(0);
+                }
+                lineNumber[0]++;
+            }
+            return true;
+        });
+        if (!stopped[0] && lineNumber[0] >= first && lineNumber[0] <= endLine) {
+            lastVisited[0] = lineNumber[0];
+            visitor.visit(lineNumber[0], line);  // 最后一行（不以换行结尾，可能为空）
+        }
+        return lastVisited[0];
+    }
+}
@@ -0,0 +1,181 @@
+package org.flanVim.editor;
+
+import java.util.Arrays;
+
+/**
+ * TextPatch: 一组按位置排序、互不重叠的文本修改，作为一个整体应用和撤销
+ *
+ * 每处修改记录原内容中的偏移、被替换的旧文本和新文本。
+ * 所有旧文本/新文本分别拼接在一个 StringBuilder 中，位置和长度存放在 int 数组里，
+ * 10 万处修改也只占几个数组，而不是 10 万个命令对象。
+ *
+ * apply/revert 都只扫描一遍受影响的区域，然后对 Editor 做一次替换；
+ * 修改日志（撤销树、事务）按每处修改分别记录，占用与修改量成正比，而不是与区域大小成正比。
+ */
+public class TextPatch {
+    private int[] offsets = new int[16];   // 修改在原内容中的偏移（递增）
+    private int[] oldLengths = new int[16];
+    private int[] newLengths = new int[16];
+    private final StringBuilder oldText = new StringBuilder();
+    private final StringBuilder newText = new StringBuilder();
+    private int size = 0;
+    private int delta = 0;  // 应用后内容长度的变化
+
+    /**
+     * 追加一处修改，偏移必须不小于上一处修改的结束位置
+     * @param offset 在原内容中的偏移
+     * @param oldValue 被替换的原文本
+     * @param newValue 新文本
+     * @throws IllegalArgumentException 如果与前一处修改重叠或顺序错误
+     */
+    public void add(int offset, CharSequence oldValue, CharSequence newValue) throws IllegalArgumentException {
+        if (size > 0 && offset < offsets[size - 1] + oldLengths[size - 1]) {
+            throw new IllegalArgumentException(
+                "Edit at offset " + offset + " overlaps the previous edit at offset " + offsets[size - 1]
+            );
+        }
+        if (size == offsets.length) {
+            int capacity = size * 2;
+            offsets = Arrays.copyOf(offsets, capacity);
+            oldLengths = Arrays.copyOf(oldLengths, capacity);
+            newLengths = Arrays.copyOf(newLengths, capacity);
+        }
+        offsets[size] = offset;
+        oldLengths[size] = oldValue.length();
+        newLengths[size] = newValue.length();
+        oldText.append(oldValue);
+        newText.append(newValue);
+        delta += newValue.length() - oldValue.length();
+        size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @return 应用后内容长度的变化量
+     */
+    public int getDelta() {
+        return delta;
+    }
+
+    /**
+     * 记录占用的字符数（旧文本 + 新文本），用于统计
+     */
+    public int getStoredChars() {
+        return oldText.length() + newText.length();
+    }
+
+    /**
+     * 在原内容上应用全部修改
+     */
+    public void apply(Editor editor) {
+        rewrite(editor, false);
+    }
+
+    /**
+     * 在应用后的内容上撤销全部修改
+     */
+    public void revert(Editor editor) {
+        rewrite(editor, true);
+    }
+
+    /**
+     * 检查 Editor 当前内容中每处修改的位置上仍是原文本，即 apply 仍然有效
+     */
+    public boolean canApply(Editor editor) {
+        return matches(editor, false);
+    }
+
+    /**
+     * 检查 Editor 当前内容中每处修改的位置上仍是新文本，即 revert 仍然有效
+     * 应用之后内容又被其他修改改动过时返回 false
+     */
+    public boolean canRevert(Editor editor) {
+        return matches(editor, true);
+    }
+
+    private boolean matches(Editor editor, boolean inverse) {
+        CharSequence content = editor.getContentView();
+        StringBuilder fromText = inverse ? newText : oldText;
+        int[] fromLengths = inverse ? newLengths : oldLengths;
+        int shift = 0;
+        int fromPos = 0;
+        for (int i = 0; i < size; i++) {
+            int start = offsets[i] + shift;
+            int length = fromLengths[i];
+            if (start + length > content.length()) {
+                return false;
+            }
+            for (int k = 0; k < length; k++) {
+                if (content.charAt(start + k) != fromText.charAt(fromPos + k)) {
+                    return false;
+                }
+            }
+            fromPos += length;
+            if (inverse) {
+                shift += newLengths[i] - oldLengths[i];
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 单遍重建受影响的区域并一次性写回
+     * @param inverse false 表示原内容 -> 新内容，true 表示新内容 -> 原内容
+     */
+    private void rewrite(Editor editor, boolean inverse) {
+        if (size == 0) {
+            return;
+        }
+        CharSequence content = editor.getContentView();
+        StringBuilder toText = inverse ? oldText : newText;
+        int[] fromLengths = inverse ? newLengths : oldLengths;
+        int[] toLengths = inverse ? oldLengths : newLengths;
+
+        int regionStart = offsets[0];
+        int shift = 0;  // 当前坐标系下相对原内容的偏移量（仅 inverse 时使用）
+        int cursor = regionStart;
+        int toPos = 0;
+        StringBuilder region = new StringBuilder();
+        for (int i = 0; i < size; i++) {
+            int start = offsets[i] + shift;
+            region.append(content, cursor, start);
+            region.append(toText, toPos, toPos + toLengths[i]);
+            cursor = start + fromLengths[i];
+            toPos += toLengths[i];
+            if (inverse) {
+                shift += newLengths[i] - oldLengths[i];
+            }
+        }
+        editor.replaceRegion(regionStart, cursor, region.toString());
+        journal(editor, inverse);
+    }
+
+    /**
+     * 把每处修改按顺序记入 Editor 的修改日志：偏移是前面的修改都已完成时的位置
+     */
+    private void journal(Editor editor, boolean inverse) {
+        int shift = 0;
+        int oldPos = 0;
+        int newPos = 0;
+        for (int i = 0; i < size; i++) {
+            CharSequence oldValue = oldText.subSequence(oldPos, oldPos + oldLengths[i]);
+            CharSequence newValue = newText.subSequence(newPos, newPos + newLengths[i]);
+            if (inverse) {
+                // 前面的修改撤销后恢复原长度，这处修改仍在原内容中的偏移
+                editor.journalEdit(offsets[i], newValue, oldValue);
+            } else {
+                editor.journalEdit(offsets[i] + shift, oldValue, newValue);
+                shift += newLengths[i] - oldLengths[i];
+            }
+            oldPos += oldLengths[i];
+            newPos += newLengths[i];
+        }
+    }
+}
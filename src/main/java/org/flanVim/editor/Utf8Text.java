@@ -0,0 +1,694 @@
+package org.flanVim.editor;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.MalformedInputException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Utf8Text: 以 UTF-8 字节存放的可编辑文本，对外表现为 CharSequence（UTF-16 下标）
+ *
+ * StringBuilder 只要出现一个非 Latin-1 字符，整个缓冲区就变成每字符 2 字节；
+ * 这里始终存 UTF-8，以 ASCII 为主的源码和日志基本是每字符 1 字节，加载和保存也不需要编解码。
+ *
+ * 字节数等于字符数时内容是纯 ASCII，下标直接就是字节偏移。
+ * 否则通过两层索引把字符下标换算成字节偏移：
+ * - 每 STRIDE 个字符一个检查点（字符下标 -> 字节偏移），编辑时只让编辑位置之后的检查点失效
+ * - 最近一次访问的位置（游标），顺序访问（正则、逐字符搜索）从游标继续，不必回到检查点
+ * 另外按需维护行首偏移的索引，编辑时同样只让编辑位置之后的行失效。
+ *
+ * 字节存放在 ByteBuffer 中，超过阈值的缓冲区分配在堆外（见 OffHeapMemory），
+ * 不再使用时必须调用 release() 立即归还内存。直接读取字节的视图（压缩、写文件、建索引）
+ * 通过 pinBytes/unpinBytes 登记，release 或扩容时仍有视图的缓冲区推迟到最后一个视图结束后释放；
+ * release 之后再通过 CharSequence 接口访问（包括 getContentView、RevisionView 的片段）会抛出异常，
+ * 不会读到已释放的内存。
+ *
+ * 不能从一个代理对（4 字节 UTF-8 字符）的中间开始编辑。
+ */
+public final class Utf8Text implements CharSequence {
+    private static final int STRIDE = 256;  // 检查点间隔（字符数）
+    private static final int DIFF_CHUNK = 64 * 1024;  // diffWithFile 每次比较的字节数
+
+    private ByteBuffer bytes;  // 容量即 capacity()，有效内容为 [0, byteLength)，release 后为 null
+    private int byteLength;
+    private int charLength;
+    private int pins = 0;  // 仍在使用的字节视图数
+    private List<ByteBuffer> retired = null;  // 被替换或 release 时仍有视图的缓冲区，视图全部结束后释放
+
+    // 检查点：第 k 个检查点是包含字符 k * STRIDE 的码点的起始位置
+    private int[] checkpointChars = new int[]{0};
+    private int[] checkpointBytes = new int[]{0};
+    private int validCheckpoints = 1;
+
+    // 游标：最近一次定位的码点起始位置
+    private int cursorChar = 0;
+    private int cursorByte = 0;
+
+    // 行索引：lineStarts[i] 是第 i + 1 行行首的字符下标，前 validLines 项有效
+    private int[] lineStarts = new int[]{0};
+    private int validLines = 1;
+    private boolean linesComplete = false;
+
+    public Utf8Text() {
+        this.bytes = ByteBuffer.allocate(16);
+    }
+
+    public Utf8Text(CharSequence text) {
+        byte[] encoded = encode(text);
+        this.bytes = OffHeapMemory.allocate(encoded.length);
+        this.bytes.put(0, encoded);
+        this.byteLength = encoded.length;
+        this.charLength = text.length();
+    }
+
+    private Utf8Text(ByteBuffer bytes, int byteLength, int charLength) {
+        this.bytes = bytes;
+        this.byteLength = byteLength;
+        this.charLength = charLength;
+    }
+
+    /**
+     * 从 UTF-8 字节创建（直接使用传入的数组，不复制）
+     * @param utf8 UTF-8 字节
+     * @throws MalformedInputException 如果不是合法的 UTF-8
+     */
+    public static Utf8Text decode(byte[] utf8) throws MalformedInputException {
+        ByteBuffer buffer = ByteBuffer.wrap(utf8);
+        return new Utf8Text(buffer, utf8.length, countChars(buffer, utf8.length));
+    }
+
+    /**
+     * 从文件读入（超过阈值时直接读到堆外，不经过堆上的数组）
+     * @throws MalformedInputException 如果不是合法的 UTF-8
+     * @throws IOException 如果读取失败或文件超过 2GB
+     */
+    public static Utf8Text load(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE - 8) {
+                throw new IOException("File too large: " + file);
+            }
+            ByteBuffer buffer = OffHeapMemory.allocate((int) size);
+            try {
+                while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                    // 读满为止
+                }
+                int length = buffer.position();
+                return new Utf8Text(buffer, length, countChars(buffer, length));
+            } catch (IOException | RuntimeException e) {
+                OffHeapMemory.free(buffer);
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * 与磁盘上的文件比较，找出被外部修改的部分（外部修改后的增量重新加载）
+     *
+     * 先按块从头比较公共前缀，再从文件末尾向前比较公共后缀，比较都在一个小的块缓冲区里进行，
+     * 只有中间变化的字节才会被解码成字符串；未变化的部分不需要读进新的缓冲区。
+     * 应用返回的修改后，修改位置之前的检查点和行首索引仍然有效。
+     *
+     * @return 把当前内容变成文件内容的修改（至多一处），内容相同时为空
+     * @throws MalformedInputException 如果变化的部分不是合法的 UTF-8
+     * @throws IOException 如果读取失败或文件超过 2GB
+     */
+    public TextPatch diffWithFile(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE - 8) {
+                throw new IOException("File too large: " + file);
+            }
+            int fileLength = (int) size;
+            int common = Math.min(fileLength, byteLength);
+            ByteBuffer chunk = ByteBuffer.allocate(DIFF_CHUNK);
+
+            // 公共前缀
+            int prefix = 0;
+            while (prefix < common) {
+                int n = readFully(channel, chunk, prefix, Math.min(DIFF_CHUNK, common - prefix));
+                int mismatch = chunk.mismatch(bytes.slice(prefix, n));
+                if (mismatch >= 0) {
+                    prefix += mismatch;
+                    break;
+                }
+                prefix += n;
+            }
+            // 退回到码点起始位置：前缀内都是完整的码点，文件中同一位置也是码点边界
+            while (prefix > 0 && prefix < byteLength && (bytes.get(prefix) & 0xC0) == 0x80) {
+                prefix--;
+            }
+
+            // 公共后缀（不与前缀重叠）
+            int suffix = 0;
+            int limit = common - prefix;
+            while (suffix < limit) {
+                int n = Math.min(DIFF_CHUNK, limit - suffix);
+                readFully(channel, chunk, fileLength - suffix - n, n);
+                ByteBuffer own = bytes.slice(byteLength - suffix - n, n);
+                if (chunk.mismatch(own) < 0) {
+                    suffix += n;
+                    continue;
+                }
+                int i = n - 1;
+                while (chunk.get(i) == own.get(i)) {
+                    i--;
+                }
+                suffix += n - 1 - i;
+                break;
+            }
+            while (suffix > 0 && (bytes.get(byteLength - suffix) & 0xC0) == 0x80) {
+                suffix--;
+            }
+
+            TextPatch patch = new TextPatch();
+            int oldEnd = byteLength - suffix;
+            int newEnd = fileLength - suffix;
+            if (prefix == oldEnd && prefix == newEnd) {
+                return patch;
+            }
+            ByteBuffer changed = ByteBuffer.allocate(newEnd - prefix);
+            readFully(channel, changed, prefix, newEnd - prefix);
+            countChars(changed, changed.limit());  // 只校验变化的部分，其余部分与当前内容相同
+            int start = charIndexOf(prefix);
+            int end = start + charsBetween(prefix, oldEnd);
+            patch.add(start, subSequence(start, end),
+                      new String(changed.array(), 0, changed.limit(), StandardCharsets.UTF_8));
+            return patch;
+        }
+    }
+
+    /**
+     * 从文件的 position 处读入 length 字节，读入后 buffer 的 position 为 0、limit 为 length
+     * @return length
+     */
+    private static int readFully(FileChannel channel, ByteBuffer buffer, long position, int length)
+            throws IOException {
+        buffer.clear().limit(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("File changed while reading");
+            }
+        }
+        return buffer.flip().limit();
+    }
+
+    /**
+     * 码点起始字节偏移对应的字符下标
+     */
+    private int charIndexOf(int byteOffset) {
+        if (isAscii()) {
+            return byteOffset;
+        }
+        return charsBetween(0, byteOffset);
+    }
+
+    private int charsBetween(int from, int to) {
+        if (isAscii()) {
+            return to - from;
+        }
+        int chars = 0;
+        for (int b = from; b < to; ) {
+            int n = sequenceLength(bytes.get(b));
+            chars += n == 4 ? 2 : 1;
+            b += n;
+        }
+        return chars;
+    }
+
+    /**
+     * 包装已知合法的 UTF-8 字节（例如解压得到的内容），跳过校验
+     */
+    static Utf8Text wrap(ByteBuffer utf8, int byteLength, int charLength) {
+        return new Utf8Text(utf8, byteLength, charLength);
+    }
+
+    /**
+     * 校验 UTF-8 并计算 UTF-16 字符数
+     */
+    private static int countChars(ByteBuffer utf8, int length) throws MalformedInputException {
+        int chars = 0;
+        int i = 0;
+        while (i < length) {
+            int b = utf8.get(i) & 0xFF;
+            if (b < 0x80) {
+                i++;
+                chars++;
+                continue;
+            }
+            int n;
+            int min = 0x80;
+            int max = 0xBF;  // 第二个字节的范围（排除过长编码和代理区）
+            if (b >= 0xC2 && b <= 0xDF) {
+                n = 2;
+            } else if (b >= 0xE0 && b <= 0xEF) {
+                n = 3;
+                if (b == 0xE0) min = 0xA0;
+                if (b == 0xED) max = 0x9F;
+            } else if (b >= 0xF0 && b <= 0xF4) {
+                n = 4;
+                if (b == 0xF0) min = 0x90;
+                if (b == 0xF4) max = 0x8F;
+            } else {
+                throw new MalformedInputException(1);
+            }
+            if (i + n > length) {
+                throw new MalformedInputException(length - i);
+            }
+            int second = utf8.get(i + 1) & 0xFF;
+            if (second < min || second > max) {
+                throw new MalformedInputException(1);
+            }
+            for (int j = 2; j < n; j++) {
+                if ((utf8.get(i + j) & 0xC0) != 0x80) {
+                    throw new MalformedInputException(j);
+                }
+            }
+            i += n;
+            chars += n == 4 ? 2 : 1;
+        }
+        return chars;
+    }
+
+    private static byte[] encode(CharSequence text) {
+        int length = text.length();
+        byte[] result = new byte[length];
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (c >= 0x80) {
+                return text.toString().getBytes(StandardCharsets.UTF_8);  // 含非 ASCII 字符，交给 JDK 编码
+            }
+            result[i] = (byte) c;
+        }
+        return result;
+    }
+
+    /**
+     * UTF-8 序列的字节数（由首字节决定）
+     */
+    private static int sequenceLength(byte lead) {
+        if (lead >= 0) {
+            return 1;
+        }
+        if ((lead & 0xE0) == 0xC0) {
+            return 2;
+        }
+        return (lead & 0xF0) == 0xE0 ? 3 : 4;
+    }
+
+    private boolean isAscii() {
+        return byteLength == charLength;
+    }
+
+    @Override
+    public int length() {
+        return charLength;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index < 0 || index >= charLength) {
+            throw new StringIndexOutOfBoundsException("index " + index + ", length " + charLength);
+        }
+        if (isAscii()) {
+            return (char) bytes.get(index);
+        }
+        seek(index);
+        int b = cursorByte;
+        int lead = bytes.get(b) & 0xFF;
+        switch (sequenceLength(bytes.get(b))) {
+            case 1:
+                return (char) lead;
+            case 2:
+                return (char) (((lead & 0x1F) << 6) | (bytes.get(b + 1) & 0x3F));
+            case 3:
+                return (char) (((lead & 0x0F) << 12) | ((bytes.get(b + 1) & 0x3F) << 6) | (bytes.get(b + 2) & 0x3F));
+            default:
+                int codePoint = ((lead & 0x07) << 18) | ((bytes.get(b + 1) & 0x3F) << 12)
+                        | ((bytes.get(b + 2) & 0x3F) << 6) | (bytes.get(b + 3) & 0x3F);
+                return index == cursorChar ? Character.highSurrogate(codePoint) : Character.lowSurrogate(codePoint);
+        }
+    }
+
+    /**
+     * 把游标移动到包含字符 index 的码点的起始位置（仅用于非 ASCII 内容）
+     */
+    private void seek(int index) {
+        if (index < cursorChar || index - cursorChar > STRIDE) {
+            int k = ensureCheckpoint(index / STRIDE);
+            cursorChar = checkpointChars[k];
+            cursorByte = checkpointBytes[k];
+        }
+        while (cursorByte < byteLength) {
+            int n = sequenceLength(bytes.get(cursorByte));
+            int chars = n == 4 ? 2 : 1;
+            if (cursorChar + chars > index) {
+                return;
+            }
+            cursorChar += chars;
+            cursorByte += n;
+        }
+    }
+
+    /**
+     * 确保第 k 个检查点有效
+     * @return k（超出内容长度时返回最后一个检查点）
+     */
+    private int ensureCheckpoint(int k) {
+        k = Math.min(k, charLength / STRIDE);
+        if (k >= checkpointChars.length) {
+            int capacity = Math.max(k + 1, checkpointChars.length * 2);
+            checkpointChars = Arrays.copyOf(checkpointChars, capacity);
+            checkpointBytes = Arrays.copyOf(checkpointBytes, capacity);
+        }
+        while (validCheckpoints <= k) {
+            int c = checkpointChars[validCheckpoints - 1];
+            int b = checkpointBytes[validCheckpoints - 1];
+            int target = validCheckpoints * STRIDE;
+            while (c < target) {
+                int n = sequenceLength(bytes.get(b));
+                int chars = n == 4 ? 2 : 1;
+                if (c + chars > target) {
+                    break;  // target 落在代理对的后半
+                }
+                c += chars;
+                b += n;
+            }
+            checkpointChars[validCheckpoints] = c;
+            checkpointBytes[validCheckpoints] = b;
+            validCheckpoints++;
+        }
+        return k;
+    }
+
+    /**
+     * 字符下标对应的字节偏移
+     * @throws StringIndexOutOfBoundsException 如果下标越界或落在代理对中间
+     */
+    private int byteOffset(int index) {
+        if (index < 0 || index > charLength) {
+            throw new StringIndexOutOfBoundsException("index " + index + ", length " + charLength);
+        }
+        if (isAscii() || index == 0) {
+            return index;
+        }
+        if (index == charLength) {
+            return byteLength;
+        }
+        seek(index);
+        if (cursorChar != index) {
+            throw new StringIndexOutOfBoundsException("index " + index + " splits a surrogate pair");
+        }
+        return cursorByte;
+    }
+
+    @Override
+    public String subSequence(int start, int end) {
+        if (start < 0 || end > charLength || start > end) {
+            throw new StringIndexOutOfBoundsException("begin " + start + ", end " + end + ", length " + charLength);
+        }
+        if (isAscii()) {
+            return decode(start, end, StandardCharsets.ISO_8859_1);
+        }
+        if (start == end) {
+            return "";
+        }
+        // 两端可能落在代理对中间：按完整码点解码，再去掉多出的半个
+        seek(start);
+        int from = cursorByte;
+        int trimHead = start - cursorChar;
+        int to;
+        int trimTail = 0;
+        if (end == charLength) {
+            to = byteLength;
+        } else {
+            seek(end);
+            to = cursorByte;
+            if (cursorChar < end) {
+                to += 4;
+                trimTail = 1;
+            }
+        }
+        String decoded = decode(from, to, StandardCharsets.UTF_8);
+        return trimHead == 0 && trimTail == 0 ? decoded : decoded.substring(trimHead, decoded.length() - trimTail);
+    }
+
+    @Override
+    public String toString() {
+        return decode(0, byteLength, isAscii() ? StandardCharsets.ISO_8859_1 : StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 把 [from, to) 的字节解码为字符串
+     */
+    private String decode(int from, int to, Charset charset) {
+        if (bytes.hasArray()) {
+            return new String(bytes.array(), bytes.arrayOffset() + from, to - from, charset);
+        }
+        byte[] copy = new byte[to - from];
+        bytes.get(from, copy);
+        return new String(copy, charset);
+    }
+
+    /**
+     * 从 from 开始查找 ASCII 字符，直接扫描字节
+     * @return 字符下标，找不到时返回 -1
+     */
+    public int indexOf(char ascii, int from) {
+        if (from < 0) {
+            from = 0;
+        }
+        if (from >= charLength) {
+            return -1;
+        }
+        byte target = (byte) ascii;
+        if (isAscii()) {
+            for (int i = from; i < byteLength; i++) {
+                if (bytes.get(i) == target) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+        seek(from);
+        int c = cursorChar;
+        int b = cursorByte;
+        while (b < byteLength) {
+            byte x = bytes.get(b);
+            if (x == target && c >= from) {
+                return c;
+            }
+            int n = sequenceLength(x);
+            c += n == 4 ? 2 : 1;
+            b += n;
+        }
+        return -1;
+    }
+
+    /**
+     * 获取某一行行首的字符下标（按需扩展行索引）
+     * @param line 行号（从 1 开始）
+     * @return 行首下标，行号超出文件末尾时返回 -1
+     */
+    public int lineStart(int line) {
+        if (line < 1) {
+            return -1;
+        }
+        while (validLines < line && !linesComplete) {
+            int newline = indexOf('\n', lineStarts[validLines - 1]);
+            if (newline < 0) {
+                linesComplete = true;
+                break;
+            }
+            if (validLines == lineStarts.length) {
+                lineStarts = Arrays.copyOf(lineStarts, lineStarts.length * 2);
+            }
+            lineStarts[validLines++] = newline + 1;
+        }
+        return line <= validLines ? lineStarts[line - 1] : -1;
+    }
+
+    /**
+     * @return 行数（与 split("\n", -1) 的结果数相同）
+     */
+    public int lineCount() {
+        lineStart(Integer.MAX_VALUE);
+        return validLines;
+    }
+
+    public void append(CharSequence text) {
+        replace(charLength, charLength, text);
+    }
+
+    public void insert(int index, CharSequence text) {
+        replace(index, index, text);
+    }
+
+    public void delete(int start, int end) {
+        replace(start, Math.min(end, charLength), "");
+    }
+
+    /**
+     * 用 text 替换 [start, end)
+     * @throws StringIndexOutOfBoundsException 如果范围越界或落在代理对中间
+     */
+    public void replace(int start, int end, CharSequence text) {
+        if (start < 0 || end > charLength || start > end) {
+            throw new StringIndexOutOfBoundsException("start " + start + ", end " + end + ", length " + charLength);
+        }
+        int from = byteOffset(start);
+        int to = byteOffset(end);
+        byte[] inserted = encode(text);
+        long newLength = (long) byteLength - (to - from) + inserted.length;
+        if (newLength > Integer.MAX_VALUE - 8) {
+            throw new OutOfMemoryError("Content exceeds 2GB");
+        }
+        if (newLength > bytes.capacity()) {
+            // 扩容：分配新的缓冲区（可能从堆上换到堆外），复制后释放旧的
+            int capacity = (int) Math.min(Integer.MAX_VALUE - 8,
+                    Math.max(newLength, bytes.capacity() + (long) (bytes.capacity() >> 1)));
+            ByteBuffer grown = OffHeapMemory.allocate(capacity);
+            grown.put(0, bytes, 0, byteLength);
+            ByteBuffer old = bytes;
+            bytes = grown;
+            retire(old);
+        }
+        // 源和目标是同一个缓冲区时，put 的结果等同于先复制到临时区域（允许重叠）
+        bytes.put(from + inserted.length, bytes, to, byteLength - to);
+        bytes.put(from, inserted);
+        byteLength = (int) newLength;
+        charLength += text.length() - (end - start);
+        invalidateFrom(start);
+    }
+
+    /**
+     * 编辑位置之前的检查点和行首仍然有效，之后的丢弃
+     */
+    private void invalidateFrom(int index) {
+        validCheckpoints = Math.min(validCheckpoints, index >= 2 ? (index - 2) / STRIDE + 1 : 1);
+        cursorChar = 0;
+        cursorByte = 0;
+
+        // 行首 <= index 的行不受影响
+        int low = 0;
+        int high = validLines - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (lineStarts[mid] <= index) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        validLines = Math.max(1, low);
+        linesComplete = false;
+    }
+
+    /**
+     * 把内容按 UTF-8 写出，不需要重新编码
+     */
+    public void writeTo(WritableByteChannel out) throws IOException {
+        ByteBuffer view = pinBytes();
+        try {
+            while (view.hasRemaining()) {
+                out.write(view);
+            }
+        } finally {
+            unpinBytes();
+        }
+    }
+
+    /**
+     * 在内容字节的只读视图（position 0，limit 为字节数）上执行 reader，不复制内容
+     * 视图只在 reader 执行期间有效，不能保留
+     */
+    public <R> R readBytes(Function<ByteBuffer, R> reader) {
+        ByteBuffer view = pinBytes();
+        try {
+            return reader.apply(view);
+        } finally {
+            unpinBytes();
+        }
+    }
+
+    /**
+     * 取得内容字节的只读视图（position 0，limit 为字节数）并登记，用完必须调用 unpinBytes
+     * 登记期间 release 和扩容不会释放视图所在的内存；视图不反映之后的编辑
+     */
+    synchronized ByteBuffer pinBytes() {
+        if (bytes == null) {
+            throw new IllegalStateException("Text has been released");
+        }
+        // 显式从 0 开始：解压得到的缓冲区 position 停在末尾，视图会继承它
+        ByteBuffer view = bytes.asReadOnlyBuffer();
+        view.limit(byteLength).position(0);
+        pins++;
+        return view;
+    }
+
+    /**
+     * 结束一个 pinBytes 取得的视图，最后一个视图结束时释放推迟的缓冲区
+     */
+    synchronized void unpinBytes() {
+        if (--pins == 0 && retired != null) {
+            for (ByteBuffer buffer : retired) {
+                OffHeapMemory.free(buffer);
+            }
+            retired = null;
+        }
+    }
+
+    /**
+     * 释放不再持有的缓冲区，仍有字节视图时推迟到 unpinBytes
+     */
+    private synchronized void retire(ByteBuffer buffer) {
+        if (pins == 0) {
+            OffHeapMemory.free(buffer);
+            return;
+        }
+        if (retired == null) {
+            retired = new ArrayList<>();
+        }
+        retired.add(buffer);
+    }
+
+    /**
+     * 立即释放存放内容的缓冲区（堆外内存归还给系统），之后不能再访问
+     * 仍有 pinBytes 视图时，内存在最后一个视图结束后释放
+     */
+    public void release() {
+        ByteBuffer buffer = bytes;
+        bytes = null;
+        if (buffer != null) {
+            retire(buffer);
+        }
+    }
+
+    /**
+     * @return 内容是否存放在堆外
+     */
+    public boolean isOffHeap() {
+        return bytes != null && bytes.isDirect();
+    }
+
+    public int getByteLength() {
+        return byteLength;
+    }
+
+    /**
+     * @return 占用内存的估计字节数（内容缓冲区，包括堆外部分 + 索引）
+     */
+    public long getResidentBytes() {
+        long buffer = bytes == null ? 0 : bytes.capacity();
+        return buffer + 4L * (checkpointChars.length + checkpointBytes.length + lineStarts.length);
+    }
+}
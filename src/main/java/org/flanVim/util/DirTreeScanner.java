@@ -0,0 +1,290 @@
+package org.flanVim.util;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Consumer;
+
+/**
+ * DirTreeScanner - 基于 NIO 的并行目录树扫描器
+ *
+ * 每个目录由一个 ForkJoin 任务用 DirectoryStream 读取，属性通过 BasicFileAttributes 一次取得，
+ * 子目录的任务会立即 fork 出去并行扫描。输出时按名字排序、深度优先逐个 join，
+ * 所以先扫完的分支可以先打印，输出顺序又是确定的。
+ *
+ * 符号链接不跟随，避免目录环。
+ */
+public class DirTreeScanner {
+    public static final int UNLIMITED_DEPTH = Integer.MAX_VALUE;
+
+    private static final int FLUSH_LINES = 1024;  // 输出缓冲的最大行数
+    private static final Comparator<Node> BY_NAME = Comparator.comparing(Node::getName);
+
+    private final int maxDepth;
+    private final List<PathMatcher> excludes;
+    private final Consumer<Path> onDirectory;  // 每个目录在读取前的回调（可为 null）
+
+    /**
+     * 目录树节点
+     * 目录节点的子节点可能还在后台扫描，getChildren() 会等待扫描完成
+     */
+    public static class Node {
+        private final String name;
+        private final Path path;
+        private final boolean directory;
+        private volatile List<Node> children;  // 文件节点为空列表
+        private ForkJoinTask<List<Node>> pending;  // 尚未完成的子目录扫描任务
+
+        public Node(String name, Path path, boolean directory) {
+            this.name = name;
+            this.path = path;
+            this.directory = directory;
+            this.children = directory ? null : Collections.emptyList();
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public Path getPath() {
+            return path;
+        }
+
+        public boolean isDirectory() {
+            return directory;
+        }
+
+        /**
+         * 获取子节点（按名字排序），必要时等待后台扫描完成
+         * 未扫描的目录（超出深度限制）返回空列表
+         */
+        public List<Node> getChildren() {
+            List<Node> result = children;
+            if (result == null) {
+                synchronized (this) {
+                    if (children == null) {
+                        children = pending != null ? pending.join() : Collections.emptyList();
+                        pending = null;
+                    }
+                    result = children;
+                }
+            }
+            return result;
+        }
+
+        /**
+         * 直接替换子节点（用于增量维护目录树），传入的列表之后不应再被修改
+         */
+        public synchronized void setChildren(List<Node> children) {
+            this.children = children;
+            this.pending = null;
+        }
+    }
+
+    /**
+     * @param maxDepth 最大扫描深度（1 表示只列出直接子项）
+     * @param excludePatterns 要排除的 glob 模式，匹配文件名或相对根目录的路径
+     */
+    public DirTreeScanner(int maxDepth, List<String> excludePatterns) {
+        this(maxDepth, excludePatterns, null);
+    }
+
+    /**
+     * @param maxDepth 最大扫描深度（1 表示只列出直接子项）
+     * @param excludePatterns 要排除的 glob 模式，匹配文件名或相对根目录的路径
+     * @param onDirectory 每个目录被读取之前的回调（在工作线程中调用，例如注册 WatchService）
+     */
+    public DirTreeScanner(int maxDepth, List<String> excludePatterns, Consumer<Path> onDirectory) {
+        this.maxDepth = maxDepth <= 0 ? UNLIMITED_DEPTH : maxDepth;
+        this.excludes = compile(excludePatterns);
+        this.onDirectory = onDirectory;
+    }
+
+    public DirTreeScanner() {
+        this(UNLIMITED_DEPTH, null);
+    }
+
+    /**
+     * 将 glob 模式编译为 PathMatcher
+     * @throws IllegalArgumentException 如果模式语法错误
+     */
+    public static List<PathMatcher> compile(List<String> patterns) {
+        List<PathMatcher> matchers = new ArrayList<>();
+        if (patterns != null) {
+            for (String pattern : patterns) {
+                matchers.add(FileSystems.getDefault().getPathMatcher("glob:" + pattern));
+            }
+        }
+        return matchers;
+    }
+
+    /**
+     * 判断路径是否被排除
+     * @param name 文件名
+     * @param relative 相对根目录的路径
+     */
+    public static boolean isExcluded(List<PathMatcher> excludes, Path name, Path relative) {
+        for (PathMatcher matcher : excludes) {
+            if (matcher.matches(name) || matcher.matches(relative)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 开始扫描，立即返回根节点，子目录在 ForkJoin 公共池中并行扫描
+     * @param root 根目录
+     * @return 根节点
+     */
+    public Node scan(Path root) {
+        return scan(root, root, root.toString());
+    }
+
+    /**
+     * 扫描根目录下的某个子目录，返回以其文件名命名的节点
+     * @param root 根目录（用于计算排除模式的相对路径）
+     * @param dir 要扫描的子目录
+     */
+    public Node scanSubtree(Path root, Path dir) {
+        return scan(root, dir, dir.getFileName().toString());
+    }
+
+    private Node scan(Path root, Path dir, String name) {
+        Node node = new Node(name, dir, true);
+        ListTask task = new ListTask(root, dir, 1);
+        node.pending = task;
+        ForkJoinPool.commonPool().execute(task);
+        return node;
+    }
+
+    /**
+     * 按深度优先顺序流式打印目录树
+     * @param root 根节点
+     * @param maxDepth 打印的最大深度
+     * @param excludes 打印时额外排除的模式
+     * @param out 输出流
+     * @return 打印的条目数
+     */
+    public static int render(Node root, int maxDepth, List<PathMatcher> excludes, PrintStream out) {
+        StringBuilder buffer = new StringBuilder();
+        int[] counters = {0, 0};  // [条目总数, 缓冲中的行数]
+        renderChildren(root, root.getPath(), "", 1, maxDepth <= 0 ? UNLIMITED_DEPTH : maxDepth,
+                excludes, buffer, counters, out);
+        out.print(buffer);
+        out.flush();
+        return counters[0];
+    }
+
+    private static void renderChildren(Node node, Path root, String prefix, int depth, int maxDepth,
+                                       List<PathMatcher> excludes, StringBuilder buffer,
+                                       int[] counters, PrintStream out) {
+        List<Node> children = node.getChildren();
+        if (!excludes.isEmpty()) {
+            List<Node> visible = new ArrayList<>(children.size());
+            for (Node child : children) {
+                if (!isExcluded(excludes, child.getPath().getFileName(), root.relativize(child.getPath()))) {
+                    visible.add(child);
+                }
+            }
+            children = visible;
+        }
+
+        for (int i = 0; i < children.size(); i++) {
+            Node child = children.get(i);
+            boolean isLastChild = (i == children.size() - 1);
+
+            buffer.append(prefix).append(isLastChild ? "└── " : "├── ").append(child.getName()).append('\n');
+            counters[0]++;
+            if (++counters[1] >= FLUSH_LINES) {
+                out.print(buffer);
+                buffer.setLength(0);
+                counters[1] = 0;
+            }
+
+            if (child.isDirectory() && depth < maxDepth) {
+                String newPrefix = prefix + (isLastChild ? "    " : "│   ");
+                renderChildren(child, root, newPrefix, depth + 1, maxDepth, excludes, buffer, counters, out);
+            }
+        }
+    }
+
+    /**
+     * 扫描一个目录的任务：列出子项、排序，并为每个子目录 fork 新任务
+     */
+    @SuppressWarnings("serial")  // 只在 ForkJoinPool 中使用，从不序列化
+    private class ListTask extends RecursiveTask<List<Node>> {
+        private final Path root;
+        private final Path dir;
+        private final int depth;
+
+        ListTask(Path root, Path dir, int depth) {
+            this.root = root;
+            this.dir = dir;
+            this.depth = depth;
+        }
+
+        @Override
+        protected List<Node> compute() {
+            return listChildren();
+        }
+
+        List<Node> listChildren() {
+            if (onDirectory != null) {
+                onDirectory.accept(dir);
+            }
+            List<Node> nodes = new ArrayList<>();
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+                for (Path child : stream) {
+                    Path name = child.getFileName();
+                    if (isExcluded(excludes, name, root.relativize(child))) {
+                        continue;
+                    }
+                    boolean isDir;
+                    try {
+                        BasicFileAttributes attrs = Files.readAttributes(
+                                child, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                        isDir = attrs.isDirectory();
+                    } catch (IOException e) {
+                        isDir = false;  // 无法读取属性，按普通文件处理
+                    }
+                    nodes.add(new Node(name.toString(), child, isDir));
+                }
+            } catch (IOException e) {
+                // 无法读取的目录当作空目录
+                return Collections.emptyList();
+            }
+            nodes.sort(BY_NAME);
+
+            if (depth < maxDepth) {
+                for (Node node : nodes) {
+                    if (node.isDirectory()) {
+                        ListTask task = new ListTask(root, node.getPath(), depth + 1);
+                        node.pending = task;
+                        task.fork();
+                    }
+                }
+            } else {
+                for (Node node : nodes) {
+                    if (node.isDirectory()) {
+                        node.children = Collections.emptyList();
+                    }
+                }
+            }
+            return nodes;
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package org.flanVim.util;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * FlightEvents: 自定义的 Java Flight Recorder 事件
+ *
+ * 用 -XX:StartFlightRecording 或 jcmd JFR.start 录制时，命令执行、文件加载/保存、撤销/重做
+ * 会作为带耗时的事件出现在 "FlanVim" 分类下，并带有文件路径、字节数、行数、命令类型等字段，
+ * 可以直接看出是哪个文件、哪种命令占用了时间和内存分配。
+ *
+ * 没有在录制时 begin/end/commit 几乎没有开销；只有 shouldCommit() 为 true 时才填充需要额外计算的字段（例如行数）。
+ */
+public final class FlightEvents {
+    private FlightEvents() {}
+
+    /**
+     * 事件和 stats 统计共用的命令类型名：类名去掉 Command 后缀
+     */
+    public static String commandType(Object command) {
+        if (command == null) {
+            return "";
+        }
+        String name = command.getClass().getSimpleName();
+        return name.endsWith("Command") && name.length() > "Command".length()
+                ? name.substring(0, name.length() - "Command".length()) : name;
+    }
+
+    @Name("org.flanVim.Command")
+    @Label("Command")
+    @Category({"FlanVim", "Command"})
+    @Description("A command executed through WorkSpace.executeCommand")
+    @StackTrace(false)
+    public static final class CommandEvent extends Event {
+        @Label("Command Type")
+        public String commandType;
+
+        @Label("File Path")
+        @Description("File of the editor the command works on, empty for workspace commands")
+        public String filePath;
+
+        @Label("Success")
+        public boolean success;
+
+        @Label("Undoable")
+        public boolean undoable;
+
+        @Label("Recorded Edits")
+        @Description("Edits recorded in the undo journal while the command ran")
+        public int recordedEdits;
+    }
+
+    @Name("org.flanVim.FileLoad")
+    @Label("File Load")
+    @Category({"FlanVim", "File"})
+    @StackTrace(false)
+    public static final class FileLoadEvent extends Event {
+        @Label("File Path")
+        public String filePath;
+
+        @Label("Bytes")
+        @DataAmount(DataAmount.BYTES)
+        public long bytes;
+
+        @Label("Line Count")
+        public int lineCount;
+
+        @Label("Off Heap")
+        public boolean offHeap;
+    }
+
+    @Name("org.flanVim.FileSave")
+    @Label("File Save")
+    @Category({"FlanVim", "File"})
+    @StackTrace(false)
+    public static final class FileSaveEvent extends Event {
+        @Label("File Path")
+        public String filePath;
+
+        @Label("Bytes")
+        @DataAmount(DataAmount.BYTES)
+        public long bytes;
+
+        @Label("Line Count")
+        public int lineCount;
+    }
+
+    @Name("org.flanVim.Undo")
+    @Label("Undo / Redo")
+    @Category({"FlanVim", "History"})
+    @Description("One command undone or redone, also emitted for each step of a multi-step jump")
+    @StackTrace(false)
+    public static final class UndoEvent extends Event {
+        @Label("Command Type")
+        public String commandType;
+
+        @Label("Redo")
+        public boolean redo;
+
+        @Label("Revision")
+        @Description("Undo tree revision of the command, -1 for workspace history")
+        public int revision;
+    }
+}
@@ -0,0 +1,127 @@
+package org.flanVim.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * LatencyHistogram: 无锁的对数-线性耗时直方图（纳秒）
+ *
+ * 每个 2 的幂区间 [2^e, 2^(e+1)) 再线性分成 SUB_BUCKETS 个桶，相对误差不超过 1/SUB_BUCKETS，
+ * 从 1ns 到 2^63ns 一共不到 1000 个桶，占用固定大小的内存，与记录次数无关。
+ * 记录只做一次 AtomicLongArray 自增和几次原子更新，不加锁，可以在任何线程中调用；
+ * 读取时不冻结写入，统计值是近似一致的快照。
+ */
+public final class LatencyHistogram {
+    private static final int SUB_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;  // 每个 2 的幂区间内的桶数
+    private static final int BUCKETS = (64 - SUB_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    /**
+     * 记录一次耗时
+     * @param nanos 耗时（纳秒），负数按 0 处理
+     * @param success 是否成功（失败次数单独统计，耗时同样计入分布）
+     */
+    public void record(long nanos, boolean success) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        counts.incrementAndGet(bucketOf(nanos));
+        count.increment();
+        totalNanos.add(nanos);
+        if (!success) {
+            failures.increment();
+        }
+        long max = maxNanos.get();
+        while (nanos > max && !maxNanos.compareAndSet(max, nanos)) {
+            max = maxNanos.get();
+        }
+    }
+
+    /**
+     * 值所在的桶：小于 SUB_BUCKETS 的值每个值一个桶，之后每个 2 的幂区间 SUB_BUCKETS 个桶
+     */
+    private static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);  // >= SUB_BITS
+        int sub = (int) (value >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    /**
+     * @return 桶内的最大值
+     */
+    private static long upperBoundOf(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        long lower = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+        return lower + (1L << shift) - 1;
+    }
+
+    /**
+     * @param quantile 分位数（0 到 1）
+     * @return 该分位数所在桶的上界（不超过记录到的最大值），没有记录时为 0
+     */
+    public long getQuantile(double quantile) {
+        long total = 0;
+        long[] snapshot = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(quantile * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return Math.min(upperBoundOf(i), getMaxNanos());
+            }
+        }
+        return getMaxNanos();
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getFailures() {
+        return failures.sum();
+    }
+
+    public long getTotalNanos() {
+        return totalNanos.sum();
+    }
+
+    public long getMaxNanos() {
+        return maxNanos.get();
+    }
+
+    /**
+     * 把耗时格式化成便于阅读的形式（ns/us/ms/s）
+     */
+    public static String format(long nanos) {
+        if (nanos < 1_000) {
+            return nanos + "ns";
+        }
+        if (nanos < 1_000_000) {
+            return String.format("%.1fus", nanos / 1e3);
+        }
+        if (nanos < 1_000_000_000) {
+            return String.format("%.1fms", nanos / 1e6);
+        }
+        return String.format("%.2fs", nanos / 1e9);
+    }
+}
@@ -0,0 +1,55 @@
+package org.flanVim.util;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Latin1CharSequence - 把字节缓冲区按 Latin-1 直接当作字符序列，不做解码和复制
+ *
+ * 适合在 mmap 得到的 ByteBuffer 上跑纯 ASCII 的正则或子串查找：
+ * UTF-8 的多字节字符会表现为几个 >= 0x80 的字符，不会与 ASCII 模式误匹配。
+ */
+public class Latin1CharSequence implements CharSequence {
+    private final ByteBuffer buffer;
+    private final int start;
+    private final int end;
+
+    public Latin1CharSequence(ByteBuffer buffer) {
+        this(buffer, 0, buffer.limit());
+    }
+
+    public Latin1CharSequence(ByteBuffer buffer, int start, int end) {
+        this.buffer = buffer;
+        this.start = start;
+        this.end = end;
+    }
+
+    @Override
+    public int length() {
+        return end - start;
+    }
+
+    @Override
+    public char charAt(int index) {
+        return (char) (buffer.get(start + index) & 0xFF);
+    }
+
+    @Override
+    public CharSequence subSequence(int from, int to) {
+        return new Latin1CharSequence(buffer, start + from, start + to);
+    }
+
+    /**
+     * 将 [from, to) 范围的字节按 UTF-8 解码为字符串
+     */
+    public String decode(int from, int to) {
+        byte[] bytes = new byte[to - from];
+        buffer.get(start + from, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public String toString() {
+        return decode(0, length());
+    }
+}
@@ -0,0 +1,26 @@
+package org.flanVim.util;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+
+/**
+ * Quiet: 批量执行命令时屏蔽各命令逐条打印到 System.out 的提示（错误仍输出到 System.err）
+ */
+public final class Quiet {
+    public static final PrintStream SILENT = new PrintStream(OutputStream.nullOutputStream());
+
+    private Quiet() {}
+
+    /**
+     * 屏蔽标准输出执行 action，结束后（包括抛出异常时）恢复
+     */
+    public static void run(Runnable action) {
+        PrintStream out = System.out;
+        System.setOut(SILENT);
+        try {
+            action.run();
+        } finally {
+            System.setOut(out);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package org.flanVim.util;
+
+import java.util.Arrays;
+
+/**
+ * StringSearch - Boyer-Moore-Horspool 子串查找
+ *
+ * 坏字符表按字符低 8 位索引（256 项），低 8 位相同的字符取最小的跳跃距离，
+ * 这样非 Latin-1 字符也是安全的，只是跳得保守一些。
+ * 预处理一次后可在多个文本上重复使用（线程安全）。
+ */
+public class StringSearch {
+    private final String pattern;
+    private final int[] shift = new int[256];
+
+    public StringSearch(String pattern) {
+        if (pattern == null || pattern.isEmpty()) {
+            throw new IllegalArgumentException("Search pattern cannot be empty");
+        }
+        this.pattern = pattern;
+        int m = pattern.length();
+        Arrays.fill(shift, m);
+        for (int i = 0; i < m - 1; i++) {
+            shift[pattern.charAt(i) & 0xFF] = m - 1 - i;
+        }
+    }
+
+    public String getPattern() {
+        return pattern;
+    }
+
+    /**
+     * 从 from 开始查找下一个匹配
+     * @param text 文本
+     * @param from 起始下标
+     * @param end 结束下标（不包含）
+     * @return 匹配的起始下标，未找到返回 -1
+     */
+    public int indexOf(CharSequence text, int from, int end) {
+        int m = pattern.length();
+        char last = pattern.charAt(m - 1);
+        int i = Math.max(from, 0) + m - 1;
+        while (i < end) {
+            char c = text.charAt(i);
+            if (c == last) {
+                int j = m - 2;
+                int k = i - 1;
+                while (j >= 0 && text.charAt(k) == pattern.charAt(j)) {
+                    j--;
+                    k--;
+                }
+                if (j < 0) {
+                    return k + 1;
+                }
+            }
+            i += shift[c & 0xFF];
+        }
+        return -1;
+    }
+
+    public int indexOf(CharSequence text, int from) {
+        return indexOf(text, from, text.length());
+    }
+}
@@ -0,0 +1,234 @@
+package org.flanVim.workspace;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.flanVim.util.DirTreeScanner;
+import org.flanVim.util.DirTreeScanner.Node;
+
+/**
+ * DirTreeCache: 工作区目录树的内存缓存
+ *
+ * inispace 时在后台扫描整个工作区，并把每个目录注册到 WatchService。
+ * 后台线程根据文件创建/删除事件增量修改目录树，dir-tree 直接从缓存渲染。
+ * 事件溢出或无法注册监听（例如 inotify 数量上限）时缓存标记为失效，下次使用时重新扫描。
+ */
+public class DirTreeCache {
+    private final Path root;
+    private final DirTreeScanner scanner;
+    private final Map<WatchKey, Path> watchedDirs = new ConcurrentHashMap<>();
+    private final List<Runnable> changeListeners = new CopyOnWriteArrayList<>();
+    private WatchService watchService;
+    private volatile Node rootNode;
+    private volatile boolean valid = false;
+
+    public DirTreeCache(Path root) {
+        this.root = root.toAbsolutePath().normalize();
+        this.scanner = new DirTreeScanner(DirTreeScanner.UNLIMITED_DEPTH, null, this::watch);
+    }
+
+    /**
+     * 开始后台扫描并启动监听线程
+     */
+    public synchronized void start() {
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+            Thread watcher = new Thread(this::processEvents, "dir-tree-watcher");
+            watcher.setDaemon(true);
+            watcher.start();
+        } catch (IOException e) {
+            watchService = null;  // 无法监听，每次都重新扫描
+        }
+        rebuild();
+    }
+
+    /**
+     * 丢弃缓存并重新扫描（dir-tree --refresh）
+     */
+    public synchronized void rebuild() {
+        for (WatchKey key : watchedDirs.keySet()) {
+            key.cancel();
+        }
+        watchedDirs.clear();
+        valid = watchService != null;
+        rootNode = scanner.scan(root);
+        fireChanged();
+    }
+
+    /**
+     * 注册目录树变化的监听器（在监听线程或调用 rebuild 的线程中回调）
+     */
+    public void addChangeListener(Runnable listener) {
+        changeListeners.add(listener);
+    }
+
+    private void fireChanged() {
+        for (Runnable listener : changeListeners) {
+            listener.run();
+        }
+    }
+
+    /**
+     * 获取目录树根节点，缓存失效时先重新扫描
+     */
+    public Node getRoot() {
+        if (!valid) {
+            rebuild();
+        }
+        return rootNode;
+    }
+
+    public Path getRootPath() {
+        return root;
+    }
+
+    public boolean isValid() {
+        return valid;
+    }
+
+    /**
+     * 扫描器读取每个目录前的回调：注册监听
+     */
+    private void watch(Path dir) {
+        WatchService service = watchService;
+        if (service == null) {
+            return;
+        }
+        try {
+            WatchKey key = dir.register(service,
+                    StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_DELETE);
+            watchedDirs.put(key, dir);
+        } catch (IOException | ClosedWatchServiceException e) {
+            valid = false;
+        }
+    }
+
+    /**
+     * 监听线程：处理文件系统事件
+     */
+    private void processEvents() {
+        while (true) {
+            WatchKey key;
+            try {
+                key = watchService.take();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+
+            synchronized (this) {
+                Path dir = watchedDirs.get(key);
+                if (dir != null) {
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                            valid = false;
+                            fireChanged();
+                            continue;
+                        }
+                        Path name = (Path) event.context();
+                        if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE) {
+                            onCreate(dir, dir.resolve(name));
+                        } else if (event.kind() == StandardWatchEventKinds.ENTRY_DELETE) {
+                            onDelete(dir, name.toString());
+                        }
+                    }
+                } else {
+                    key.pollEvents();
+                }
+                if (!key.reset()) {
+                    watchedDirs.remove(key);
+                }
+            }
+        }
+    }
+
+    private void onCreate(Path dir, Path child) {
+        Node parent = findDirectory(dir);
+        if (parent == null) {
+            return;
+        }
+        Node node;
+        if (Files.isDirectory(child, LinkOption.NOFOLLOW_LINKS)) {
+            node = scanner.scanSubtree(root, child);  // 新目录：扫描并注册整个子树
+        } else {
+            node = new Node(child.getFileName().toString(), child, false);
+        }
+        List<Node> children = new ArrayList<>(parent.getChildren());
+        int index = indexOf(children, node.getName());
+        if (index >= 0) {
+            children.set(index, node);
+        } else {
+            children.add(-index - 1, node);
+        }
+        parent.setChildren(Collections.unmodifiableList(children));
+        fireChanged();
+    }
+
+    private void onDelete(Path dir, String name) {
+        Node parent = findDirectory(dir);
+        if (parent == null) {
+            return;
+        }
+        List<Node> children = new ArrayList<>(parent.getChildren());
+        int index = indexOf(children, name);
+        if (index >= 0) {
+            children.remove(index);
+            parent.setChildren(Collections.unmodifiableList(children));
+            fireChanged();
+        }
+    }
+
+    /**
+     * 从根节点按路径逐级查找目录节点
+     */
+    private Node findDirectory(Path dir) {
+        Node node = rootNode;
+        for (Path part : root.relativize(dir)) {
+            if (part.toString().isEmpty()) {
+                continue;
+            }
+            List<Node> children = node.getChildren();
+            int index = indexOf(children, part.toString());
+            if (index < 0 || !children.get(index).isDirectory()) {
+                return null;
+            }
+            node = children.get(index);
+        }
+        return node;
+    }
+
+    /**
+     * 在按名字排序的子节点中二分查找
+     * @return 找到时返回下标，否则返回 -(插入位置) - 1
+     */
+    private static int indexOf(List<Node> children, String name) {
+        int low = 0;
+        int high = children.size() - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = children.get(mid).getName().compareTo(name);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+}
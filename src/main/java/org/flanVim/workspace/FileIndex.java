@@ -0,0 +1,288 @@
+package org.flanVim.workspace;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Predicate;
+
+import org.flanVim.util.DirTreeScanner.Node;
+
+/**
+ * FileIndex: 工作区文件路径索引
+ *
+ * 后台线程从 DirTreeCache 的目录树生成一个不可变的紧凑快照（排序的相对路径数组 +
+ * 按小写文件名排序的下标数组），目录树变化时重新生成。查询只读 volatile 快照，不加锁。
+ *
+ * 查询按以下顺序，返回第一档非空的结果：
+ * 1. 完整相对路径
+ * 2. 文件名完全相同（二分查找）
+ * 3. 路径后缀相同（例如 editor/Editor.java）
+ * 4. 文件名前缀（二分查找）
+ * 5. 模糊匹配：查询的字符按顺序出现在路径中，取得分最高的一批
+ * 调用方传入过滤条件，过滤在分档和排名之前进行。
+ * lookupName 只做区分大小写的文件名精确匹配，供不应落到相近文件上的 load/save/diff 使用。
+ */
+public class FileIndex {
+    private static final int MAX_FUZZY_RESULTS = 10;
+
+    private final DirTreeCache cache;
+    private final Object signal = new Object();
+    private boolean dirty = true;
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+
+    /**
+     * 不可变的索引快照
+     */
+    private static final class Snapshot {
+        static final Snapshot EMPTY = new Snapshot(new String[0]);
+
+        final String[] paths;        // 相对路径（'/' 分隔），按目录树顺序
+        final String[] lowerPaths;   // 小写的相对路径
+        final int[] byName;          // 按小写文件名排序的路径下标
+        final String[] sortedNames;  // 与 byName 对齐的小写文件名
+
+        Snapshot(String[] paths) {
+            this.paths = paths;
+            this.lowerPaths = new String[paths.length];
+            String[] names = new String[paths.length];
+            Integer[] order = new Integer[paths.length];
+            for (int i = 0; i < paths.length; i++) {
+                lowerPaths[i] = paths[i].toLowerCase(Locale.ROOT);
+                names[i] = lowerPaths[i].substring(lowerPaths[i].lastIndexOf('/') + 1);
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> names[a].compareTo(names[b]));
+            this.byName = new int[paths.length];
+            this.sortedNames = new String[paths.length];
+            for (int i = 0; i < order.length; i++) {
+                byName[i] = order[i];
+                sortedNames[i] = names[order[i]];
+            }
+        }
+    }
+
+    public FileIndex(DirTreeCache cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * 启动后台索引线程
+     */
+    public void start() {
+        cache.addChangeListener(this::markDirty);
+        Thread indexer = new Thread(this::run, "file-indexer");
+        indexer.setDaemon(true);
+        indexer.start();
+    }
+
+    /**
+     * 目录树变化时调用，通知后台线程重建快照（连续的变化会合并成一次重建）
+     */
+    public void markDirty() {
+        synchronized (signal) {
+            dirty = true;
+            signal.notifyAll();
+        }
+    }
+
+    private void run() {
+        while (true) {
+            synchronized (signal) {
+                while (!dirty) {
+                    try {
+                        signal.wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                dirty = false;
+            }
+            List<String> paths = new ArrayList<>();
+            collect(cache.getRoot(), "", paths);
+            snapshot = new Snapshot(paths.toArray(new String[0]));
+        }
+    }
+
+    private static void collect(Node node, String prefix, List<String> out) {
+        for (Node child : node.getChildren()) {
+            String path = prefix + child.getName();
+            if (child.isDirectory()) {
+                collect(child, path + "/", out);
+            } else {
+                out.add(path);
+            }
+        }
+    }
+
+    public int size() {
+        return snapshot.paths.length;
+    }
+
+    /**
+     * 查询文件，只在 accept 接受的路径中分档和排名
+     * （先过滤再排名：被过滤掉的路径不会占据更高一档或模糊匹配的名额）
+     * @param query 文件名、路径后缀或模糊查询串
+     * @param accept 候选绝对路径是否可用
+     * @return 最佳一档匹配的绝对路径，没有匹配时为空列表
+     */
+    public List<String> lookup(String query, Predicate<String> accept) {
+        Snapshot s = snapshot;
+        String q = normalize(query);
+        if (q.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        List<String> hits = new ArrayList<>();
+        boolean hasSlash = q.indexOf('/') >= 0;
+
+        if (hasSlash) {
+            // 1. 完整相对路径
+            for (int i = 0; i < s.lowerPaths.length; i++) {
+                if (s.lowerPaths[i].equals(q)) {
+                    addIfAccepted(s, i, accept, hits);
+                }
+            }
+            if (!hits.isEmpty()) {
+                return hits;
+            }
+
+            // 3. 路径后缀
+            String suffix = "/" + q;
+            for (int i = 0; i < s.lowerPaths.length; i++) {
+                if (s.lowerPaths[i].endsWith(suffix)) {
+                    addIfAccepted(s, i, accept, hits);
+                }
+            }
+            if (!hits.isEmpty()) {
+                return hits;
+            }
+        } else {
+            // 2. 文件名完全相同（忽略大小写）
+            int from = lowerBound(s.sortedNames, q);
+            for (int i = from; i < s.sortedNames.length && s.sortedNames[i].equals(q); i++) {
+                addIfAccepted(s, s.byName[i], accept, hits);
+            }
+            if (!hits.isEmpty()) {
+                return hits;
+            }
+
+            // 4. 文件名前缀
+            for (int i = from; i < s.sortedNames.length && s.sortedNames[i].startsWith(q); i++) {
+                addIfAccepted(s, s.byName[i], accept, hits);
+            }
+            if (!hits.isEmpty()) {
+                return hits;
+            }
+        }
+
+        // 5. 模糊匹配，只保留得分最高的一档
+        List<Integer> best = new ArrayList<>();
+        int bestScore = Integer.MIN_VALUE;
+        for (int i = 0; i < s.lowerPaths.length; i++) {
+            int score = fuzzyScore(s.lowerPaths[i], q);
+            if (score == Integer.MIN_VALUE || score < bestScore) {
+                continue;
+            }
+            if (!accept.test(absolute(s, i))) {
+                continue;
+            }
+            if (score > bestScore) {
+                bestScore = score;
+                best.clear();
+            }
+            if (best.size() < MAX_FUZZY_RESULTS) {
+                best.add(i);
+            }
+        }
+        for (int index : best) {
+            hits.add(absolute(s, index));
+        }
+        return hits;
+    }
+
+    /**
+     * 按文件名精确查找（区分大小写），不做后缀、前缀和模糊匹配
+     * @param name 不含路径分隔符的文件名
+     * @param accept 候选绝对路径是否可用
+     * @return accept 接受的同名文件的绝对路径，name 含路径分隔符时为空列表
+     */
+    public List<String> lookupName(String name, Predicate<String> accept) {
+        Snapshot s = snapshot;
+        List<String> hits = new ArrayList<>();
+        if (name.isEmpty() || name.indexOf('/') >= 0 || name.indexOf('\\') >= 0) {
+            return hits;
+        }
+        // 在按小写文件名排序的数组中定位，再比较原始大小写
+        String lowerName = name.toLowerCase(Locale.ROOT);
+        int from = lowerBound(s.sortedNames, lowerName);
+        for (int i = from; i < s.sortedNames.length && s.sortedNames[i].equals(lowerName); i++) {
+            String path = s.paths[s.byName[i]];
+            if (path.substring(path.lastIndexOf('/') + 1).equals(name)) {
+                addIfAccepted(s, s.byName[i], accept, hits);
+            }
+        }
+        return hits;
+    }
+
+    private static String normalize(String query) {
+        String q = query.replace('\\', '/').toLowerCase(Locale.ROOT);
+        while (q.startsWith("/")) {
+            q = q.substring(1);
+        }
+        return q;
+    }
+
+    /**
+     * 模糊匹配得分：查询字符必须按顺序出现在路径中
+     * 连续匹配、匹配在文件名内加分，路径越长扣分越多
+     * @return 得分，不匹配时返回 Integer.MIN_VALUE
+     */
+    private static int fuzzyScore(String path, String query) {
+        int nameStart = path.lastIndexOf('/') + 1;
+        int score = 0;
+        int p = 0;
+        int previous = -2;
+        for (int i = 0; i < query.length(); i++) {
+            int found = path.indexOf(query.charAt(i), p);
+            if (found < 0) {
+                return Integer.MIN_VALUE;
+            }
+            if (found == previous + 1) {
+                score += 3;
+            }
+            if (found >= nameStart) {
+                score += 2;
+            }
+            previous = found;
+            p = found + 1;
+        }
+        return score * 16 - path.length();
+    }
+
+    private static int lowerBound(String[] sorted, String key) {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sorted[mid].compareTo(key) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private String absolute(Snapshot s, int index) {
+        return cache.getRootPath().resolve(s.paths[index]).toString();
+    }
+
+    private void addIfAccepted(Snapshot s, int index, Predicate<String> accept, List<String> hits) {
+        String path = absolute(s, index);
+        if (accept.test(path)) {
+            hits.add(path);
+        }
+    }
+}
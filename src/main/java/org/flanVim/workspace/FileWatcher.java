@@ -0,0 +1,163 @@
+package org.flanVim.workspace;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * FileWatcher: 监听已打开文件在磁盘上的变化
+ *
+ * WatchService 只能监听目录，这里把每个打开文件的父目录注册一次，只关心被打开的文件名。
+ * 写文件通常会产生一连串修改事件，后台线程收到事件后再等 DEBOUNCE_MILLIS 内没有新事件，
+ * 把同一批里的文件去重后逐个回调，一次写入只触发一次重新加载。
+ * 自己保存文件也会产生事件，由回调方比较 mtime/大小后忽略。
+ */
+public class FileWatcher {
+    private static final long DEBOUNCE_MILLIS = 100;
+
+    private final Consumer<Path> listener;
+    private final Map<Path, Integer> watchedFiles = new ConcurrentHashMap<>();  // 文件 -> 打开次数
+    private final Map<Path, WatchKey> dirKeys = new ConcurrentHashMap<>();
+    private final Map<WatchKey, Path> watchedDirs = new ConcurrentHashMap<>();
+    private WatchService watchService;
+
+    /**
+     * @param listener 文件被创建、修改或删除时在监听线程中回调（参数为绝对路径）
+     */
+    public FileWatcher(Consumer<Path> listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * 启动监听线程
+     * @return 是否可以监听（不支持时文件变化只在保存前检查）
+     */
+    public synchronized boolean start() {
+        if (watchService != null) {
+            return true;
+        }
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+        } catch (IOException e) {
+            return false;
+        }
+        Thread watcher = new Thread(this::processEvents, "file-watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+        return true;
+    }
+
+    /**
+     * 开始监听一个文件（文件可以还不存在，但父目录必须存在）
+     */
+    public synchronized void watch(Path file) {
+        Path path = file.toAbsolutePath().normalize();
+        Path dir = path.getParent();
+        if (watchService == null || dir == null) {
+            return;
+        }
+        if (!dirKeys.containsKey(dir)) {
+            try {
+                WatchKey key = dir.register(watchService,
+                        StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_MODIFY,
+                        StandardWatchEventKinds.ENTRY_DELETE);
+                dirKeys.put(dir, key);
+                watchedDirs.put(key, dir);
+            } catch (IOException | ClosedWatchServiceException e) {
+                return;  // 无法监听（目录不存在、监听数量上限），保存前的检查仍然有效
+            }
+        }
+        watchedFiles.merge(path, 1, Integer::sum);
+    }
+
+    /**
+     * 停止监听一个文件，目录下没有其他被监听的文件时取消目录的监听
+     */
+    public synchronized void unwatch(Path file) {
+        Path path = file.toAbsolutePath().normalize();
+        if (watchedFiles.computeIfPresent(path, (p, count) -> count > 1 ? count - 1 : null) != null) {
+            return;
+        }
+        Path dir = path.getParent();
+        for (Path watched : watchedFiles.keySet()) {
+            if (watched.getParent().equals(dir)) {
+                return;
+            }
+        }
+        WatchKey key = dirKeys.remove(dir);
+        if (key != null) {
+            watchedDirs.remove(key);
+            key.cancel();
+        }
+    }
+
+    /**
+     * @return 正在监听的文件数
+     */
+    public int getWatchedCount() {
+        return watchedFiles.size();
+    }
+
+    /**
+     * 监听线程：收集一批事件，去重后回调
+     */
+    private void processEvents() {
+        while (true) {
+            Set<Path> changed = new LinkedHashSet<>();
+            try {
+                WatchKey key = watchService.take();
+                while (key != null) {
+                    collect(key, changed);
+                    key = watchService.poll(DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS);
+                }
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+            for (Path path : changed) {
+                try {
+                    listener.accept(path);
+                } catch (RuntimeException e) {
+                    System.out.println("Warning: Unable to check " + path + ": " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void collect(WatchKey key, Set<Path> changed) {
+        Path dir = watchedDirs.get(key);
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (dir == null) {
+                continue;
+            }
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                // 事件丢失：目录下所有被监听的文件都要检查
+                for (Path watched : watchedFiles.keySet()) {
+                    if (watched.getParent().equals(dir)) {
+                        changed.add(watched);
+                    }
+                }
+                continue;
+            }
+            Path path = dir.resolve((Path) event.context());
+            if (watchedFiles.containsKey(path)) {
+                changed.add(path);
+            }
+        }
+        if (!key.reset() && dir != null) {
+            watchedDirs.remove(key);
+            dirKeys.remove(dir, key);
+        }
+    }
+}
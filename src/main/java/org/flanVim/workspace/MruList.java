@@ -0,0 +1,114 @@
+package org.flanVim.workspace;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * MruList: 按最近使用顺序排列的文件名
+ *
+ * 哈希表 + 双向链表，表头是最近使用的文件。
+ * touch/addLast/remove/mostRecent 都是 O(1)，不需要比较访问时间。
+ */
+public class MruList {
+    private final Map<String, Node> nodes = new HashMap<>();
+    private final Node head = new Node(null);  // 哨兵，head.next 是最近使用的
+    private final Node tail = new Node(null);  // 哨兵，tail.prev 是最久未使用的
+
+    private static final class Node {
+        final String name;
+        Node prev;
+        Node next;
+
+        Node(String name) {
+            this.name = name;
+        }
+    }
+
+    public MruList() {
+        head.next = tail;
+        tail.prev = head;
+    }
+
+    /**
+     * 标记为最近使用（移动到表头，不存在时插入）
+     */
+    public void touch(String name) {
+        Node node = nodes.get(name);
+        if (node == null) {
+            node = new Node(name);
+            nodes.put(name, node);
+        } else {
+            unlink(node);
+        }
+        linkAfter(head, node);
+    }
+
+    /**
+     * 作为最久未使用的文件加入（已存在时不改变顺序）
+     */
+    public void addLast(String name) {
+        if (nodes.containsKey(name)) {
+            return;
+        }
+        Node node = new Node(name);
+        nodes.put(name, node);
+        linkAfter(tail.prev, node);
+    }
+
+    public void remove(String name) {
+        Node node = nodes.remove(name);
+        if (node != null) {
+            unlink(node);
+        }
+    }
+
+    /**
+     * @param exclude 要跳过的文件名（可为 null）
+     * @return 除 exclude 外最近使用的文件名，没有时返回 null
+     */
+    public String mostRecent(String exclude) {
+        Node node = head.next;
+        if (node != tail && node.name.equals(exclude)) {
+            node = node.next;
+        }
+        return node != tail ? node.name : null;
+    }
+
+    /**
+     * @return 最久未使用的文件名，没有时返回 null
+     */
+    public String leastRecent() {
+        return tail.prev != head ? tail.prev.name : null;
+    }
+
+    public int size() {
+        return nodes.size();
+    }
+
+    /**
+     * @return 从最近到最久排列的文件名
+     */
+    public List<String> toList() {
+        List<String> result = new ArrayList<>(nodes.size());
+        for (Node node = head.next; node != tail; node = node.next) {
+            result.add(node.name);
+        }
+        return result;
+    }
+
+    private static void linkAfter(Node position, Node node) {
+        node.prev = position;
+        node.next = position.next;
+        position.next.prev = node;
+        position.next = node;
+    }
+
+    private static void unlink(Node node) {
+        node.prev.next = node.next;
+        node.next.prev = node.prev;
+        node.prev = null;
+        node.next = null;
+    }
+}
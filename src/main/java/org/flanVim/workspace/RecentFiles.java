@@ -0,0 +1,202 @@
+package org.flanVim.workspace;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RecentFiles: 跨会话保存的最近打开文件列表
+ *
+ * 保存在用户目录下的 ~/.flanvim/recent.bin，格式为：
+ * magic "FVRF"、版本号、条目数，然后每个条目依次是打开时间（epoch 毫秒）和路径（writeUTF）。
+ * 启动时一次读入，之后只修改内存中的列表：激活文件不做磁盘 IO，
+ * 列表变化后由后台线程延迟 PERSIST_DELAY_MILLIS 合并写回（原子地重写整个文件，最多 MAX_ENTRIES 条），
+ * 退出时调用 flush 写回尚未保存的变化。
+ * 不指定文件时只保存在内存中（嵌入使用的 WorkSpace、基准测试不会写用户目录）。
+ */
+public class RecentFiles {
+    public static final int MAX_ENTRIES = 50;
+    private static final int MAGIC = 0x46565246;  // "FVRF"
+    private static final int VERSION = 1;
+    private static final long PERSIST_DELAY_MILLIS = 2000;
+
+    private final Path file;  // null 表示只保存在内存中
+    private final List<Entry> entries = new ArrayList<>();  // 最近的在前
+    private long version = 0;          // 列表每次变化加一
+    private long persistedVersion = 0; // 已写入文件的版本
+    private ScheduledExecutorService writer = null;  // 后台写回线程，第一次变化时启动
+    private ScheduledFuture<?> pending = null;       // 已安排、尚未执行的写回
+    private final Object writeLock = new Object();   // 串行化文件写入
+
+    /**
+     * 最近打开的文件
+     */
+    public static final class Entry {
+        private final String path;
+        private final long openedAt;
+
+        Entry(String path, long openedAt) {
+            this.path = path;
+            this.openedAt = openedAt;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        /**
+         * @return 最后打开的时间（epoch 毫秒）
+         */
+        public long getOpenedAt() {
+            return openedAt;
+        }
+    }
+
+    /**
+     * @return 默认位置 ~/.flanvim/recent.bin
+     */
+    public static Path defaultFile() {
+        return Paths.get(System.getProperty("user.home"), TrigramIndex.INDEX_DIR, "recent.bin");
+    }
+
+    /**
+     * 只保存在内存中的列表
+     */
+    public RecentFiles() {
+        this(null);
+    }
+
+    /**
+     * @param file 保存列表的文件，null 表示只保存在内存中
+     */
+    public RecentFiles(Path file) {
+        this.file = file;
+        if (file != null) {
+            load();
+        }
+    }
+
+    /**
+     * 记录一次打开，移动到列表最前面，并安排后台写回
+     */
+    public synchronized void touch(String path) {
+        if (!entries.isEmpty() && entries.get(0).path.equals(path)) {
+            return;  // 顺序没有变化，不需要写文件
+        }
+        for (int i = 0; i < entries.size(); i++) {
+            if (entries.get(i).path.equals(path)) {
+                entries.remove(i);
+                break;
+            }
+        }
+        entries.add(0, new Entry(path, System.currentTimeMillis()));
+        if (entries.size() > MAX_ENTRIES) {
+            entries.remove(entries.size() - 1);
+        }
+        version++;
+        schedulePersist();
+    }
+
+    /**
+     * 安排一次延迟写回，期间的其他变化合并到同一次写入
+     */
+    private void schedulePersist() {
+        if (file == null || (pending != null && !pending.isDone())) {
+            return;
+        }
+        if (writer == null) {
+            writer = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "recent-files-writer");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        pending = writer.schedule(this::flush, PERSIST_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 立即写回尚未保存的变化（退出时调用）
+     */
+    public void flush() {
+        List<Entry> snapshot;
+        long snapshotVersion;
+        synchronized (this) {
+            if (file == null || version == persistedVersion) {
+                return;
+            }
+            snapshot = new ArrayList<>(entries);
+            snapshotVersion = version;
+        }
+        synchronized (writeLock) {
+            synchronized (this) {
+                if (snapshotVersion <= persistedVersion) {
+                    return;  // 更新的版本已经写过
+                }
+            }
+            if (persist(snapshot)) {
+                synchronized (this) {
+                    persistedVersion = Math.max(persistedVersion, snapshotVersion);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return 最近打开的文件，最近的在前
+     */
+    public synchronized List<Entry> getEntries() {
+        return Collections.unmodifiableList(new ArrayList<>(entries));
+    }
+
+    private void load() {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                return;  // 格式不对，当作空列表
+            }
+            int count = Math.min(in.readInt(), MAX_ENTRIES);
+            for (int i = 0; i < count; i++) {
+                long openedAt = in.readLong();
+                entries.add(new Entry(in.readUTF(), openedAt));
+            }
+        } catch (NoSuchFileException e) {
+            // 第一次使用
+        } catch (IOException e) {
+            entries.clear();  // 文件损坏，丢弃
+        }
+    }
+
+    private boolean persist(List<Entry> snapshot) {
+        try {
+            Files.createDirectories(file.getParent());
+            Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(snapshot.size());
+                for (Entry entry : snapshot) {
+                    out.writeLong(entry.openedAt);
+                    out.writeUTF(entry.path);
+                }
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return true;
+        } catch (IOException e) {
+            System.out.println("Warning: Unable to write recent files: " + e.getMessage());
+            return false;
+        }
+    }
+}
@@ -0,0 +1,645 @@
+package org.flanVim.workspace;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.flanVim.editor.Utf8Text;
+
+/**
+ * TrigramIndex: 工作区文件的持久化三元组索引，用于在正则扫描前缩小候选文件
+ *
+ * 每个文件记录 mtime、大小和它包含的所有三元组（连续 3 个字节，ASCII 字母转小写，
+ * 编码为一个 int，排序后存放）。grep 时从正则中提取必须出现的字面量，
+ * 只有包含这些字面量全部三元组的文件才会被真正扫描。
+ *
+ * 索引保存在工作区下的隐藏目录 .flanvim/trigrams.idx 中，
+ * 按文件 mtime/大小增量更新，Editor 保存时用内存中的内容直接更新。
+ */
+public class TrigramIndex {
+    public static final String INDEX_DIR = ".flanvim";
+    private static final String INDEX_FILE = "trigrams.idx";
+    private static final int MAGIC = 0x46565449;  // "FVTI"
+    private static final int VERSION = 1;
+    private static final long MAX_FILE_SIZE = 64L * 1024 * 1024;  // 与 grep 一致，更大的文件不建索引
+    private static final int SNIFF_BYTES = 8192;
+    private static final int SMALL_FILE = 256 * 1024;  // 小于此大小的文件用排序去重，否则用位图
+
+    private final Path root;
+    private final Path indexFile;
+    private Map<String, Entry> entries = null;  // 相对路径（'/' 分隔） -> 索引项，首次使用时加载
+    private boolean dirty = false;
+
+    /**
+     * 单个文件的索引项
+     */
+    private static class Entry {
+        final long mtime;
+        final long size;
+        final int[] trigrams;  // 排序的三元组；null 表示二进制/超大文件，不参与过滤
+
+        Entry(long mtime, long size, int[] trigrams) {
+            this.mtime = mtime;
+            this.size = size;
+            this.trigrams = trigrams;
+        }
+    }
+
+    public TrigramIndex(Path root) {
+        this.root = root.toAbsolutePath().normalize();
+        this.indexFile = this.root.resolve(INDEX_DIR).resolve(INDEX_FILE);
+    }
+
+    public synchronized int size() {
+        ensureLoaded();
+        return entries.size();
+    }
+
+    /**
+     * 按文件 mtime/大小增量更新索引，并删除已不存在的文件
+     * @param files 当前工作区的全部文件（相对路径 -> 属性）
+     */
+    public synchronized void refresh(Map<Path, BasicFileAttributes> files) {
+        ensureLoaded();
+        Map<String, Entry> updated = new HashMap<>();
+        List<Path> changed = new ArrayList<>();
+        for (Map.Entry<Path, BasicFileAttributes> file : files.entrySet()) {
+            String key = key(file.getKey());
+            Entry entry = entries.get(key);
+            BasicFileAttributes attrs = file.getValue();
+            if (entry != null && entry.mtime == attrs.lastModifiedTime().toMillis() && entry.size == attrs.size()) {
+                updated.put(key, entry);
+            } else {
+                changed.add(file.getKey());
+            }
+        }
+
+        // 变化的文件并行重新计算三元组
+        Map<String, Entry> rebuilt = new HashMap<>();
+        changed.parallelStream().forEach(relative -> {
+            Entry entry = indexFile(root.resolve(relative));
+            if (entry != null) {
+                synchronized (rebuilt) {
+                    rebuilt.put(key(relative), entry);
+                }
+            }
+        });
+        updated.putAll(rebuilt);
+
+        if (!changed.isEmpty() || updated.size() != entries.size()) {
+            entries = updated;
+            dirty = true;
+        }
+        persist();
+    }
+
+    /**
+     * 丢弃旧索引，重新扫描整个工作区（reindex）
+     * @return 索引的文件数
+     */
+    public synchronized int rebuild() throws IOException {
+        entries = new HashMap<>();
+        dirty = true;
+        Map<Path, BasicFileAttributes> files = walk(root);
+        refresh(files);
+        return entries.size();
+    }
+
+    /**
+     * Editor 保存后用内存中的内容更新对应文件的索引项（不重新读盘）
+     * 超过 MAX_FILE_SIZE 的文件不建索引；Utf8Text 直接从 UTF-8 字节计算，不复制也不重新编码
+     * @param absolutePath 文件绝对路径
+     * @param content 保存的内容
+     */
+    public synchronized void onSaved(String absolutePath, CharSequence content) {
+        Path path = Path.of(absolutePath).toAbsolutePath().normalize();
+        if (!path.startsWith(root) || path.startsWith(root.resolve(INDEX_DIR))) {
+            return;
+        }
+        ensureLoaded();
+        try {
+            BasicFileAttributes attrs = Files.readAttributes(path, BasicFileAttributes.class);
+            int[] trigrams = null;
+            if (attrs.size() <= MAX_FILE_SIZE) {
+                if (content instanceof Utf8Text) {
+                    trigrams = ((Utf8Text) content).readBytes(view -> trigrams(view, view.limit()));
+                } else {
+                    byte[] bytes = content.toString().getBytes(StandardCharsets.UTF_8);
+                    trigrams = trigrams(ByteBuffer.wrap(bytes), bytes.length);
+                }
+            }
+            entries.put(key(root.relativize(path)),
+                    new Entry(attrs.lastModifiedTime().toMillis(), attrs.size(), trigrams));
+            dirty = true;
+        } catch (IOException e) {
+            entries.remove(key(root.relativize(path)));  // 下次 grep 时按 mtime 重新索引
+        }
+    }
+
+    /**
+     * 判断文件是否可能包含正则的匹配
+     * @param relative 相对路径
+     * @param required 必须出现的三元组（见 requiredTrigrams）
+     */
+    public synchronized boolean mayContain(Path relative, int[] required) {
+        if (required.length == 0) {
+            return true;
+        }
+        ensureLoaded();
+        Entry entry = entries.get(key(relative));
+        if (entry == null || entry.trigrams == null) {
+            return true;  // 未索引或二进制/超大文件，交给扫描阶段处理
+        }
+        for (int trigram : required) {
+            if (Arrays.binarySearch(entry.trigrams, trigram) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 列出工作区中的全部普通文件（跳过隐藏目录）
+     * @return 相对路径 -> 属性
+     */
+    public static Map<Path, BasicFileAttributes> walk(Path root) throws IOException {
+        Map<Path, BasicFileAttributes> files = new HashMap<>();
+        Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                if (!dir.equals(root) && dir.getFileName().toString().startsWith(".")) {
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                if (attrs.isRegularFile()) {
+                    files.put(root.relativize(file), attrs);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException e) {
+                return FileVisitResult.CONTINUE;  // 无法访问的文件直接跳过
+            }
+        });
+        return files;
+    }
+
+    // ==================== 三元组提取 ====================
+
+    /**
+     * 从正则中提取必须出现的字面量，并转为三元组
+     * 只做保守分析：出现顶层以外无法判断的结构（如 |）时返回空数组，表示不过滤
+     */
+    public static int[] requiredTrigrams(String regex) {
+        boolean caseInsensitive = false;
+        for (int i = regex.indexOf('('); i >= 0 && !caseInsensitive; i = regex.indexOf('(', i + 1)) {
+            caseInsensitive = enablesFlag(regex, i, 'i');
+        }
+        Set<Integer> result = new HashSet<>();
+        for (String literal : requiredLiterals(regex)) {
+            if (caseInsensitive && !isAscii(literal)) {
+                continue;  // 非 ASCII 的大小写折叠无法用三元组表达
+            }
+            byte[] bytes = literal.getBytes(StandardCharsets.UTF_8);
+            if (bytes.length < 3) {
+                continue;
+            }
+            for (int trigram : trigrams(ByteBuffer.wrap(bytes), bytes.length)) {
+                result.add(trigram);
+            }
+        }
+        int[] trigrams = new int[result.size()];
+        int i = 0;
+        for (int trigram : result) {
+            trigrams[i++] = trigram;
+        }
+        return trigrams;
+    }
+
+    /**
+     * 提取正则中必须按原样出现的字面量片段
+     * 分组内的内容可能整体可选（如 (abc)?），只收集分组之外的字面量
+     */
+    static List<String> requiredLiterals(String regex) {
+        List<String> literals = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        int depth = 0;
+        for (int i = 0; i < regex.length(); i++) {
+            char c = regex.charAt(i);
+            switch (c) {
+                case '|':
+                    return new ArrayList<>();  // 有分支，无法确定必须出现的内容
+                case '\\':
+                    if (i + 1 >= regex.length()) {
+                        return new ArrayList<>();
+                    }
+                    char next = regex.charAt(++i);
+                    if (next == 'Q') {
+                        // \Q...\E 之间全部是字面量
+                        int end = regex.indexOf("\\E", i + 1);
+                        int stop = end < 0 ? regex.length() : end;
+                        current.append(regex, i + 1, stop);
+                        i = end < 0 ? regex.length() : end + 1;
+                    } else if (Character.isLetterOrDigit(next)) {
+                        // \w \d \s \b \1 等字符类/断言，以及 \x41 \u0041 \cA \p{L} 等带参数的转义：
+                        // 都不是可用的字面量，参数也要一并跳过
+                        flush(current, depth == 0 ? literals : null);
+                        i = skipEscapeArgument(regex, i);
+                    } else {
+                        current.append(next);  // 转义的元字符
+                    }
+                    break;
+                case '[':
+                    flush(current, depth == 0 ? literals : null);
+                    i = skipClass(regex, i);
+                    if (i < 0) {
+                        return new ArrayList<>();  // 字符类没有闭合，无法判断之后的内容
+                    }
+                    break;
+                case '(':
+                    flush(current, depth == 0 ? literals : null);
+                    if (enablesFlag(regex, i, 'x')) {
+                        return new ArrayList<>();  // (?x) 下空白和 # 注释不参与匹配，字面量无法按原样提取
+                    }
+                    depth++;
+                    break;
+                case ')':
+                    flush(current, null);
+                    depth--;
+                    break;
+                case '*':
+                case '?':
+                case '{':
+                    // 前一个字符可以不出现
+                    if (current.length() > 0) {
+                        current.setLength(current.length() - 1);
+                    }
+                    flush(current, depth == 0 ? literals : null);
+                    if (c == '{') {
+                        int close = regex.indexOf('}', i);
+                        i = close < 0 ? regex.length() : close;
+                    }
+                    break;
+                case '+':
+                case '.':
+                case '^':
+                case '$':
+                    flush(current, depth == 0 ? literals : null);
+                    break;
+                default:
+                    current.append(c);
+            }
+        }
+        flush(current, depth == 0 ? literals : null);
+        return depth == 0 ? literals : new ArrayList<>();
+    }
+
+    /**
+     * 结束当前字面量片段，literals 为 null 时丢弃
+     */
+    private static void flush(StringBuilder current, List<String> literals) {
+        if (current.length() > 0 && literals != null) {
+            literals.add(current.toString());
+        }
+        current.setLength(0);
+    }
+
+    /**
+     * 跳过带参数的转义的参数部分
+     * @param regex 正则
+     * @param letter 转义字母（\\ 之后的字符）的下标
+     * @return 转义的最后一个字符的下标
+     */
+    private static int skipEscapeArgument(String regex, int letter) {
+        int i = letter;
+        switch (regex.charAt(letter)) {
+            case 'x':
+                if (i + 1 < regex.length() && regex.charAt(i + 1) == '{') {
+                    return closing(regex, i + 1, '}');  // \x{h...h}
+                }
+                return skipWhile(regex, i, 2, "0123456789abcdefABCDEF");  // \xhh
+            case 'u':
+                return skipWhile(regex, i, 4, "0123456789abcdefABCDEF");  // u 后跟 4 位十六进制
+            case '0':
+                return skipWhile(regex, i, 3, "01234567");  // \0n \0nn \0mnn
+            case 'c':
+                return Math.min(i + 1, regex.length() - 1);  // \cX
+            case 'k':
+                if (i + 1 < regex.length() && regex.charAt(i + 1) == '<') {
+                    return closing(regex, i + 1, '>');  // \k<name>
+                }
+                return i;
+            case 'N':
+                if (i + 1 < regex.length() && regex.charAt(i + 1) == '{') {
+                    return closing(regex, i + 1, '}');  // \N{name}
+                }
+                return i;
+            case 'p':
+            case 'P':
+                if (i + 1 < regex.length() && regex.charAt(i + 1) == '{') {
+                    return closing(regex, i + 1, '}');  // \p{Lu}
+                }
+                return Math.min(i + 1, regex.length() - 1);  // \pL
+            default:
+                return i;
+        }
+    }
+
+    /**
+     * 从 start 之后最多跳过 max 个属于 chars 的字符
+     * @return 最后一个被跳过的字符的下标（一个都没有时为 start）
+     */
+    private static int skipWhile(String regex, int start, int max, String chars) {
+        int i = start;
+        while (i + 1 < regex.length() && i - start < max && chars.indexOf(regex.charAt(i + 1)) >= 0) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * @return open 之后第一个 close 字符的下标，没有时为正则末尾
+     */
+    private static int closing(String regex, int open, char close) {
+        int end = regex.indexOf(close, open + 1);
+        return end < 0 ? regex.length() - 1 : end;
+    }
+
+    /**
+     * 判断 start 处的 ( 是否是开启指定标志的内联标志组，如 flag 为 x 时的 (?x) (?ix) (?x:...)
+     */
+    private static boolean enablesFlag(String regex, int start, char flag) {
+        if (start + 1 >= regex.length() || regex.charAt(start + 1) != '?') {
+            return false;
+        }
+        for (int i = start + 2; i < regex.length(); i++) {
+            char c = regex.charAt(i);
+            if (c == flag) {
+                return true;
+            }
+            if (c == '-' || c == ')' || c == ':' || !Character.isLetter(c)) {
+                return false;  // - 之后是关闭的标志
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 跳过一个字符类，支持嵌套和交集（如 [a-z&&[^aeiou]]）、转义、\Q...\E，
+     * 以及紧跟在 [ 或 [^ 之后作为字面量的 ]
+     * @return 字符类结尾 ] 的下标，没有闭合时返回 -1
+     */
+    private static int skipClass(String regex, int start) {
+        int depth = 0;
+        int i = start;
+        while (i < regex.length()) {
+            char c = regex.charAt(i);
+            if (c == '[') {
+                depth++;
+                i++;
+                if (i < regex.length() && regex.charAt(i) == '^') {
+                    i++;
+                }
+                if (i < regex.length() && regex.charAt(i) == ']') {
+                    i++;
+                }
+                continue;
+            }
+            if (c == '\\') {
+                if (i + 1 < regex.length() && regex.charAt(i + 1) == 'Q') {
+                    int end = regex.indexOf("\\E", i + 2);
+                    if (end < 0) {
+                        return -1;
+                    }
+                    i = end + 2;
+                } else {
+                    i += 2;
+                }
+                continue;
+            }
+            if (c == ']' && --depth == 0) {
+                return i;
+            }
+            i++;
+        }
+        return -1;
+    }
+
+    private static boolean isAscii(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            if (s.charAt(i) >= 0x80) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 计算字节内容中出现的全部三元组（排序、去重）
+     */
+    static int[] trigrams(ByteBuffer bytes, int length) {
+        if (length < 3) {
+            return new int[0];
+        }
+        if (length < SMALL_FILE) {
+            // 小文件：排序后去重
+            int[] all = new int[length - 2];
+            int a = lower(bytes.get(0));
+            int b = lower(bytes.get(1));
+            for (int i = 2; i < length; i++) {
+                int c = lower(bytes.get(i));
+                all[i - 2] = (a << 16) | (b << 8) | c;
+                a = b;
+                b = c;
+            }
+            Arrays.sort(all);
+            int n = 0;
+            for (int i = 0; i < all.length; i++) {
+                if (i == 0 || all[i] != all[i - 1]) {
+                    all[n++] = all[i];
+                }
+            }
+            return Arrays.copyOf(all, n);
+        }
+        // 大文件：用位图去重：2^24 位 = 2MB，比 HashSet 快得多
+        long[] seen = new long[1 << 18];
+        int count = 0;
+        int a = lower(bytes.get(0));
+        int b = lower(bytes.get(1));
+        for (int i = 2; i < length; i++) {
+            int c = lower(bytes.get(i));
+            int trigram = (a << 16) | (b << 8) | c;
+            long bit = 1L << (trigram & 63);
+            if ((seen[trigram >>> 6] & bit) == 0) {
+                seen[trigram >>> 6] |= bit;
+                count++;
+            }
+            a = b;
+            b = c;
+        }
+        int[] result = new int[count];
+        int n = 0;
+        for (int word = 0; word < seen.length && n < count; word++) {
+            long bits = seen[word];
+            while (bits != 0) {
+                int bit = Long.numberOfTrailingZeros(bits);
+                result[n++] = (word << 6) | bit;
+                bits &= bits - 1;
+            }
+        }
+        return result;  // 按位图顺序输出，已经有序
+    }
+
+    private static int lower(byte b) {
+        int c = b & 0xFF;
+        return c >= 'A' && c <= 'Z' ? c + ('a' - 'A') : c;
+    }
+
+    /**
+     * 读取并索引单个文件
+     * @return 索引项；文件无法读取时返回 null
+     */
+    private static Entry indexFile(Path file) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            BasicFileAttributes attrs = Files.readAttributes(file, BasicFileAttributes.class);
+            long size = channel.size();
+            if (size > MAX_FILE_SIZE) {
+                return new Entry(attrs.lastModifiedTime().toMillis(), attrs.size(), null);
+            }
+            ByteBuffer buffer = size == 0 ? ByteBuffer.allocate(0)
+                                          : channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            int sniff = (int) Math.min(size, SNIFF_BYTES);
+            for (int i = 0; i < sniff; i++) {
+                if (buffer.get(i) == 0) {
+                    return new Entry(attrs.lastModifiedTime().toMillis(), attrs.size(), null);
+                }
+            }
+            return new Entry(attrs.lastModifiedTime().toMillis(), attrs.size(), trigrams(buffer, (int) size));
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static String key(Path relative) {
+        return relative.toString().replace('\\', '/');
+    }
+
+    // ==================== 持久化 ====================
+
+    private void ensureLoaded() {
+        if (entries != null) {
+            return;
+        }
+        entries = new HashMap<>();
+        if (!Files.exists(indexFile)) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(indexFile)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                return;  // 格式不认识，当作没有索引
+            }
+            int fileCount = in.readInt();
+            for (int i = 0; i < fileCount; i++) {
+                String path = in.readUTF();
+                long mtime = in.readLong();
+                long size = in.readLong();
+                int count = in.readInt();
+                int[] trigrams = null;
+                if (count >= 0) {
+                    trigrams = new int[count];
+                    int previous = 0;
+                    for (int j = 0; j < count; j++) {
+                        previous += readVarInt(in);  // 差分编码
+                        trigrams[j] = previous;
+                    }
+                }
+                entries.put(path, new Entry(mtime, size, trigrams));
+            }
+        } catch (IOException e) {
+            entries = new HashMap<>();  // 索引损坏，重新建立
+            dirty = true;
+        }
+    }
+
+    /**
+     * 将索引写回磁盘（先写临时文件再原子替换）
+     */
+    public synchronized void persist() {
+        if (!dirty || entries == null) {
+            return;
+        }
+        try {
+            Files.createDirectories(indexFile.getParent());
+            Path temp = indexFile.resolveSibling(INDEX_FILE + ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(entries.size());
+                for (Map.Entry<String, Entry> item : entries.entrySet()) {
+                    Entry entry = item.getValue();
+                    out.writeUTF(item.getKey());
+                    out.writeLong(entry.mtime);
+                    out.writeLong(entry.size);
+                    if (entry.trigrams == null) {
+                        out.writeInt(-1);
+                        continue;
+                    }
+                    out.writeInt(entry.trigrams.length);
+                    int previous = 0;
+                    for (int trigram : entry.trigrams) {
+                        writeVarInt(out, trigram - previous);
+                        previous = trigram;
+                    }
+                }
+            }
+            Files.move(temp, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            dirty = false;
+        } catch (IOException e) {
+            System.out.println("Warning: Unable to write trigram index: " + e.getMessage());
+        }
+    }
+
+    private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static int readVarInt(DataInputStream in) throws IOException {
+        int value = 0;
+        int shift = 0;
+        int b;
+        do {
+            b = in.readByte();
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+}
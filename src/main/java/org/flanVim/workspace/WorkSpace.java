@@ -1,12 +1,25 @@
 package org.flanVim.workspace;
 
 import org.flanVim.command.CommandHistory;
+import org.flanVim.command.Macro;
+import org.flanVim.command.Repeatable;
+import org.flanVim.command.editorspace.ReloadCommand;
+import org.flanVim.command.editorspace.TransactionCommand;
+import org.flanVim.editor.CompressedText;
+import org.flanVim.editor.EditJournal;
 import org.flanVim.editor.Editor;
+import org.flanVim.util.FlightEvents;
+import org.flanVim.util.LatencyHistogram;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.time.LocalDateTime;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
 
 /**
  * WorkSpace: 管理所有打开的编辑器和当前活动的编辑器
@@ -17,28 +30,69 @@ public class WorkSpace {
     private Editor activeEditor = null;
     private String activeFileName = null;
     private CommandHistory commandHistory = new CommandHistory();
+    private DirTreeCache dirTreeCache = null;  // inispace 后创建的目录树缓存
+    private FileIndex fileIndex = null;  // 基于目录树缓存的文件名索引
+    private TrigramIndex trigramIndex = null;  // grep 使用的持久化三元组索引，首次使用时创建
+    private final MruList mru = new MruList();  // 打开的编辑器按最近激活排序
+    private RecentFiles recentFiles = null;  // 最近文件列表，默认只在内存中，CLI 启动时指定持久化的列表
+    private long memoryBudget = defaultMemoryBudget();  // 编辑器内容的内存预算（字节）
+    private ScheduledExecutorService compactor = null;  // 后台压缩空闲缓冲区的线程，第一次打开文件时启动
+    private long compressIdleMillis = Long.getLong("flanvim.compressIdleSeconds", 300L) * 1000;
+    private long compressNanos = 0;  // 累计压缩耗时
+    private int compressRuns = 0;    // 累计压缩的缓冲区次数
+    private Editor transactionEditor = null;  // begin 之后、commit/rollback 之前的事务所在的编辑器
+    private boolean transactionWasModified = false;  // begin 时编辑器的修改状态，rollback 时恢复
+    private int transactionCommands = 0;  // 事务中成功执行的命令数
+    private final Map<String, Macro> macros = new HashMap<>();  // 录制好的宏（仅本次会话）
+    private Macro recording = null;  // record 之后、stop 之前正在录制的宏
+    private FileWatcher fileWatcher = null;  // 监听打开文件的外部修改，第一次打开文件时启动
+    private int lastRecordedEdits = 0;  // 最近一次命令执行期间记入日志的修改次数（JFR 事件使用）
+    private final Map<String, LatencyHistogram> commandLatency = new ConcurrentHashMap<>();  // 命令类型 -> 耗时分布
+
+    private static final int MIN_COMPRESS_CHARS = 64 * 1024;  // 小于此大小的缓冲区不压缩
+    private static final long COMPACT_INTERVAL_SECONDS = 30;
 
     // public WorkSpace(String workSpacePath) {
     //     this.workSpacePath = workSpacePath;
     // }
     public WorkSpace() {}
 
+    /**
+     * 默认内存预算 256MB，可以通过 -Dflanvim.memoryBudgetMB=<n> 修改
+     */
+    private static long defaultMemoryBudget() {
+        return Long.getLong("flanvim.memoryBudgetMB", 256L) * 1024 * 1024;
+    }
+
     public Editor getActiveEditor() {
         return activeEditor;
     }
 
-    public void setActiveEditor(String fileName) {
+    public synchronized void setActiveEditor(String fileName) {
         this.activeEditor = editors.get(fileName);
         this.activeFileName = fileName;
         
-        // 更新访问时间
+        // 更新访问时间和最近使用顺序，被压缩的内容立即解压
         if (this.activeEditor != null) {
             this.activeEditor.updateAccessTime();
+            this.activeEditor.ensureDecompressed();
+            mru.touch(fileName);
+            getRecentFiles().touch(fileName);
         }
     }
 
-    public void addEditor(String fileName, Editor editor) {
+    /**
+     * 加入编辑器（与命令执行和后台压缩互斥：后台线程会遍历 editors）
+     */
+    public synchronized void addEditor(String fileName, Editor editor) {
         editors.put(fileName, editor);
+        mru.addLast(fileName);
+        editor.setSaveListener(this::onEditorSaved);
+        startCompactor();
+        startFileWatcher();
+        if (fileWatcher != null) {
+            fileWatcher.watch(Paths.get(editor.getFilePath()));
+        }
         if (activeEditor == null) {
             setActiveEditor(fileName);
         }
@@ -52,8 +106,20 @@ public class WorkSpace {
         return editors.containsKey(fileName);
     }
 
-    public void removeEditor(String fileName) {
-        editors.remove(fileName);
+    public synchronized void removeEditor(String fileName) {
+        Editor removed = editors.remove(fileName);
+        mru.remove(fileName);
+        if (removed != null && removed == transactionEditor) {
+            removed.stopJournal();
+            transactionEditor = null;
+            System.out.println("Transaction on " + fileName + " discarded (editor closed)");
+        }
+        if (removed != null) {
+            removed.release();  // 堆外内容随编辑器关闭立即释放
+            if (fileWatcher != null) {
+                fileWatcher.unwatch(Paths.get(removed.getFilePath()));
+            }
+        }
         // 如果删除的是活动编辑器，需要清空或切换到另一个
         if (fileName.equals(activeFileName)) {
             activeEditor = null;
@@ -81,6 +147,102 @@ public class WorkSpace {
         this.workSpacePath = workSpacePath;
     }
 
+    /**
+     * 为当前工作区创建目录树缓存和文件索引，并在后台开始扫描和监听
+     */
+    public void startDirTreeCache() {
+        if (workSpacePath == null || dirTreeCache != null) {
+            return;
+        }
+        dirTreeCache = new DirTreeCache(Paths.get(workSpacePath));
+        dirTreeCache.start();
+        fileIndex = new FileIndex(dirTreeCache);
+        fileIndex.start();
+    }
+
+    /**
+     * 解析用户输入的文件名（load/save/diff 使用）
+     * 精确路径可用，或输入是显式路径（绝对路径、./ 或 ../ 开头）时直接返回精确路径；
+     * 输入是不含路径分隔符的文件名时，在文件索引中查找 accept 接受的同名文件（区分大小写）。
+     * 不做后缀、前缀和模糊匹配：输入带目录时就是精确路径，找不到同名文件时也返回精确路径，
+     * 这样 load 新文件名仍然会新建文件，save/diff 也不会落到一个只是名字相近的文件上
+     *
+     * @param name 用户输入
+     * @param exactPath 按原规则拼接得到的精确路径
+     * @param accept 候选路径是否可用（例如文件存在、编辑器已打开）
+     * @return 解析后的路径；有多个候选时打印候选并返回 null；没有候选时返回精确路径
+     */
+    public String resolveFileName(String name, String exactPath, Predicate<String> accept) {
+        if (accept.test(exactPath) || isExplicitPath(name) || fileIndex == null) {
+            return exactPath;
+        }
+        return pickMatch(name, exactPath, fileIndex.lookupName(name, accept));
+    }
+
+    /**
+     * 模糊解析用户输入的文件名（edit 使用）
+     * 与 resolveFileName 相同，但按文件名、路径后缀、文件名前缀、模糊匹配的顺序查找，忽略大小写。
+     * 只用于在已打开的文件之间切换，不会因此新建或覆盖文件
+     *
+     * @param name 用户输入
+     * @param exactPath 按原规则拼接得到的精确路径
+     * @param accept 候选路径是否可用
+     * @return 解析后的路径；有多个候选时打印候选并返回 null；没有候选时返回精确路径
+     */
+    public String resolveFileNameFuzzy(String name, String exactPath, Predicate<String> accept) {
+        if (accept.test(exactPath) || isExplicitPath(name) || fileIndex == null) {
+            return exactPath;
+        }
+        return pickMatch(name, exactPath, fileIndex.lookup(name, accept));
+    }
+
+    private String pickMatch(String name, String exactPath, List<String> matches) {
+        if (matches.size() == 1) {
+            System.out.println("Resolved " + name + " -> " + getRelativePath(matches.get(0)));
+            return matches.get(0);
+        }
+        if (matches.size() > 1) {
+            System.out.println("Ambiguous file name: " + name + ", candidates:");
+            for (String match : matches) {
+                System.out.println("     " + getRelativePath(match));
+            }
+            return null;
+        }
+        return exactPath;
+    }
+
+    private static boolean isExplicitPath(String name) {
+        return Paths.get(name).isAbsolute() || name.startsWith("./") || name.startsWith("../")
+                || name.startsWith(".\\") || name.startsWith("..\\");
+    }
+
+    /**
+     * @return 目录树缓存，工作区未初始化时为 null
+     */
+    public DirTreeCache getDirTreeCache() {
+        return dirTreeCache;
+    }
+
+    /**
+     * @return 工作区的三元组索引，工作区未初始化时为 null
+     */
+    public TrigramIndex getTrigramIndex() {
+        if (trigramIndex == null && workSpacePath != null) {
+            trigramIndex = new TrigramIndex(Paths.get(workSpacePath));
+        }
+        return trigramIndex;
+    }
+
+    /**
+     * Editor 保存后的回调：用保存的内容更新三元组索引
+     */
+    private void onEditorSaved(Editor editor) {
+        TrigramIndex index = getTrigramIndex();
+        if (index != null) {
+            index.onSaved(editor.getFilePath(), editor.getContentView());
+        }
+    }
+
     public Map<String, Editor> getAllEditors() {
         return editors;
     }
@@ -132,27 +294,208 @@ public class WorkSpace {
      * @return 最近使用的文件名，如果没有其他文件则返回 null
      */
     public String getMostRecentlyUsedFile(String excludeFileName) {
-        String mostRecentFile = null;
-        LocalDateTime mostRecentTime = null;
-        
-        for (Map.Entry<String, Editor> entry : editors.entrySet()) {
-            String fileName = entry.getKey();
-            Editor editor = entry.getValue();
-            
-            // 跳过要排除的文件
-            if (fileName.equals(excludeFileName)) {
+        return mru.mostRecent(excludeFileName);
+    }
+
+    /**
+     * @return 打开的文件名，从最近激活到最久未激活
+     */
+    public List<String> getEditorsByRecentUse() {
+        return mru.toList();
+    }
+
+    /**
+     * @return 最近文件列表；没有通过 setRecentFiles 指定时只保存在内存中
+     */
+    public RecentFiles getRecentFiles() {
+        if (recentFiles == null) {
+            recentFiles = new RecentFiles();
+        }
+        return recentFiles;
+    }
+
+    /**
+     * 指定最近文件列表（CLI 使用 ~/.flanvim/recent.bin 跨会话保存）
+     */
+    public void setRecentFiles(RecentFiles recentFiles) {
+        this.recentFiles = recentFiles;
+    }
+
+    public long getMemoryBudget() {
+        return memoryBudget;
+    }
+
+    public void setMemoryBudget(long memoryBudget) {
+        this.memoryBudget = memoryBudget;
+        enforceMemoryBudget();
+    }
+
+    /**
+     * @return 所有编辑器内容和撤销历史检查点占用内存的估计字节数
+     */
+    public long getResidentBytes() {
+        long total = 0;
+        for (Editor editor : editors.values()) {
+            total += editor.getResidentBytes() + editor.getHistoryBytes();
+        }
+        return total;
+    }
+
+    /**
+     * 超出内存预算时，从最久未使用的编辑器开始换出未修改的内容
+     * 活动编辑器和已修改的编辑器不会被换出，换出的编辑器在下次访问时自动重新加载
+     * 仍然超出时，再从最久未使用的编辑器开始丢弃撤销历史的检查点（只影响多步跳转的速度）
+     * @return 换出的编辑器数量
+     */
+    public int enforceMemoryBudget() {
+        long resident = getResidentBytes();
+        if (resident <= memoryBudget) {
+            return 0;
+        }
+        int evicted = 0;
+        List<String> order = mru.toList();
+        for (int i = order.size() - 1; i >= 0 && resident > memoryBudget; i--) {
+            Editor editor = editors.get(order.get(i));
+            if (editor == null || editor == activeEditor) {
                 continue;
             }
-            
-            // 找到访问时间最晚的文件
-            LocalDateTime accessTime = editor.getLastAccessTime();
-            if (mostRecentTime == null || accessTime.isAfter(mostRecentTime)) {
-                mostRecentTime = accessTime;
-                mostRecentFile = fileName;
+            long freed = editor.evict();
+            if (freed > 0) {
+                resident -= freed;
+                evicted++;
             }
         }
-        
-        return mostRecentFile;
+        for (int i = order.size() - 1; i >= 0 && resident > memoryBudget; i--) {
+            Editor editor = editors.get(order.get(i));
+            if (editor != null) {
+                resident -= editor.dropCheckpoints();
+            }
+        }
+        return evicted;
+    }
+
+    /**
+     * 启动后台压缩线程：定期把空闲的、非活动的已修改缓冲区压缩存放
+     */
+    private void startCompactor() {
+        if (compactor != null) {
+            return;
+        }
+        compactor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "buffer-compactor");
+            t.setDaemon(true);
+            return t;
+        });
+        // 任务抛出异常会让 ScheduledExecutorService 取消之后的所有执行，这里全部捕获
+        compactor.scheduleWithFixedDelay(() -> {
+            try {
+                compressIdleEditors(compressIdleMillis);
+            } catch (Throwable e) {
+                System.err.println("Warning: Background buffer compaction failed: " + e);
+            }
+        }, COMPACT_INTERVAL_SECONDS, COMPACT_INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * 启动文件监听线程，可以通过 -Dflanvim.watchFiles=false 关闭（关闭后保存前仍会检查冲突）
+     */
+    private void startFileWatcher() {
+        if (fileWatcher != null || !Boolean.parseBoolean(System.getProperty("flanvim.watchFiles", "true"))) {
+            return;
+        }
+        FileWatcher watcher = new FileWatcher(this::onFileChanged);
+        if (watcher.start()) {
+            fileWatcher = watcher;
+        }
+    }
+
+    /**
+     * 文件监听线程的回调：打开的文件在磁盘上发生变化（与命令执行互斥）
+     * - 未修改的缓冲区：增量重新加载，作为一次可撤销的编辑进入历史
+     * - 已修改的缓冲区（或事务进行中）：只给出冲突警告，save 会拒绝覆盖
+     * - 被换出的缓冲区：不需要处理，下次访问时会从磁盘重新加载
+     */
+    synchronized void onFileChanged(Path file) {
+        Editor editor = null;
+        for (Editor candidate : editors.values()) {
+            if (Paths.get(candidate.getFilePath()).toAbsolutePath().normalize().equals(file)) {
+                editor = candidate;
+                break;
+            }
+        }
+        if (editor == null || !editor.isChangedOnDisk() || !editor.isResident()) {
+            return;  // 已关闭、自己保存产生的事件，或者内容不在内存中
+        }
+        String name = getRelativePath(editor.getFilePath());
+        if (!file.toFile().exists()) {
+            System.out.println("\nWarning: " + name + " was deleted on disk; save will recreate it");
+            return;
+        }
+        if (editor.isModified() || editor == transactionEditor) {
+            System.out.println("\nWarning: " + name + " was changed on disk and has unsaved changes here;"
+                               + " use diff to compare, reload to take the disk version, or save --force to overwrite");
+            return;
+        }
+        System.out.println();
+        executeCommand(new ReloadCommand(editor));
+    }
+
+    /**
+     * 压缩空闲超过 idleMillis 的非活动缓冲区（与命令执行互斥）
+     * 未修改的缓冲区由内存预算换出到磁盘，这里只处理不能换出的已修改缓冲区
+     * @return 本次压缩的缓冲区数量
+     */
+    public synchronized int compressIdleEditors(long idleMillis) {
+        long now = System.currentTimeMillis();
+        int count = 0;
+        for (Editor editor : editors.values()) {
+            if (editor == activeEditor || now - editor.getLastBufferAccess() < idleMillis) {
+                continue;
+            }
+            CompressedText result = editor.compress(MIN_COMPRESS_CHARS);
+            if (result != null) {
+                compressNanos += result.getCompressNanos();
+                compressRuns++;
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public void setCompressIdleMillis(long compressIdleMillis) {
+        this.compressIdleMillis = compressIdleMillis;
+    }
+
+    /**
+     * @return 累计压缩耗时（纳秒）
+     */
+    public synchronized long getCompressNanos() {
+        return compressNanos;
+    }
+
+    /**
+     * @return 累计压缩的次数
+     */
+    public synchronized int getCompressRuns() {
+        return compressRuns;
+    }
+
+    /**
+     * 记录一次命令（或 undo/redo）的耗时，可以在任何线程中调用
+     */
+    public void recordLatency(String name, long nanos, boolean success) {
+        commandLatency.computeIfAbsent(name, k -> new LatencyHistogram()).record(nanos, success);
+    }
+
+    /**
+     * @return 命令类型 -> 耗时分布（本次会话，stats --reset 清空）
+     */
+    public Map<String, LatencyHistogram> getCommandLatency() {
+        return commandLatency;
+    }
+
+    public void resetCommandLatency() {
+        commandLatency.clear();
     }
 
     /**
@@ -166,18 +509,72 @@ public class WorkSpace {
      * - EditorCommand: 路由到对应 Editor 的 history
      * - 其他命令: 添加到 WorkSpace 的 commandHistory
      * 
+     * 命令执行与后台压缩线程互斥（同步在 WorkSpace 上）
+     * 每次执行的耗时（包括记录历史）按命令类型记入耗时直方图，见 stats；
+     * 用 JFR 录制时同时产生 org.flanVim.Command 事件
+     * 
      * @param command 要执行的命令
      * @return 命令执行结果（true 表示成功，false 表示失败）
      */
-    public boolean executeCommand(org.flanVim.command.Command command) {
+    public synchronized boolean executeCommand(org.flanVim.command.Command command) {
+        FlightEvents.CommandEvent event = new FlightEvents.CommandEvent();
+        event.begin();
+        long start = System.nanoTime();
         boolean success = false;
+        try {
+            success = runCommand(command);
+            return success;
+        } finally {
+            recordLatency(FlightEvents.commandType(command), System.nanoTime() - start, success);
+            event.end();
+            if (event.shouldCommit()) {
+                Editor target = command instanceof org.flanVim.command.EditorCommand
+                        ? ((org.flanVim.command.EditorCommand) command).getEditor() : null;
+                event.commandType = FlightEvents.commandType(command);
+                event.filePath = target != null ? target.getFilePath() : "";
+                event.success = success;
+                event.undoable = command instanceof org.flanVim.command.Undoable;
+                event.recordedEdits = lastRecordedEdits;
+                event.commit();
+            }
+        }
+    }
+
+    private boolean runCommand(org.flanVim.command.Command command) {
+        // 可撤销的 Editor 层命令执行期间记录修改日志，随命令一起进入撤销树（事务中的修改由事务日志记录）
+        Editor journaled = null;
+        if (command instanceof org.flanVim.command.Undoable
+                && command instanceof org.flanVim.command.EditorCommand) {
+            Editor target = ((org.flanVim.command.EditorCommand) command).getEditor();
+            if (target != null && target != transactionEditor) {
+                journaled = target;
+                journaled.startJournal();
+            }
+        }
+
+        boolean success = false;
+        EditJournal delta = null;
         try {
             success = command.execute();
         } catch (Exception e) {
             System.out.println("Error executing command: " + e.getMessage());
             success = false;  // 确保异常时返回 false
+        } finally {
+            if (journaled != null) {
+                delta = journaled.stopJournal();
+            }
+            lastRecordedEdits = delta != null ? delta.getRecordedCount() : 0;
         }
+
+        // 命令可能加载了新文件，检查内存预算
+        enforceMemoryBudget();
         
+        // 录制宏时保存成功执行的命令的参数副本
+        if (success && recording != null && command instanceof Repeatable) {
+            Repeatable step = (Repeatable) command;
+            recording.add(step.copyFor(step.getEditor()));
+        }
+
         // 只有命令执行成功且支持撤销时，才添加到历史记录
         // 这样可以避免失败的命令占用内存
         if (success && command instanceof org.flanVim.command.Undoable) {
@@ -186,7 +583,12 @@ public class WorkSpace {
                 // Editor 层命令: 添加到对应 Editor 的历史记录
                 org.flanVim.command.EditorCommand editorCmd = 
                     (org.flanVim.command.EditorCommand) command;
-                editorCmd.getEditor().addToHistory(command);
+                if (editorCmd.getEditor() == transactionEditor) {
+                    // 事务中的修改已经记入日志，commit 时作为一条记录入历史
+                    transactionCommands++;
+                    return success;
+                }
+                editorCmd.getEditor().addToHistory(command, delta);
             } else {
                 // WorkSpace 层命令: 添加到 WorkSpace 的历史记录
                 commandHistory.addCommand(command);
@@ -196,6 +598,108 @@ public class WorkSpace {
         return success;
     }
     
+    // ==================== 事务 ====================
+
+    public synchronized boolean inTransaction() {
+        return transactionEditor != null;
+    }
+
+    /**
+     * 在当前活动编辑器上开始事务
+     * 之后对该编辑器的修改照常生效，但不逐条进入历史，而是记入编辑器的修改日志
+     */
+    public synchronized boolean beginTransaction() {
+        if (transactionEditor != null) {
+            System.out.println("Error: A transaction is already open on " + transactionEditor.getFilePath());
+            return false;
+        }
+        if (activeEditor == null) {
+            System.out.println("Error: No active editor to begin a transaction on.");
+            return false;
+        }
+        transactionEditor = activeEditor;
+        transactionWasModified = activeEditor.isModified();
+        transactionCommands = 0;
+        activeEditor.startJournal();
+        System.out.println("Transaction started on " + activeEditor.getFilePath());
+        return true;
+    }
+
+    /**
+     * 提交事务：压缩后的修改日志作为一条历史记录入栈
+     */
+    public synchronized boolean commitTransaction() {
+        if (transactionEditor == null) {
+            System.out.println("Error: No transaction in progress.");
+            return false;
+        }
+        Editor editor = transactionEditor;
+        EditJournal journal = editor.stopJournal();
+        transactionEditor = null;
+        if (journal == null || journal.isEmpty()) {
+            System.out.println("Committed empty transaction (" + transactionCommands + " command(s), no changes)");
+            return true;
+        }
+        editor.addToHistory(new TransactionCommand(editor, journal), journal);
+        System.out.println("Committed " + transactionCommands + " command(s) as one undo entry ("
+                + journal.getRecordedCount() + " edit(s) compacted to " + journal.size() + ")");
+        return true;
+    }
+
+    /**
+     * 回滚事务：按相反顺序撤销日志中的修改，代价与修改条数成正比
+     */
+    public synchronized boolean rollbackTransaction() {
+        if (transactionEditor == null) {
+            System.out.println("Error: No transaction in progress.");
+            return false;
+        }
+        Editor editor = transactionEditor;
+        transactionEditor = null;
+        editor.rollbackJournal();
+        editor.setModified(transactionWasModified);
+        System.out.println("Rolled back " + transactionCommands + " command(s)");
+        return true;
+    }
+
+    // ==================== 宏 ====================
+
+    /**
+     * 开始录制宏，之后成功执行的 Editor 层编辑命令都会被记下
+     */
+    public synchronized boolean startRecording(String name) {
+        if (recording != null) {
+            System.out.println("Error: Already recording macro '" + recording.getName() + "'");
+            return false;
+        }
+        recording = new Macro(name);
+        System.out.println("Recording macro '" + name + "' (use stop to finish)");
+        return true;
+    }
+
+    /**
+     * 结束录制并保存宏，同名的旧宏被覆盖
+     */
+    public synchronized boolean stopRecording() {
+        if (recording == null) {
+            System.out.println("Error: Not recording a macro.");
+            return false;
+        }
+        Macro macro = recording;
+        recording = null;
+        if (macro.isEmpty()) {
+            System.out.println("Nothing recorded, macro '" + macro.getName() + "' not saved");
+            return false;
+        }
+        macros.put(macro.getName(), macro);
+        System.out.println("Recorded macro '" + macro.getName() + "' (" + macro.size() + " command(s))");
+        return true;
+    }
+
+    public synchronized Macro getMacro(String name) {
+        return macros.get(name);
+    }
+
     /**
      * 撤销命令
      * 优先撤销当前活动 Editor 的命令，如果没有则撤销 WorkSpace 层命令
@@ -224,7 +728,11 @@ public class WorkSpace {
      * 
      * -----***** 折中的方法是给undo添加一个选项--workspace，用来指定撤回workspace的命令
      */
-    public void undo() {
+    public synchronized void undo() {
+        if (transactionEditor != null) {
+            System.out.println("Error: Transaction in progress, commit or rollback first.");
+            return;
+        }
         // if (activeEditor != null && activeEditor.hasUndo()) {
         //     // 优先撤销当前 Editor 的命令
         //     activeEditor.undo();
@@ -234,14 +742,20 @@ public class WorkSpace {
         // }
         if(activeEditor == null) {System.out.println("No active editor to undo.");return;}
         if(!activeEditor.hasUndo()) {System.out.println("No undo available in the active editor.");return;}
+        long start = System.nanoTime();
         activeEditor.undo();
+        recordLatency("Undo", System.nanoTime() - start, true);
     }
     
     /**
      * 重做命令
      * 优先重做当前活动 Editor 的命令，如果没有则重做 WorkSpace 层命令
      */
-    public void redo() {
+    public synchronized void redo() {
+        if (transactionEditor != null) {
+            System.out.println("Error: Transaction in progress, commit or rollback first.");
+            return;
+        }
         // if (activeEditor != null && activeEditor.hasRedo()) {
         //     // 优先重做当前 Editor 的命令
         //     activeEditor.redo();
@@ -251,16 +765,80 @@ public class WorkSpace {
         // }
         if(activeEditor == null) {System.out.println("No active editor to redo.");return;}
         if(!activeEditor.hasRedo()) {System.out.println("No redo available in the active editor.");return;}
+        long start = System.nanoTime();
         activeEditor.redo();
+        recordLatency("Redo", System.nanoTime() - start, true);
     }
     
+    /**
+     * 连续撤销当前 Editor 的多步命令（undo N）
+     */
+    public synchronized void undo(int steps) {
+        if (transactionEditor != null) {
+            System.out.println("Error: Transaction in progress, commit or rollback first.");
+            return;
+        }
+        if(activeEditor == null) {System.out.println("No active editor to undo.");return;}
+        if(!activeEditor.hasUndo()) {System.out.println("No undo available in the active editor.");return;}
+        long start = System.nanoTime();
+        activeEditor.undo(steps);
+        recordLatency("UndoSteps", System.nanoTime() - start, true);
+    }
+
+    /**
+     * 按时间顺序在当前 Editor 的撤销树上后退一个修订（undo --branch）
+     */
+    public synchronized void undoBranch() {
+        if (transactionEditor != null) {
+            System.out.println("Error: Transaction in progress, commit or rollback first.");
+            return;
+        }
+        if (activeEditor == null) {System.out.println("No active editor to undo.");return;}
+        long start = System.nanoTime();
+        activeEditor.undoBranch();
+        recordLatency("UndoBranch", System.nanoTime() - start, true);
+    }
+
+    /**
+     * 按时间顺序在当前 Editor 的撤销树上前进一个修订（redo --branch）
+     */
+    public synchronized void redoBranch() {
+        if (transactionEditor != null) {
+            System.out.println("Error: Transaction in progress, commit or rollback first.");
+            return;
+        }
+        if (activeEditor == null) {System.out.println("No active editor to redo.");return;}
+        long start = System.nanoTime();
+        activeEditor.redoBranch();
+        recordLatency("RedoBranch", System.nanoTime() - start, true);
+    }
+
+    /**
+     * 把当前 Editor 切换到撤销树上的指定修订（goto-rev）
+     */
+    public synchronized boolean gotoRevision(int id) {
+        if (transactionEditor != null) {
+            System.out.println("Error: Transaction in progress, commit or rollback first.");
+            return false;
+        }
+        if (activeEditor == null) {System.out.println("No active editor.");return false;}
+        long start = System.nanoTime();
+        boolean moved = activeEditor.gotoRevision(id);
+        recordLatency("GotoRevision", System.nanoTime() - start, moved);
+        return moved;
+    }
+
     /**
      * 强制撤销 WorkSpace 层的命令
      * 忽略当前 Editor 的历史，直接操作 WorkSpace 的 commandHistory
      * 
      * 使用场景: undo --workspace
      */
-    public void undoWorkspace() {
+    public synchronized void undoWorkspace() {
+        if (transactionEditor != null) {
+            System.out.println("Error: Transaction in progress, commit or rollback first.");
+            return;
+        }
         commandHistory.undo();
     }
     
@@ -270,7 +848,11 @@ public class WorkSpace {
      * 
      * 使用场景: redo --workspace
      */
-    public void redoWorkspace() {
+    public synchronized void redoWorkspace() {
+        if (transactionEditor != null) {
+            System.out.println("Error: Transaction in progress, commit or rollback first.");
+            return;
+        }
         commandHistory.redo();
     }
 }
@@ -0,0 +1,91 @@
+package org.flanVim.test;
+
+import org.flanVim.command.editorspace.BatchEditCommand;
+import org.flanVim.editor.BatchEdit;
+import org.flanVim.editor.Editor;
+import org.flanVim.editor.TextPatch;
+import org.flanVim.workspace.WorkSpace;
+
+/**
+ * 测试批量编辑：描述行的解析、位置都指向原始内容、重叠与越界被拒绝、整批撤销
+ */
+public class BatchEditTest {
+
+    public static void main(String[] args) {
+        System.out.println("=== 批量编辑测试 ===\n");
+        System.setProperty("flanvim.watchFiles", "false");
+
+        // 解析
+        BatchEdit parsed = new BatchEdit()
+                .parse("insert 1:1 \"head \"")
+                .parse("   ")
+                .parse("# 注释")
+                .parse("delete 2:1 3")
+                .parse("replace 1:7 5 \"THERE\"");
+        Checks.equal("空行和注释被忽略", 3, parsed.size());
+        rejects("缺少位置", "insert");
+        rejects("位置格式", "insert 1 \"x\"");
+        rejects("未知编辑", "move 1:1 2");
+        rejects("参数个数", "delete 1:1");
+        rejects("非数字", "delete 1:x 2");
+        rejects("负长度", "delete 1:1 -2");
+
+        // 所有位置都指向编辑之前的内容，生成的 patch 按偏移排序
+        Editor editor = new Editor("batch.txt", true);
+        editor.append("hello world\nfoo bar");
+        String original = editor.getContentView().toString();
+        TextPatch patch = parsed.toPatch(editor);
+        Checks.equal("toPatch 不修改内容", original, editor.getContentView().toString());
+        Checks.equal("修改数", 3, patch.size());
+        patch.apply(editor);
+        Checks.equal("一遍应用", "head hello THERE\n bar", editor.getContentView().toString());
+        patch.revert(editor);
+        Checks.equal("撤销还原", original, editor.getContentView().toString());
+
+        // 同一位置的插入保持添加顺序，插入排在删除之前
+        TextPatch ordered = new BatchEdit()
+                .replace(1, 1, 5, "HELLO")
+                .insert(1, 1, "a")
+                .insert(1, 1, "b")
+                .toPatch(editor);
+        ordered.apply(editor);
+        Checks.equal("同一位置的顺序", "abHELLO world\nfoo bar", editor.getContentView().toString());
+        ordered.revert(editor);
+
+        rejectsPatch("删除范围重叠", new BatchEdit().delete(1, 1, 5).delete(1, 3, 2), editor);
+        rejectsPatch("超出内容长度", new BatchEdit().delete(2, 5, 10), editor);
+        rejectsPatch("行号无效", new BatchEdit().insert(9, 1, "x"), editor);
+
+        // 作为一条命令执行：无效的批次整批不应用，成功的批次一次撤销
+        WorkSpace workSpace = new WorkSpace();
+        workSpace.addEditor("batch.txt", editor);
+        Checks.captureOut(() -> workSpace.executeCommand(new BatchEditCommand(editor,
+                new BatchEdit().insert(1, 1, "x").delete(9, 1, 1))));
+        Checks.equal("无效批次不修改内容", original, editor.getContentView().toString());
+        Checks.captureOut(() -> workSpace.executeCommand(new BatchEditCommand(editor,
+                new BatchEdit().insert(2, 8, "!").insert(1, 12, "!").delete(1, 1, 6))));
+        Checks.equal("批次执行", "world!\nfoo bar!", editor.getContentView().toString());
+        Checks.captureOut(workSpace::undo);
+        Checks.equal("一次撤销整批", original, editor.getContentView().toString());
+
+        Checks.finish();
+    }
+
+    private static void rejects(String name, String spec) {
+        try {
+            new BatchEdit().parse(spec);
+            Checks.check(name, false);
+        } catch (IllegalArgumentException e) {
+            Checks.check(name, true);
+        }
+    }
+
+    private static void rejectsPatch(String name, BatchEdit edits, Editor editor) {
+        try {
+            edits.toPatch(editor);
+            Checks.check(name, false);
+        } catch (IllegalArgumentException e) {
+            Checks.check(name, true);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package org.flanVim.test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+
+/**
+ * 测试用的断言和输出捕获：每条检查打印 ✅/❌，结束时有失败则以非 0 状态退出
+ */
+final class Checks {
+    private static int passed = 0;
+    private static int failed = 0;
+
+    private Checks() {}
+
+    static void check(String description, boolean ok) {
+        if (ok) {
+            passed++;
+            System.out.println("✅ " + description);
+        } else {
+            failed++;
+            System.out.println("❌ " + description);
+        }
+    }
+
+    static void equal(String description, Object expected, Object actual) {
+        boolean ok = Objects.equals(expected, actual);
+        check(description + (ok ? "" : "\n   期望: " + expected + "\n   实际: " + actual), ok);
+    }
+
+    /**
+     * 执行 action 并返回它打印到 System.out 的内容
+     */
+    static String captureOut(Runnable action) {
+        PrintStream original = System.out;
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(bytes, true, StandardCharsets.UTF_8));
+        try {
+            action.run();
+        } finally {
+            System.setOut(original);
+        }
+        return bytes.toString(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 打印汇总，有失败时退出码为 1
+     */
+    static void finish() {
+        System.out.println("\n通过 " + passed + " 项，失败 " + failed + " 项");
+        if (failed > 0) {
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package org.flanVim.test;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.flanVim.editor.Editor;
+
+/**
+ * 测试压缩存放的缓冲区：解压之后立即保存或再次压缩，内容不能丢失
+ * （解压得到的缓冲区 position 停在末尾，字节视图必须从 0 开始）
+ */
+public class CompressedTextTest {
+
+    public static void main(String[] args) throws Exception {
+        System.out.println("=== 压缩/解压测试 ===\n");
+        System.setProperty("flanvim.watchFiles", "false");
+        Path file = Files.createTempFile("flanvim-compress", ".txt");
+        Files.writeString(file, "第一行 first line\n");
+
+        Editor editor = new Editor(file.toString());
+        editor.append("第二行 second line 🙂");
+        String expected = editor.getContentView().toString();
+
+        // 压缩 -> 保存（保存时自动解压）
+        Checks.check("已修改的缓冲区可以压缩", editor.compress(0) != null);
+        Checks.check("处于压缩状态", editor.isCompressed());
+        editor.save();
+        Checks.equal("解压后保存的内容", expected, Files.readString(file, StandardCharsets.UTF_8));
+
+        // 压缩 -> 解压 -> 再压缩 -> 解压
+        editor.append("third");
+        expected = editor.getContentView().toString();
+        editor.compress(0);
+        editor.ensureDecompressed();
+        Checks.check("解压后不再处于压缩状态", !editor.isCompressed());
+        Checks.check("解压后立即再压缩", editor.compress(0) != null);
+        editor.ensureDecompressed();
+        Checks.equal("两次压缩后的内容", expected, editor.getContentView().toString());
+        editor.save();
+        Checks.equal("两次压缩后保存的内容", expected, Files.readString(file, StandardCharsets.UTF_8));
+
+        Files.deleteIfExists(file);
+        Checks.finish();
+    }
+}
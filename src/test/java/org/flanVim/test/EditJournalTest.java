@@ -0,0 +1,109 @@
+package org.flanVim.test;
+
+import java.util.Random;
+
+import org.flanVim.command.editorspace.InsertCommand;
+import org.flanVim.editor.EditJournal;
+import org.flanVim.editor.Editor;
+import org.flanVim.workspace.WorkSpace;
+
+/**
+ * 测试修改日志：连续输入就地合并、revert/replay 往返、嵌套日志和事务的提交/回滚
+ */
+public class EditJournalTest {
+
+    public static void main(String[] args) {
+        System.out.println("=== 修改日志测试 ===\n");
+        System.setProperty("flanvim.watchFiles", "false");
+
+        // 连续输入合并为一条记录
+        Editor editor = new Editor("journal.txt", true);
+        editor.append("hello\nworld");
+        String original = content(editor);
+        EditJournal typing = editor.startJournal();
+        for (char c : "abc".toCharArray()) {
+            editor.insert(1, 6 + (c - 'a'), String.valueOf(c));
+        }
+        editor.delete(1, 8, 1);
+        Checks.check("记录中", editor.isJournaling());
+        Checks.equal("停止时返回同一个日志", typing, editor.stopJournal());
+        Checks.equal("连续输入合并为一条", 1, typing.size());
+        Checks.equal("记录的修改次数", 4, typing.getRecordedCount());
+        Checks.equal("只保存变化的部分", 2, typing.getStoredChars());
+        String typed = content(editor);
+        Checks.equal("输入后的内容", "helloab\nworld", typed);
+        typing.revert(editor);
+        Checks.equal("revert 还原", original, content(editor));
+        typing.replay(editor);
+        Checks.equal("replay 重新应用", typed, content(editor));
+
+        // 输入后又全部删掉：抵消为空
+        EditJournal cancelled = editor.startJournal();
+        editor.insert(2, 1, "xyz");
+        editor.delete(2, 1, 3);
+        editor.stopJournal();
+        Checks.check("输入后删掉抵消为空", cancelled.isEmpty());
+
+        // 随机修改：revert/replay 往返
+        Random random = new Random(11);
+        int failures = 0;
+        for (int round = 0; round < 50; round++) {
+            String before = content(editor);
+            EditJournal journal = editor.startJournal();
+            for (int i = 0; i < 20; i++) {
+                int length = content(editor).length();
+                int start = random.nextInt(length + 1);
+                int end = Math.min(length, start + random.nextInt(4));
+                editor.replaceRange(start, end, random.nextBoolean() ? "" : "#" + random.nextInt(100));
+            }
+            editor.stopJournal();
+            String after = content(editor);
+            journal.revert(editor);
+            boolean reverted = before.equals(content(editor));
+            journal.replay(editor);
+            if (!reverted || !after.equals(content(editor))) {
+                failures++;
+            }
+        }
+        Checks.equal("随机修改的往返", 0, failures);
+
+        // 嵌套：内层结束时并入外层，回滚外层撤销全部
+        String outerStart = content(editor);
+        EditJournal outer = editor.startJournal();
+        editor.insert(1, 1, "A");
+        EditJournal inner = editor.startJournal();
+        editor.insert(1, 2, "B");
+        editor.stopJournal();
+        Checks.equal("内层记录", 1, inner.size());
+        Checks.equal("内层并入外层后合并", 1, outer.size());
+        Checks.equal("回滚返回外层日志", outer, editor.rollbackJournal());
+        Checks.check("回滚后不再记录", !editor.isJournaling());
+        Checks.equal("回滚撤销全部", outerStart, content(editor));
+
+        // 事务：提交后作为一条历史记录撤销，回滚直接丢弃
+        WorkSpace workSpace = new WorkSpace();
+        workSpace.addEditor("journal.txt", editor);
+        String committed = content(editor);
+        Checks.captureOut(() -> {
+            workSpace.beginTransaction();
+            workSpace.executeCommand(new InsertCommand(editor, 1, 1, "1"));
+            workSpace.executeCommand(new InsertCommand(editor, 1, 2, "2"));
+            workSpace.commitTransaction();
+        });
+        Checks.check("事务提交", content(editor).startsWith("12") && !workSpace.inTransaction());
+        Checks.captureOut(workSpace::undo);
+        Checks.equal("一次撤销整个事务", committed, content(editor));
+        Checks.captureOut(() -> {
+            workSpace.beginTransaction();
+            workSpace.executeCommand(new InsertCommand(editor, 1, 1, "zzz"));
+            workSpace.rollbackTransaction();
+        });
+        Checks.equal("事务回滚", committed, content(editor));
+
+        Checks.finish();
+    }
+
+    private static String content(Editor editor) {
+        return editor.getContentView().toString();
+    }
+}
@@ -0,0 +1,109 @@
+package org.flanVim.test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.flanVim.command.workspace.EditCommand;
+import org.flanVim.command.workspace.LoadCommand;
+import org.flanVim.workspace.DirTreeCache;
+import org.flanVim.workspace.FileIndex;
+import org.flanVim.workspace.WorkSpace;
+
+/**
+ * 测试工作区文件索引的查询和 load/save/diff 的文件名解析
+ */
+public class FileIndexTest {
+
+    public static void main(String[] args) throws Exception {
+        System.out.println("=== 文件索引测试 ===\n");
+        Path root = Files.createTempDirectory("flanvim-index");
+        System.setProperty("user.home", root.resolve("home").toString());
+        System.setProperty("flanvim.watchFiles", "false");
+        write(root.resolve("a/Editor.java"));
+        write(root.resolve("b/Editor.java"));
+        write(root.resolve("c/EditorTest.java"));
+        write(root.resolve("d/notes.txt"));
+        write(root.resolve("e/README.md"));
+
+        DirTreeCache cache = new DirTreeCache(root);
+        FileIndex index = new FileIndex(cache);
+        index.start();
+        waitForIndex(index, 5);
+
+        String a = root.resolve("a/Editor.java").toString();
+        String b = root.resolve("b/Editor.java").toString();
+        String test = root.resolve("c/EditorTest.java").toString();
+
+        Checks.equal("同名文件都返回", 2, index.lookup("editor.java", p -> true).size());
+        Checks.equal("路径后缀", List.of(b), index.lookup("b/Editor.java", p -> true));
+        Checks.equal("文件名前缀", List.of(test), index.lookup("EditorT", p -> true));
+        // 先过滤再分档：同名文件都不可用时落到下一档，而不是返回空
+        Checks.equal("过滤后落到前缀一档", List.of(test), index.lookup("Editor", p -> p.equals(test)));
+        Checks.equal("过滤后的同名文件", List.of(a), index.lookup("Editor.java", p -> p.equals(a)));
+        // 模糊匹配只在可用的路径中排名：得分更高的 a/、b/ 被过滤掉后仍能返回 c/
+        Checks.equal("过滤后的模糊匹配", List.of(test), index.lookup("edjava", p -> p.equals(test)));
+        Checks.equal("lookupName 只做精确文件名", 0, index.lookupName("Editor", p -> true).size());
+        Checks.equal("lookupName 不接受路径", 0, index.lookupName("a/Editor.java", p -> true).size());
+        Checks.equal("lookupName 同名文件", List.of(a), index.lookupName("Editor.java", p -> p.equals(a)));
+        Checks.equal("lookupName 区分大小写", 0, index.lookupName("EDITOR.JAVA", p -> true).size());
+
+        // WorkSpace 的文件名解析
+        WorkSpace workSpace = new WorkSpace();
+        workSpace.setWorkSpacePath(root.toString());
+        workSpace.startDirTreeCache();
+        String notes = root.resolve("d/notes.txt").toString();
+        String[] resolved = new String[1];
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!notes.equals(resolved[0]) && System.currentTimeMillis() < deadline) {
+            Checks.captureOut(() -> resolved[0] = workSpace.resolveFileName("notes.txt",
+                    root.resolve("notes.txt").toString(), p -> new File(p).exists()));
+            Thread.sleep(10);
+        }
+        Checks.equal("唯一同名文件", notes, resolved[0]);
+        Checks.equal("前缀不再解析", root.resolve("note").toString(),
+                workSpace.resolveFileName("note", root.resolve("note").toString(), p -> new File(p).exists()));
+        Checks.equal("带目录的输入不走索引", root.resolve("x/notes.txt").toString(),
+                workSpace.resolveFileName("x/notes.txt", root.resolve("x/notes.txt").toString(), p -> new File(p).exists()));
+        String ambiguous = Checks.captureOut(() -> Checks.check("同名文件有多个时返回 null",
+                workSpace.resolveFileName("Editor.java", root.resolve("Editor.java").toString(),
+                        p -> new File(p).exists()) == null));
+        Checks.check("列出候选", ambiguous.contains("Ambiguous"));
+
+        // load 一个与已有文件名相近的新文件名：应当新建，而不是模糊匹配到 EditorTest.java
+        String out = Checks.captureOut(() -> new LoadCommand(workSpace, "EditorTe.java").execute());
+        Checks.check("load 新文件名时新建文件", Files.exists(root.resolve("EditorTe.java")));
+        Checks.check("没有解析到其他文件", !out.contains("Resolved"));
+        // 大小写不同的文件名也新建，而不是打开 README.md
+        out = Checks.captureOut(() -> new LoadCommand(workSpace, "readme.md").execute());
+        Checks.check("load 区分大小写", !out.contains("Resolved"));
+        Checks.equal("新建的文件成为活动文件", root.resolve("readme.md").toString(), workSpace.getActiveFileName());
+        Checks.check("没有打开 README.md", !workSpace.hasEditor(root.resolve("e/README.md").toString()));
+
+        // edit 在已打开的文件中模糊解析
+        Checks.captureOut(() -> new LoadCommand(workSpace, "c/EditorTest.java").execute());
+        Checks.captureOut(() -> new LoadCommand(workSpace, "d/notes.txt").execute());
+        Checks.captureOut(() -> new EditCommand(workSpace, "edtest").execute());
+        Checks.equal("edit 模糊解析", test, workSpace.getActiveFileName());
+        Checks.captureOut(() -> new EditCommand(workSpace, "NOTES").execute());
+        Checks.equal("edit 文件名前缀，忽略大小写", notes, workSpace.getActiveFileName());
+        out = Checks.captureOut(() -> new EditCommand(workSpace, "b/Editor.java").execute());
+        Checks.check("edit 只在已打开的文件中查找", out.contains("File not opened"));
+
+        Checks.finish();
+    }
+
+    private static void write(Path file) throws IOException {
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, "x\n");
+    }
+
+    private static void waitForIndex(FileIndex index, int size) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (index.size() < size && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+}
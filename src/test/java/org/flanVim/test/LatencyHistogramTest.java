@@ -0,0 +1,79 @@
+package org.flanVim.test;
+
+import java.util.Random;
+
+import org.flanVim.util.LatencyHistogram;
+
+/**
+ * 测试耗时直方图：分桶的相对误差、分位数、多线程记录以及耗时的格式化
+ */
+public class LatencyHistogramTest {
+
+    public static void main(String[] args) throws Exception {
+        System.out.println("=== 耗时直方图测试 ===\n");
+
+        LatencyHistogram empty = new LatencyHistogram();
+        Checks.equal("没有记录时分位数为 0", 0L, empty.getQuantile(0.5));
+
+        // 小于 16 的值每个值一个桶，分位数是精确的
+        LatencyHistogram small = new LatencyHistogram();
+        for (int i = 0; i < 16; i++) {
+            small.record(i, true);
+        }
+        Checks.equal("最小值", 0L, small.getQuantile(0));
+        Checks.equal("中位数", 7L, small.getQuantile(0.5));
+        Checks.equal("最大值", 15L, small.getQuantile(1));
+        small.record(-5, true);
+        Checks.equal("负数按 0 处理", 0L, small.getQuantile(0));
+
+        // 单个值：任何分位数都不超过记录到的最大值，相对误差不超过 1/16
+        Random random = new Random(3);
+        int outOfBound = 0;
+        for (int round = 0; round < 2000; round++) {
+            long value = random.nextLong() >>> (1 + random.nextInt(62));
+            LatencyHistogram single = new LatencyHistogram();
+            single.record(value, true);
+            single.record(value / 2, true);
+            long median = single.getQuantile(0.5);  // value / 2 所在桶的上界
+            long expected = value / 2;
+            if (median < expected || median - expected > Math.max(0, expected / 16)
+                    || single.getQuantile(1) != value) {
+                outOfBound++;
+            }
+        }
+        Checks.equal("桶的上界误差不超过 1/16", 0, outOfBound);
+
+        LatencyHistogram huge = new LatencyHistogram();
+        huge.record(Long.MAX_VALUE, false);
+        Checks.equal("最大的值", Long.MAX_VALUE, huge.getQuantile(0.99));
+        Checks.equal("失败次数", 1L, huge.getFailures());
+
+        // 多线程并发记录不丢失
+        LatencyHistogram shared = new LatencyHistogram();
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 1; i <= 100000; i++) {
+                    shared.record(i, i % 10 != 0);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        Checks.equal("记录次数", 400000L, shared.getCount());
+        Checks.equal("并发失败次数", 40000L, shared.getFailures());
+        Checks.equal("总耗时", 4L * 100000 * 100001 / 2, shared.getTotalNanos());
+        Checks.equal("并发最大值", 100000L, shared.getMaxNanos());
+        long p99 = shared.getQuantile(0.99);
+        Checks.check("p99 的相对误差", p99 >= 99000 && p99 <= 99000 + 99000 / 16);
+
+        Checks.equal("纳秒", "999ns", LatencyHistogram.format(999));
+        Checks.equal("微秒", "1.5us", LatencyHistogram.format(1500));
+        Checks.equal("毫秒", "2.0ms", LatencyHistogram.format(2_000_000));
+        Checks.equal("秒", "3.25s", LatencyHistogram.format(3_250_000_000L));
+
+        Checks.finish();
+    }
+}
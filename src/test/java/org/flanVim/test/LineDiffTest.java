@@ -0,0 +1,121 @@
+package org.flanVim.test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import org.flanVim.editor.LineDiff;
+
+/**
+ * 测试行级差异：差异能还原出两段文本、小输入得到最短差异、差别很大的大文件在步数上限内完成
+ */
+public class LineDiffTest {
+
+    public static void main(String[] args) {
+        System.out.println("=== 行级差异测试 ===\n");
+
+        // Myers 论文中的例子，最短编辑距离为 5
+        LineDiff paper = LineDiff.compare(lines("ABCABBA"), lines("CBABAC"));
+        Checks.equal("最短编辑距离", 5, paper.getDeletedCount() + paper.getInsertedCount());
+        Checks.check("还原论文例子", reconstructs(paper, lines("ABCABBA"), lines("CBABAC")));
+
+        LineDiff same = LineDiff.compare("a\nb\n", "a\nb\n");
+        Checks.check("相同内容没有差异", same.isEmpty());
+        Checks.equal("相同内容不输出 hunk", 0, same.writeUnified("a", "b", 3, new PrintStream(new ByteArrayOutputStream())));
+
+        // hunk 格式：上下文行数与行号范围
+        String old = "1\n2\n3\n4\n5\n6\n7\n8\n9\n10\n";
+        String neu = "1\n2\n3\nfour\n5\n6\n7\n8\n9\n10\n";
+        String unified = unified(LineDiff.compare(old, neu), 2);
+        Checks.equal("unified 输出", "--- old\n+++ new\n@@ -2,5 +2,5 @@\n 2\n 3\n-4\n+four\n 5\n 6\n", unified);
+        Checks.check("末尾没有换行", unified(LineDiff.compare("a\nb", "a\nc"), 1).contains("\\ No newline at end of file"));
+
+        // 随机的小修改：差异总能还原出两段文本
+        Random random = new Random(7);
+        int failures = 0;
+        for (int round = 0; round < 200; round++) {
+            String a = randomText(random, 1 + random.nextInt(40), 4);
+            String b = mutate(random, a);
+            if (!reconstructs(LineDiff.compare(a, b), a, b)) {
+                failures++;
+            }
+        }
+        Checks.equal("随机修改都能还原", 0, failures);
+
+        // 差别很大的大文件：超过步数上限后改用启发式分割，仍然是正确的差异
+        String bigOld = randomText(random, 60000, 1000000);
+        String bigNew = randomText(random, 60000, 1000000);
+        long start = System.nanoTime();
+        LineDiff big = LineDiff.compare(bigOld, bigNew);
+        long millis = (System.nanoTime() - start) / 1000000;
+        System.out.println("60000 行完全不同的文件: " + millis + " ms");
+        Checks.check("大文件在步数上限内完成", millis < 10000);
+        Checks.check("大文件的差异能还原", reconstructs(big, bigOld, bigNew));
+
+        Checks.finish();
+    }
+
+    private static String lines(String letters) {
+        StringBuilder sb = new StringBuilder();
+        for (char c : letters.toCharArray()) {
+            sb.append(c).append('\n');
+        }
+        return sb.toString();
+    }
+
+    private static String randomText(Random random, int count, int alphabet) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            sb.append("line ").append(random.nextInt(alphabet)).append('\n');
+        }
+        return sb.toString();
+    }
+
+    private static String mutate(Random random, String text) {
+        StringBuilder sb = new StringBuilder();
+        for (String line : text.split("\n")) {
+            int r = random.nextInt(10);
+            if (r == 0) {
+                continue;
+            }
+            if (r == 1) {
+                sb.append("new ").append(random.nextInt(4)).append('\n');
+            }
+            sb.append(line).append('\n');
+        }
+        return sb.toString();
+    }
+
+    private static String unified(LineDiff diff, int context) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        diff.writeUnified("old", "new", context, new PrintStream(bytes, true, StandardCharsets.UTF_8));
+        return bytes.toString(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 用足够大的上下文输出整个文件，' ' 和 '-' 行拼出旧文本，' ' 和 '+' 行拼出新文本
+     */
+    private static boolean reconstructs(LineDiff diff, String oldText, String newText) {
+        if (diff.isEmpty()) {
+            return oldText.equals(newText);
+        }
+        String[] output = unified(diff, oldText.length() + newText.length()).split("\n", -1);
+        StringBuilder oldBuilt = new StringBuilder();
+        StringBuilder newBuilt = new StringBuilder();
+        for (int i = 2; i < output.length; i++) {
+            String line = output[i];
+            if (line.isEmpty() || line.startsWith("@@") || line.startsWith("\\")) {
+                continue;
+            }
+            char prefix = line.charAt(0);
+            if (prefix != '+') {
+                oldBuilt.append(line, 1, line.length()).append('\n');
+            }
+            if (prefix != '-') {
+                newBuilt.append(line, 1, line.length()).append('\n');
+            }
+        }
+        return oldBuilt.toString().equals(oldText) && newBuilt.toString().equals(newText);
+    }
+}
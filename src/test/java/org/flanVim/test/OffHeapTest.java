@@ -0,0 +1,53 @@
+package org.flanVim.test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.flanVim.editor.Editor;
+import org.flanVim.editor.OffHeapMemory;
+import org.flanVim.workspace.WorkSpace;
+
+/**
+ * 测试堆外缓冲区：关闭文件时立即释放，释放后的视图不会读到已释放的内存
+ */
+public class OffHeapTest {
+
+    public static void main(String[] args) throws Exception {
+        System.out.println("=== 堆外内存测试 ===\n");
+        System.setProperty("flanvim.offHeapThresholdMB", "0");  // 全部放在堆外
+        System.setProperty("flanvim.watchFiles", "false");
+        Path file = Files.createTempFile("flanvim-offheap", ".txt");
+        Files.writeString(file, "第一行\nsecond line\n".repeat(1000));
+
+        WorkSpace workSpace = new WorkSpace();
+        Editor editor = new Editor(file.toString());
+        workSpace.addEditor(file.toString(), editor);
+        Checks.check("内容在堆外", editor.isOffHeap());
+        Checks.check("堆外字节已计入", OffHeapMemory.getAllocatedBytes() > 0);
+
+        // 编辑导致扩容：旧缓冲区立即释放
+        editor.append("x".repeat(100000));
+        long afterGrow = OffHeapMemory.getAllocatedBytes();
+        Checks.check("扩容后只保留新缓冲区", afterGrow > 0 && afterGrow < 3L * editor.getContentLength());
+
+        // 压缩：压缩期间登记的视图结束后，堆外内存全部释放
+        CharSequence view = editor.getContentView();
+        Checks.check("已修改的缓冲区可以压缩", editor.compress(0) != null);
+        Checks.equal("压缩后堆外内存已释放", 0L, OffHeapMemory.getAllocatedBytes());
+        try {
+            view.charAt(0);
+            Checks.check("释放后的视图拒绝访问", false);
+        } catch (RuntimeException e) {
+            Checks.check("释放后的视图拒绝访问", true);
+        }
+
+        // 关闭：解压得到的堆外缓冲区随关闭立即释放
+        Checks.check("访问时解压", editor.getContentView().charAt(0) == '第');
+        Checks.check("解压后回到堆外", OffHeapMemory.getAllocatedBytes() > 0);
+        workSpace.removeEditor(file.toString());
+        Checks.equal("关闭后堆外内存已释放", 0L, OffHeapMemory.getAllocatedBytes());
+
+        Files.deleteIfExists(file);
+        Checks.finish();
+    }
+}
@@ -0,0 +1,53 @@
+package org.flanVim.test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.flanVim.editor.Editor;
+import org.flanVim.workspace.RecentFiles;
+import org.flanVim.workspace.WorkSpace;
+
+/**
+ * 测试最近文件列表：激活文件不同步写盘，flush 后可以跨会话读回
+ */
+public class RecentFilesTest {
+
+    public static void main(String[] args) throws Exception {
+        System.out.println("=== 最近文件列表测试 ===\n");
+        Path home = Files.createTempDirectory("flanvim-recent");
+        System.setProperty("user.home", home.toString());
+        System.setProperty("flanvim.watchFiles", "false");
+
+        // 嵌入使用的 WorkSpace 默认只在内存中记录，不写用户目录
+        WorkSpace workSpace = new WorkSpace();
+        workSpace.addEditor("a.txt", new Editor("a.txt", true));
+        workSpace.addEditor("b.txt", new Editor("b.txt", true));
+        workSpace.setActiveEditor("b.txt");
+        Checks.equal("内存中的列表", "b.txt", workSpace.getRecentFiles().getEntries().get(0).getPath());
+        workSpace.getRecentFiles().flush();
+        Checks.check("没有写用户目录", !Files.exists(RecentFiles.defaultFile()));
+
+        // 持久化的列表：touch 只改内存，flush 时写回
+        Path file = home.resolve("recent.bin");
+        RecentFiles recent = new RecentFiles(file);
+        recent.touch("/x/one.txt");
+        recent.touch("/x/two.txt");
+        recent.touch("/x/one.txt");
+        Checks.check("touch 不同步写文件", !Files.exists(file));
+        recent.flush();
+        Checks.check("flush 写回", Files.exists(file));
+
+        RecentFiles reloaded = new RecentFiles(file);
+        Checks.equal("条目数", 2, reloaded.getEntries().size());
+        Checks.equal("最近的在前", "/x/one.txt", reloaded.getEntries().get(0).getPath());
+        Checks.equal("其次", "/x/two.txt", reloaded.getEntries().get(1).getPath());
+
+        // 没有变化时 flush 不重写文件
+        long modified = Files.getLastModifiedTime(file).toMillis();
+        Thread.sleep(20);
+        reloaded.flush();
+        Checks.equal("没有变化不重写", modified, Files.getLastModifiedTime(file).toMillis());
+
+        Checks.finish();
+    }
+}
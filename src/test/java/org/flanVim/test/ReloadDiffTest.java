@@ -0,0 +1,75 @@
+package org.flanVim.test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.flanVim.editor.Editor;
+import org.flanVim.editor.TextPatch;
+import org.flanVim.editor.Utf8Text;
+
+/**
+ * 测试外部修改后的增量重新加载：只替换变化的部分，多字节字符和跨块的修改都能正确还原
+ */
+public class ReloadDiffTest {
+
+    public static void main(String[] args) throws Exception {
+        System.out.println("=== 增量重新加载测试 ===\n");
+        System.setProperty("flanvim.watchFiles", "false");
+        Path file = Files.createTempFile("flanvim-reload", ".txt");
+
+        // 内容相同：没有修改
+        Files.writeString(file, "same content\n");
+        Checks.check("内容相同时为空", new Utf8Text("same content\n").diffWithFile(file).isEmpty());
+
+        reload("中间一处修改", file, "alpha beta gamma\n", "alpha BETA gamma\n", 8);
+        reload("文件变长", file, "abc", "abc\ndef\n", 5);
+        reload("文件变短", file, "abc\ndef\n", "abc", 5);
+        reload("清空文件", file, "abc", "", 3);
+        reload("从空文件", file, "", "xyz", 3);
+        // 多字节字符中只有后面的字节不同：前缀要退回到码点起始位置
+        reload("多字节字符的后续字节不同", file, "前缀 中 后缀", "前缀 丰 后缀", 2);
+        reload("表情符号", file, "a🙂b", "a🙃b", 4);
+        reload("重复字符串中的修改", file, "aaaa", "aaaaa", 1);
+
+        // 超过比较块大小的文件：修改在块边界附近，前缀和后缀都跨越多个块
+        StringBuilder big = new StringBuilder();
+        for (int i = 0; i < 20000; i++) {
+            big.append("第 ").append(i).append(" 行\n");
+        }
+        String bigOld = big.toString();
+        int at = bigOld.indexOf("第 9000 行");
+        String bigNew = bigOld.substring(0, at) + "插入的一行\n" + bigOld.substring(at);
+        reload("大文件中的插入", file, bigOld, bigNew, "插入的一行\n".length());
+
+        // 变化的部分不是合法的 UTF-8
+        Editor editor = new Editor(file.toString());
+        Files.write(file, new byte[] {'o', 'k', (byte) 0xC3, (byte) 0x28});
+        try {
+            editor.reloadFromDisk();
+            Checks.check("非法 UTF-8 被拒绝", false);
+        } catch (IOException e) {
+            Checks.check("非法 UTF-8 被拒绝", true);
+        }
+
+        Files.deleteIfExists(file);
+        Checks.finish();
+    }
+
+    /**
+     * 用旧内容打开文件，外部写入新内容后重新加载
+     * @param storedChars 修改中保存的字符数（旧文本 + 新文本），只包含变化的部分
+     */
+    private static void reload(String name, Path file, String oldText, String newText, int storedChars)
+            throws IOException {
+        Files.writeString(file, oldText, StandardCharsets.UTF_8);
+        Editor editor = new Editor(file.toString());
+        Files.writeString(file, newText, StandardCharsets.UTF_8);
+        TextPatch patch = editor.reloadFromDisk();
+        Checks.equal(name + "：内容一致", newText, editor.getContentView().toString());
+        Checks.check(name + "：至多一处修改", patch.size() <= 1);
+        Checks.equal(name + "：只保存变化的部分", storedChars, patch.getStoredChars());
+        Checks.check(name + "：不再是已修改状态", !editor.isModified());
+    }
+}
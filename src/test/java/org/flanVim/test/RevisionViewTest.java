@@ -0,0 +1,126 @@
+package org.flanVim.test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.flanVim.command.editorspace.DeleteCommand;
+import org.flanVim.command.editorspace.InsertCommand;
+import org.flanVim.command.editorspace.SubstituteCommand;
+import org.flanVim.editor.EditJournal;
+import org.flanVim.editor.Editor;
+import org.flanVim.editor.RevisionView;
+import org.flanVim.editor.TextPatch;
+import org.flanVim.workspace.WorkSpace;
+
+/**
+ * 测试历史修订的只读视图：与每个修订当时的内容逐字比较
+ */
+public class RevisionViewTest {
+
+    public static void main(String[] args) {
+        System.out.println("=== 修订视图测试 ===\n");
+        System.setProperty("flanvim.watchFiles", "false");
+
+        WorkSpace workSpace = new WorkSpace();
+        Editor editor = new Editor("rev.txt", true);
+        editor.append("alpha\nbeta\ngamma\ndelta\nepsilon");
+        workSpace.addEditor("rev.txt", editor);
+
+        // 随机插入/删除，记录每个修订的内容
+        Random random = new Random(42);
+        List<String> snapshots = new ArrayList<>();
+        snapshots.add(editor.getContentView().toString());
+        Checks.captureOut(() -> {
+            for (int i = 0; i < 300; i++) {
+                String content = editor.getContentView().toString();
+                String[] lines = content.split("\n", -1);
+                int line = 1 + random.nextInt(lines.length);
+                int column = 1 + random.nextInt(lines[line - 1].length() + 1);
+                if (random.nextInt(3) == 0 && lines[line - 1].length() >= column) {
+                    int length = 1 + random.nextInt(lines[line - 1].length() - column + 1);
+                    workSpace.executeCommand(new DeleteCommand(editor, line, column, length));
+                } else {
+                    String text = random.nextInt(4) == 0 ? "x\ny" : "#" + i;
+                    workSpace.executeCommand(new InsertCommand(editor, line, column, text));
+                }
+                snapshots.add(editor.getContentView().toString());
+            }
+        });
+        Checks.equal("300 个修订", 300, editor.getHistory().getCurrent().getId());
+
+        int mismatches = 0;
+        for (int rev = 0; rev < snapshots.size(); rev++) {
+            RevisionView view = editor.getRevisionView(rev);
+            String expected = snapshots.get(rev);
+            if (!expected.equals(view.toString()) || view.length() != expected.length()) {
+                mismatches++;
+                continue;
+            }
+            // charAt 倒序访问和任意区间
+            for (int i = expected.length() - 1; i >= 0; i -= 7) {
+                if (view.charAt(i) != expected.charAt(i)) {
+                    mismatches++;
+                    break;
+                }
+            }
+            int start = expected.isEmpty() ? 0 : random.nextInt(expected.length());
+            int end = start + random.nextInt(expected.length() - start + 1);
+            if (!expected.substring(start, end).equals(view.subSequence(start, end))) {
+                mismatches++;
+            }
+        }
+        Checks.equal("每个修订的内容都一致", 0, mismatches);
+
+        // forEachLine 与 Editor 的行为一致（包括提前终止和末尾的空行）
+        RevisionView base = editor.getRevisionView(0);
+        StringBuilder lines = new StringBuilder();
+        int last = base.forEachLine(2, 4, (n, text) -> {
+            lines.append(n).append(':').append(text).append('|');
+            return true;
+        });
+        Checks.equal("forEachLine 区间", "2:beta|3:gamma|4:delta|", lines.toString());
+        Checks.equal("forEachLine 返回最后一行", 4, last);
+        Checks.equal("forEachLine 越过末尾", 5, base.forEachLine(5, 10, (n, text) -> true));
+        Checks.equal("forEachLine 提前终止", 1, base.forEachLine(1, 10, (n, text) -> false));
+
+        // 片段数只与修改量有关
+        Checks.equal("当前修订只有一个片段", 1, editor.getRevisionView(300).getPieceCount());
+
+        // 相距很远的两处修改：日志只保存修改的部分，不保存两处之间的整段文本
+        Editor large = new Editor("large.txt", true);
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 50000; i++) {
+            text.append("foo line ").append(i).append('\n');
+        }
+        large.append(text.toString());
+        String before = large.getContentView().toString();
+        TextPatch patch = new TextPatch();
+        patch.add(0, "foo", "bar");
+        patch.add(before.lastIndexOf("foo"), "foo", "bazz");
+        EditJournal applied = large.startJournal();
+        patch.apply(large);
+        large.stopJournal();
+        Checks.equal("apply 的日志按修改记录", 2, applied.size());
+        Checks.equal("apply 的日志只保存修改", 13, applied.getStoredChars());
+        String after = large.getContentView().toString();
+        EditJournal reverted = large.startJournal();
+        patch.revert(large);
+        large.stopJournal();
+        Checks.equal("revert 的日志只保存修改", 13, reverted.getStoredChars());
+        reverted.revert(large);
+        Checks.equal("日志撤销 revert", after, large.getContentView().toString());
+        applied.revert(large);
+        Checks.equal("日志撤销 apply", before, large.getContentView().toString());
+
+        // substitute 的修订仍能重建历史内容
+        workSpace.addEditor("large.txt", large);
+        Checks.captureOut(() -> workSpace.executeCommand(
+                new SubstituteCommand(large, "^foo", "X", false, false, 1, Integer.MAX_VALUE)));
+        int substituted = large.getHistory().getCurrent().getId();
+        Checks.equal("substitute 之前的修订", before, large.getRevisionView(substituted - 1).toString());
+        Checks.check("substitute 之后的修订", large.getRevisionView(substituted).toString().startsWith("X line 0\nX line 1\n"));
+
+        Checks.finish();
+    }
+}
@@ -0,0 +1,41 @@
+package org.flanVim.test;
+
+import org.flanVim.command.editorspace.ShowCommand;
+import org.flanVim.editor.Editor;
+
+/**
+ * 测试 show --page 的分页和文件末尾判断
+ */
+public class ShowPageTest {
+
+    public static void main(String[] args) {
+        System.out.println("=== show --page 分页测试 ===\n");
+
+        // 行数恰好是页大小的整数倍：最后一页就应该给出 (END)，不能再多出一个空页
+        Editor editor = new Editor("page.txt", true);
+        editor.append("l1\nl2\nl3\nl4");
+        String first = Checks.captureOut(() -> new ShowCommand(editor, 2).execute());
+        Checks.check("第 1 页提示还有更多", first.contains("-- lines 1-2"));
+        String second = Checks.captureOut(() -> new ShowCommand(editor, 2).execute());
+        Checks.check("第 2 页包含第 4 行", second.contains("4\t|  l4"));
+        Checks.check("第 2 页就是最后一页", second.contains("(END)"));
+        Checks.equal("游标回到开头", 1, editor.getPageCursor());
+        String again = Checks.captureOut(() -> new ShowCommand(editor, 2).execute());
+        Checks.check("之后重新从第 1 行开始", again.contains("1\t|  l1"));
+
+        // 行数不是整数倍
+        Editor odd = new Editor("odd.txt", true);
+        odd.append("a\nb\nc");
+        Checks.captureOut(() -> new ShowCommand(odd, 2).execute());
+        String last = Checks.captureOut(() -> new ShowCommand(odd, 2).execute());
+        Checks.check("不足一页的最后一页给出 (END)", last.contains("3\t|  c") && last.contains("(END)"));
+
+        // 一页就能显示完
+        Editor small = new Editor("small.txt", true);
+        small.append("only");
+        String one = Checks.captureOut(() -> new ShowCommand(small, 5).execute());
+        Checks.check("单页文件直接给出 (END)", one.contains("1\t|  only") && one.contains("(END)"));
+
+        Checks.finish();
+    }
+}
@@ -0,0 +1,106 @@
+package org.flanVim.test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.Arrays;
+
+import org.flanVim.command.editorspace.SubstituteCommand;
+import org.flanVim.editor.Editor;
+import org.flanVim.workspace.WorkSpace;
+
+/**
+ * 测试 substitute：表达式解析（分隔符、转义、标志）以及替换和撤销
+ */
+public class SubstituteTest {
+
+    public static void main(String[] args) {
+        System.out.println("=== substitute 测试 ===\n");
+        System.setProperty("flanvim.watchFiles", "false");
+
+        Checks.equal("基本形式", "[a+, b, g]", parse("/a+/b/g"));
+        Checks.equal("省略标志", "[a, b, ]", parse("/a/b"));
+        Checks.equal("空替换串", "[a, , i]", parse("/a//i"));
+        Checks.equal("其他分隔符", "[a/b, c, ]", parse("#a/b#c#"));
+        Checks.equal("转义的分隔符", "[a/b, c/d, g]", parse("/a\\/b/c\\/d/g"));
+        Checks.equal("其他转义保持原样", "[\\d+, \\n, ]", parse("/\\d+/\\n/"));
+        Checks.equal("替换串中的 $1", "[(\\w+)=(\\w+), $2=$1, gi]", parse("/(\\w+)=(\\w+)/$2=$1/gi"));
+        rejects("缺少替换串", "/abc");
+        rejects("太短", "/");
+        rejects("字母分隔符", "abca");
+        rejects("反斜杠分隔符", "\\a\\b\\");
+        rejects("未知标志", "/a/b/x");
+        rejects("空模式", "//b/");
+
+        // 替换与撤销
+        WorkSpace workSpace = new WorkSpace();
+        Editor editor = new Editor("sub.txt", true);
+        editor.append("foo foo\nFoo bar\nfoo");
+        workSpace.addEditor("sub.txt", editor);
+        String original = editor.getContentView().toString();
+
+        Checks.captureOut(() -> workSpace.executeCommand(
+                new SubstituteCommand(editor, "foo", "baz", false, false, 1, Integer.MAX_VALUE)));
+        Checks.equal("每行第一个匹配", "baz foo\nFoo bar\nbaz", editor.getContentView().toString());
+        Checks.captureOut(workSpace::undo);
+        Checks.equal("撤销后还原", original, editor.getContentView().toString());
+
+        Checks.captureOut(() -> workSpace.executeCommand(
+                new SubstituteCommand(editor, "foo", "x", true, true, 1, 2)));
+        Checks.equal("全局、忽略大小写、行范围", "x x\nx bar\nfoo", editor.getContentView().toString());
+        Checks.captureOut(workSpace::undo);
+        Checks.captureOut(workSpace::redo);
+        Checks.equal("重做", "x x\nx bar\nfoo", editor.getContentView().toString());
+
+        // 替换串的语法与 Matcher.appendReplacement 相同
+        Checks.equal("分组编号", "1a 2b", substitute("([a-z])(\\d)", "$2$1"));
+        Checks.equal("分组名", "1a 2b", substitute("(?<letter>[a-z])(?<digit>\\d)", "${digit}${letter}"));
+        Checks.equal("多位编号只取存在的分组", "a0 b0", substitute("([a-z])\\d", "$10"));
+        Checks.equal("转义的 $", "$1 $1", substitute("[a-z]\\d", "\\$1"));
+        Checks.equal("未参与匹配的分组为空", "a- b-", substitute("([a-z])(x)?\\d", "$1-$2"));
+        Checks.equal("与 Matcher 的结果一致", "a1 b2".replaceAll("(?<l>[a-z])(\\d)", "<${l}|$2|\\\\>"),
+                substitute("(?<l>[a-z])(\\d)", "<${l}|$2|\\\\>"));
+        Checks.equal("$ 后不是分组", null, substitute("[a-z]", "$x"));
+        Checks.equal("末尾的 $", null, substitute("[a-z]", "cost$"));
+        Checks.equal("末尾的 \\", null, substitute("[a-z]", "x\\"));
+        Checks.equal("不存在的分组编号", null, substitute("([a-z])", "$2"));
+        Checks.equal("不存在的分组名", null, substitute("([a-z])", "${nope}"));
+        Checks.equal("分组名缺少 }", null, substitute("(?<l>[a-z])", "${l"));
+        Checks.equal("空的分组名", null, substitute("([a-z])", "${}"));
+
+        Checks.finish();
+    }
+
+    private static String parse(String expression) {
+        return Arrays.toString(SubstituteCommand.parseExpression(expression));
+    }
+
+    private static void rejects(String name, String expression) {
+        try {
+            SubstituteCommand.parseExpression(expression);
+            Checks.check(name, false);
+        } catch (IllegalArgumentException e) {
+            Checks.check(name, true);
+        }
+    }
+
+    /**
+     * 在 "a1 b2" 上执行全局替换
+     * @return 替换后的内容，替换失败时为 null
+     */
+    private static String substitute(String regex, String replacement) {
+        WorkSpace workSpace = new WorkSpace();
+        Editor editor = new Editor("replacement.txt", true);
+        editor.append("a1 b2");
+        workSpace.addEditor("replacement.txt", editor);
+        boolean[] done = new boolean[1];
+        PrintStream err = System.err;
+        System.setErr(new PrintStream(new ByteArrayOutputStream()));
+        try {
+            Checks.captureOut(() -> done[0] = new SubstituteCommand(editor, regex, replacement,
+                    true, false, 1, Integer.MAX_VALUE).execute());
+        } finally {
+            System.setErr(err);
+        }
+        return done[0] ? editor.getContentView().toString() : null;
+    }
+}
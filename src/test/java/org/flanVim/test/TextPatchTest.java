@@ -0,0 +1,115 @@
+package org.flanVim.test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.flanVim.command.editorspace.InsertCommand;
+import org.flanVim.command.workspace.ReplaceAllCommand;
+import org.flanVim.editor.Editor;
+import org.flanVim.editor.TextPatch;
+import org.flanVim.workspace.WorkSpace;
+
+/**
+ * 测试 TextPatch 的应用/撤销，以及 replace-all 在内容被改动后拒绝撤销和重做
+ */
+public class TextPatchTest {
+
+    public static void main(String[] args) throws Exception {
+        System.out.println("=== TextPatch 测试 ===\n");
+        System.setProperty("flanvim.watchFiles", "false");
+
+        // 应用与撤销互为逆操作，长度变化不同的修改混在一起
+        Editor editor = new Editor("patch.txt", true);
+        editor.append("alpha beta gamma\ndelta");
+        String original = editor.getContentView().toString();
+        TextPatch patch = new TextPatch();
+        patch.add(0, "alpha", "A");
+        patch.add(6, "beta", "BETA-LONGER");
+        patch.add(17, "delta", "");
+        Checks.equal("修改数", 3, patch.size());
+        Checks.equal("长度变化", -4 + 7 - 5, patch.getDelta());
+        Checks.check("原内容可以应用", patch.canApply(editor));
+        Checks.check("原内容不能撤销", !patch.canRevert(editor));
+        patch.apply(editor);
+        Checks.equal("应用后", "A BETA-LONGER gamma\n", editor.getContentView().toString());
+        Checks.check("应用后可以撤销", patch.canRevert(editor));
+        Checks.check("应用后不能再应用", !patch.canApply(editor));
+        patch.revert(editor);
+        Checks.equal("撤销后还原", original, editor.getContentView().toString());
+
+        try {
+            patch.add(0, "x", "y");
+            Checks.check("重叠的修改被拒绝", false);
+        } catch (IllegalArgumentException e) {
+            Checks.check("重叠的修改被拒绝", true);
+        }
+
+        // replace-all 之后文件又被修改：undo/redo 拒绝执行，历史位置不变
+        Path dir = Files.createTempDirectory("flanvim-patch");
+        Path a = dir.resolve("a.txt");
+        Path b = dir.resolve("b.txt");
+        Files.writeString(a, "foo one\nfoo two\n");
+        Files.writeString(b, "three foo\n");
+        WorkSpace workSpace = new WorkSpace();
+        Editor ea = new Editor(a.toString());
+        Editor eb = new Editor(b.toString());
+        workSpace.addEditor(a.toString(), ea);
+        workSpace.addEditor(b.toString(), eb);
+
+        Checks.captureOut(() -> workSpace.executeCommand(
+                new ReplaceAllCommand(workSpace, "foo", "bar", true, false, null, true)));
+        Checks.equal("a 已替换", "bar one\nbar two\n", ea.getContentView().toString());
+        Checks.equal("b 已替换", "three bar\n", eb.getContentView().toString());
+
+        ea.insert(1, 1, ">");
+        String refused = Checks.captureOut(workSpace::undoWorkspace);
+        Checks.check("改动后拒绝撤销", refused.contains("Cannot undo"));
+        Checks.equal("a 保持改动后的内容", ">bar one\nbar two\n", ea.getContentView().toString());
+        Checks.equal("b 没有被部分撤销", "three bar\n", eb.getContentView().toString());
+        Checks.equal("命令仍在撤销栈中", 1, workSpace.getCommandHistory().getUndoSize());
+
+        ea.delete(1, 1, 1);
+        Checks.captureOut(workSpace::undoWorkspace);
+        Checks.equal("还原后可以撤销 a", "foo one\nfoo two\n", ea.getContentView().toString());
+        Checks.equal("还原后可以撤销 b", "three foo\n", eb.getContentView().toString());
+
+        eb.insert(1, 1, "x");
+        String redoRefused = Checks.captureOut(workSpace::redoWorkspace);
+        Checks.check("改动后拒绝重做", redoRefused.contains("Cannot redo"));
+        Checks.equal("a 没有被部分重做", "foo one\nfoo two\n", ea.getContentView().toString());
+        Checks.equal("命令仍在重做栈中", 1, workSpace.getCommandHistory().getRedoSize());
+
+        // 替换同时记入编辑器自己的历史：编辑器 undo 先撤销替换，之前的命令按正确的位置撤销
+        Path c = dir.resolve("c.txt");
+        Files.writeString(c, "foo\n");
+        WorkSpace ws = new WorkSpace();
+        Editor ec = new Editor(c.toString());
+        ws.addEditor(c.toString(), ec);
+        ws.setActiveEditor(c.toString());
+        Checks.captureOut(() -> {
+            ws.executeCommand(new InsertCommand(ec, 1, 1, "abc"));
+            ws.executeCommand(new ReplaceAllCommand(ws, "abc", "X", true, false, null, true));
+        });
+        Checks.equal("替换后", "Xfoo\n", ec.getContentView().toString());
+        Checks.captureOut(ws::undo);
+        Checks.equal("编辑器 undo 撤销替换", "abcfoo\n", ec.getContentView().toString());
+        String stale = Checks.captureOut(ws::undoWorkspace);
+        Checks.check("编辑器已撤销时拒绝工作区撤销", stale.contains("Cannot undo"));
+        Checks.equal("拒绝后内容不变", "abcfoo\n", ec.getContentView().toString());
+        Checks.captureOut(ws::undo);
+        Checks.equal("再 undo 撤销插入", "foo\n", ec.getContentView().toString());
+        Checks.captureOut(() -> {
+            ws.redo();
+            ws.redo();
+        });
+        Checks.equal("编辑器 redo 重做替换", "Xfoo\n", ec.getContentView().toString());
+        Checks.captureOut(ws::undoWorkspace);
+        Checks.equal("工作区撤销", "abcfoo\n", ec.getContentView().toString());
+        Checks.equal("工作区撤销同时移动编辑器历史", 1, ec.getHistory().getCurrent().getId());
+        Checks.captureOut(ws::redoWorkspace);
+        Checks.equal("工作区重做", "Xfoo\n", ec.getContentView().toString());
+        Checks.equal("工作区重做回到替换的修订", 2, ec.getHistory().getCurrent().getId());
+
+        Checks.finish();
+    }
+}
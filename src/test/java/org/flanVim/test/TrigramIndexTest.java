@@ -0,0 +1,95 @@
+package org.flanVim.test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.flanVim.editor.Utf8Text;
+import org.flanVim.workspace.TrigramIndex;
+
+/**
+ * 测试从正则中提取必须出现的三元组
+ * 提取出的三元组必须真的出现在所有匹配中，否则 grep 会漏掉文件
+ */
+public class TrigramIndexTest {
+
+    public static void main(String[] args) throws Exception {
+        System.out.println("=== 三元组提取测试 ===\n");
+
+        Checks.equal("foobar 有 4 个三元组", 4, TrigramIndex.requiredTrigrams("foobar").length);
+        expect("普通字面量", "foobar", "foobar");
+        expect("分支不过滤", "foo|bar", null);
+        expect("可选分组被忽略", "(abc)?def", "def");
+        expect("量词去掉前一个字符", "abcd*", "abc");
+        expect("转义的元字符", "a\\.bc", "a.bc");
+        expect("内联大小写标志", "(?i)foobar", "foobar");
+
+        // 带参数的转义：参数不是字面量
+        expect("\\xhh", "\\x41BC", null);
+        expect("\\x{h}", "\\x{41}bcd", "bcd");
+        expect("\\uhhhh", "\\u0041bc", null);
+        expect("八进制", "\\0101bc", null);
+        expect("\\cX", "\\cAbcd", "bcd");
+        expect("\\k<name>", "(?<w>ab)\\k<w>cde", "cde");
+        expect("\\N{name}", "\\N{LATIN SMALL LETTER A}bc", null);
+        expect("\\p{..}", "\\p{Lu}abc", "abc");
+        expect("\\pL", "\\pLabc", "abc");
+
+        // \Q...\E 之间是字面量
+        expect("\\Q..\\E", "\\Qa.b|c\\E", "a.b|c");
+        expect("\\E 后的量词", "\\Qfoo\\E*", null);
+        expect("没有 \\E", "\\Qa+bc", "a+bc");
+
+        // (?x) 下空白不参与匹配
+        expect("(?x)", "(?x)a b c d", null);
+        expect("(?ix)", "(?ix)foo bar", null);
+        expect("(?x:...)", "(?x:a b)cde", null);
+        expect("关闭 x", "(?-x)abc", "abc");
+
+        // 字符类：嵌套、交集、转义和开头的 ] 都在类内，类之后的字面量照常提取
+        expect("交集", "[a-z&&[^aeiou]]foo", "foo");
+        expect("嵌套", "[a[bc]]defg", "defg");
+        expect("开头的 ]", "[]a]bcd", "bcd");
+        expect("[^] 开头", "[^]a]bcd", "bcd");
+        expect("转义的 ]", "[\\]x]yzw", "yzw");
+        expect("类中的 \\Q..\\E", "[\\Q]]\\E]abc", "abc");
+        expect("没有闭合", "[abc", null);
+
+        // 保存时直接从 UTF-8 字节更新索引
+        Path root = Files.createTempDirectory("flanvim-trigram");
+        Path file = root.resolve("saved.txt");
+        String content = "héllo wörld needle";
+        Files.writeString(file, content);
+        TrigramIndex index = new TrigramIndex(root);
+        index.onSaved(file.toString(), new Utf8Text(content));
+        Checks.check("保存的内容包含 needle", index.mayContain(root.relativize(file), TrigramIndex.requiredTrigrams("needle")));
+        Checks.check("保存的内容包含 wörld", index.mayContain(root.relativize(file), TrigramIndex.requiredTrigrams("wörld")));
+        Checks.check("保存的内容不含 haystack", !index.mayContain(root.relativize(file), TrigramIndex.requiredTrigrams("haystack")));
+        index.onSaved(file.toString(), "plain haystack");
+        Checks.check("普通 CharSequence 同样更新", index.mayContain(root.relativize(file), TrigramIndex.requiredTrigrams("haystack")));
+
+        Checks.finish();
+    }
+
+    /**
+     * @param literal 期望提取到的字面量，null 表示不过滤（没有三元组）
+     */
+    private static void expect(String name, String regex, String literal) {
+        int[] actual = TrigramIndex.requiredTrigrams(regex);
+        int[] expected = literal == null ? new int[0] : TrigramIndex.requiredTrigrams(quote(literal));
+        Arrays.sort(actual);
+        Arrays.sort(expected);
+        Checks.check(name + ": " + regex, Arrays.equals(expected, actual));
+    }
+
+    private static String quote(String literal) {
+        StringBuilder sb = new StringBuilder();
+        for (char c : literal.toCharArray()) {
+            if ("\\.|*+?()[]{}^$".indexOf(c) >= 0) {
+                sb.append('\\');
+            }
+            sb.append(c);
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,189 @@
+package org.flanVim.test;
+
+import org.flanVim.command.Command;
+import org.flanVim.command.UndoTree;
+import org.flanVim.command.Undoable;
+import org.flanVim.command.editorspace.AppendCommand;
+import org.flanVim.editor.CompressedText;
+import org.flanVim.editor.Editor;
+import org.flanVim.editor.Utf8Text;
+import org.flanVim.workspace.WorkSpace;
+
+/**
+ * 测试分支撤销历史：分支、多步跳转、检查点及其内存预算
+ */
+public class UndoTreeTest {
+
+    public static void main(String[] args) {
+        System.out.println("=== 撤销树测试 ===\n");
+        System.setProperty("flanvim.watchFiles", "false");
+
+        WorkSpace workSpace = new WorkSpace();
+        Editor editor = new Editor("undo.txt", true);
+        workSpace.addEditor("undo.txt", editor);
+        UndoTree history = editor.getHistory();
+
+        Checks.captureOut(() -> {
+            for (int i = 1; i <= 40; i++) {
+                workSpace.executeCommand(new AppendCommand(editor, "line " + i));
+            }
+        });
+        String full = content(editor);
+        int latest = history.getCurrent().getId();
+        Checks.equal("40 个修订", 40, latest);
+        Checks.equal("深度 32 保存一个检查点", 1, history.getCheckpointCount());
+        Checks.check("检查点计入内存", workSpace.getResidentBytes() >= editor.getResidentBytes() + editor.getHistoryBytes()
+                && editor.getHistoryBytes() > 0);
+
+        // 多步撤销和跳回
+        Checks.captureOut(() -> workSpace.undo(35));
+        Checks.equal("undo 35 之后剩 5 行", 5, lines(editor));
+        Checks.equal("undo 35 之后的修订", 5, history.getCurrent().getId());
+        Checks.captureOut(() -> workSpace.gotoRevision(latest));
+        Checks.equal("跳回最新修订", full, content(editor));
+
+        // 分支：撤销两步后执行新命令，原来的修订仍然保留
+        Checks.captureOut(() -> {
+            workSpace.undo(2);
+            workSpace.executeCommand(new AppendCommand(editor, "branch"));
+        });
+        int branch = history.getCurrent().getId();
+        Checks.equal("新分支的修订号", 41, branch);
+        Checks.equal("分叉点有两个子节点", 2, history.getRevision(38).getChildren().size());
+        Checks.captureOut(() -> workSpace.gotoRevision(latest));
+        Checks.equal("回到原分支", full, content(editor));
+        Checks.captureOut(() -> workSpace.gotoRevision(branch));
+        Checks.check("回到新分支", content(editor).endsWith("line 38\nbranch"));
+
+        // 超出内存预算时丢弃检查点，撤销本身不受影响
+        workSpace.setMemoryBudget(1);
+        Checks.equal("检查点被丢弃", 0, history.getCheckpointCount());
+        Checks.equal("检查点不再占用内存", 0L, editor.getHistoryBytes());
+        Checks.captureOut(() -> workSpace.gotoRevision(3));
+        Checks.equal("没有检查点时仍能跳转", 3, lines(editor));
+
+        // capture 返回 null 时跳过检查点
+        UndoTree skipping = new UndoTree(new UndoTree.Checkpoints() {
+            @Override
+            public CompressedText capture() {
+                return null;
+            }
+
+            @Override
+            public void restore(CompressedText snapshot) {
+                throw new AssertionError("no checkpoint to restore");
+            }
+        });
+        Command noop = () -> true;
+        for (int i = 0; i < 70; i++) {
+            skipping.addCommand(noop);
+        }
+        Checks.equal("跳过的检查点不计数", 0, skipping.getCheckpointCount());
+        Checks.captureOut(() -> skipping.undo(70));
+        Checks.equal("没有检查点时逐条撤销", 0, skipping.getCurrent().getId());
+
+        // 恢复检查点的代价按快照大小计算：小文档恢复后补做少量增量，大文档逐条撤销
+        Checks.equal("小快照：从检查点恢复", 1, restoresWhenUndoing(new Utf8Text("small")));
+        Checks.equal("大快照：逐条撤销更近", 0, restoresWhenUndoing(new Utf8Text("x".repeat(4 * 1024 * 1024))));
+
+        // 命令拒绝撤销/重做（IllegalStateException）时停在原位置，多步跳转退回出发的修订
+        UndoTree refusing = new UndoTree();
+        int[] state = {0};
+        refusing.addCommand(new Step(state, false, false));
+        refusing.addCommand(new Step(state, false, true));
+        refusing.addCommand(new Step(state, true, false));
+        String undoOut = Checks.captureOut(refusing::undo);
+        Checks.check("拒绝撤销时输出原因", undoOut.contains("Cannot undo: refused"));
+        Checks.equal("拒绝撤销时修订不变", 3, refusing.getCurrent().getId());
+        boolean[] reached = {true};
+        Checks.captureOut(() -> reached[0] = refusing.goTo(0));
+        Checks.check("拒绝时 goTo 返回 false", !reached[0]);
+        Checks.equal("拒绝时 goTo 不移动", 3, refusing.getCurrent().getId());
+
+        UndoTree redoRefusing = new UndoTree();
+        int[] redoState = {0};
+        redoRefusing.addCommand(new Step(redoState, false, false));
+        redoRefusing.addCommand(new Step(redoState, false, true));
+        redoRefusing.addCommand(new Step(redoState, false, false));
+        Checks.captureOut(() -> redoRefusing.goTo(0));
+        Checks.equal("撤销到根", 0, redoRefusing.getCurrent().getId());
+        String jumpOut = Checks.captureOut(() -> redoRefusing.goTo(3));
+        Checks.check("途中拒绝重做时输出原因", jumpOut.contains("Cannot redo: refused"));
+        Checks.equal("途中拒绝后退回出发的修订", 0, redoRefusing.getCurrent().getId());
+        Checks.equal("退回后内容与修订一致", 0, redoState[0]);
+
+        Checks.finish();
+    }
+
+    /**
+     * 64 个修订（深度 32 和 64 有检查点），从 64 撤销到 40：逐条撤销 24 步，或者从 32 恢复后重做 8 步
+     * @return 恢复检查点的次数
+     */
+    private static int restoresWhenUndoing(Utf8Text content) {
+        CompressedText snapshot = CompressedText.compress(content, content.getResidentBytes());
+        int[] restores = {0};
+        UndoTree tree = new UndoTree(new UndoTree.Checkpoints() {
+            @Override
+            public CompressedText capture() {
+                return snapshot;
+            }
+
+            @Override
+            public void restore(CompressedText restored) {
+                restores[0]++;
+            }
+        });
+        Command noop = () -> true;
+        for (int i = 0; i < 64; i++) {
+            tree.addCommand(noop);
+        }
+        Checks.captureOut(() -> tree.undo(24));
+        Checks.equal("撤销到修订 40", 40, tree.getCurrent().getId());
+        return restores[0];
+    }
+
+    /**
+     * 把计数加一的命令，可以设置拒绝撤销或重做
+     */
+    private static class Step implements Command, Undoable {
+        private final int[] state;
+        private final boolean refuseUndo;
+        private final boolean refuseRedo;
+
+        Step(int[] state, boolean refuseUndo, boolean refuseRedo) {
+            this.state = state;
+            this.refuseUndo = refuseUndo;
+            this.refuseRedo = refuseRedo;
+            state[0]++;
+        }
+
+        @Override
+        public boolean execute() {
+            return true;
+        }
+
+        @Override
+        public void undo() {
+            if (refuseUndo) {
+                throw new IllegalStateException("refused");
+            }
+            state[0]--;
+        }
+
+        @Override
+        public void redo() {
+            if (refuseRedo) {
+                throw new IllegalStateException("refused");
+            }
+            state[0]++;
+        }
+    }
+
+    private static int lines(Editor editor) {
+        return content(editor).split("\n", -1).length;
+    }
+
+    private static String content(Editor editor) {
+        return editor.getContentView().toString();
+    }
+}